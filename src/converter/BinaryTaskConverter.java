@@ -0,0 +1,226 @@
+package converter;
+
+import model.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.function.Consumer;
+
+/*
+ * Формат: заголовок (MAGIC, VERSION), затем записи до конца файла.
+ * Запись: длина, id, тип, статус, id эпика, начало (минута от эпохи, секунда, наносекунды),
+ * длительность в минутах, имя и описание (длина + UTF-8).
+ */
+public class BinaryTaskConverter {
+    public static final int MAGIC = 0x4B414E42;  // "KANB"
+    public static final byte VERSION = 1;
+    public static final int HEADER_SIZE = Integer.BYTES + Byte.BYTES;
+    public static final int RECORD_HEADER_SIZE = Integer.BYTES;
+    public static final int ID_OFFSET = 4;
+    public static final int TYPE_OFFSET = 8;
+    public static final int EPIC_OFFSET = 10;
+    public static final int START_MINUTE_OFFSET = 14;
+    public static final int START_SECOND_OFFSET = 18;
+    public static final int START_NANO_OFFSET = 19;
+    public static final int DURATION_OFFSET = 23;
+    public static final int NULL = -1;
+    public static final int NULL_TIME = Integer.MIN_VALUE;
+    private static final int FIXED_SIZE = 31;
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final Status[] STATUSES = Status.values();
+
+    public static void writeHeader(ByteBuffer buffer) {
+        buffer.putInt(MAGIC);
+        buffer.put(VERSION);
+    }
+
+    public static boolean isHeader(ByteBuffer buffer) {
+        return buffer.remaining() >= Integer.BYTES && buffer.getInt(buffer.position()) == MAGIC;
+    }
+
+    public static void readHeader(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a binary task snapshot");
+        }
+        byte version = buffer.get();
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary task snapshot version: " + version);
+        }
+    }
+
+    public static void write(Task task, ByteBuffer buffer, WritableByteChannel channel) throws IOException {
+        byte[] name = toBytes(task.getName());
+        byte[] description = toBytes(task.getDescription());
+        int size = FIXED_SIZE + length(name) + length(description);
+        if (buffer.remaining() < RECORD_HEADER_SIZE + size) {
+            drain(buffer, channel);
+        }
+        if (buffer.remaining() < RECORD_HEADER_SIZE + size) {  // Запись больше буфера.
+            ByteBuffer large = ByteBuffer.allocate(RECORD_HEADER_SIZE + size);
+            encode(task, name, description, size, large);
+            drain(large, channel);
+            return;
+        }
+        encode(task, name, description, size, buffer);
+    }
+
+    public static void drain(ByteBuffer buffer, WritableByteChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    public static void readAll(ReadableByteChannel channel, ByteBuffer buffer, Consumer<Task> consumer)
+            throws IOException {
+        readAll(channel, buffer, StringPool.getDefault(), consumer);
+    }
+
+    // pool объединяет одинаковые имена и описания, см. read(ByteBuffer, StringPool).
+    public static void readAll(ReadableByteChannel channel, ByteBuffer buffer, StringPool pool,
+                               Consumer<Task> consumer) throws IOException {
+        buffer.clear().limit(0);
+        fill(channel, buffer, HEADER_SIZE);
+        readHeader(buffer);
+        while (fill(channel, buffer, RECORD_HEADER_SIZE)) {
+            int size = buffer.getInt(buffer.position());
+            if (size + RECORD_HEADER_SIZE > buffer.capacity()) {
+                ByteBuffer large = ByteBuffer.allocate(size + RECORD_HEADER_SIZE);
+                large.put(buffer);
+                buffer.clear().flip();
+                while (large.hasRemaining()) {
+                    if (channel.read(large) < 0) {
+                        throw new IOException("Truncated binary task snapshot");
+                    }
+                }
+                large.flip();
+                consumer.accept(read(large, pool));
+                continue;
+            }
+            if (!fill(channel, buffer, RECORD_HEADER_SIZE + size)) {
+                throw new IOException("Truncated binary task snapshot");
+            }
+            consumer.accept(read(buffer, pool));
+        }
+    }
+
+    // Декодирует одну запись, начиная с её длины, и сдвигает позицию буфера за неё.
+    public static Task read(ByteBuffer buffer) {
+        return read(buffer, StringPool.getDefault());
+    }
+
+    public static Task read(ByteBuffer buffer, StringPool pool) {
+        buffer.getInt();
+        int id = buffer.getInt();
+        TaskType type = TYPES[buffer.get()];
+        Status status = STATUSES[buffer.get()];
+        int epicId = buffer.getInt();
+        int startMinute = buffer.getInt();
+        byte startSecond = buffer.get();
+        int startNano = buffer.getInt();
+        int durationMinutes = buffer.getInt();
+        String name = pool.get(readString(buffer));
+        String description = pool.get(readString(buffer));
+
+        LocalDateTime startTime = startMinute == NULL_TIME ? null
+                : LocalDateTime.ofEpochSecond(startMinute * 60L + startSecond, startNano, ZoneOffset.UTC);
+        Duration duration = durationMinutes == NULL ? null : Duration.ofMinutes(durationMinutes);
+        Task task = switch (type) {
+            case TASK -> new Task(name, description, startTime, duration);
+            case EPIC -> {
+                Epic epic = new Epic(name, description);
+                epic.setStartTime(startTime);
+                epic.setDuration(duration);
+                if (startTime != null && duration != null) {
+                    epic.setEndTime(startTime.plus(duration));
+                }
+                yield epic;
+            }
+            case SUBTASK -> new SubTask(name, description, epicId, startTime, duration);
+        };
+        task.setId(id);
+        task.setStatus(status);
+        return task;
+    }
+
+    private static void encode(Task task, byte[] name, byte[] description, int size, ByteBuffer buffer) {
+        Integer epicId = task.getEpicId();
+        LocalDateTime startTime = task.getStartTime();
+        Duration duration = task.getDuration();
+        buffer.putInt(size);
+        buffer.putInt(task.getId());
+        buffer.put((byte) task.getType().ordinal());
+        buffer.put((byte) task.getStatus().ordinal());
+        buffer.putInt(epicId == null ? NULL : epicId);
+        if (startTime == null) {
+            buffer.putInt(NULL_TIME);
+            buffer.put((byte) 0);
+            buffer.putInt(0);
+        } else {
+            long epochSecond = startTime.toEpochSecond(ZoneOffset.UTC);
+            buffer.putInt(Math.toIntExact(Math.floorDiv(epochSecond, 60)));
+            buffer.put((byte) Math.floorMod(epochSecond, 60));
+            buffer.putInt(startTime.getNano());
+        }
+        buffer.putInt(duration == null ? NULL : Math.toIntExact(duration.toMinutes()));
+        writeString(name, buffer);
+        writeString(description, buffer);
+    }
+
+    // Дочитывает канал, пока в буфере не окажется хотя бы size байт; буфер остаётся в режиме чтения.
+    private static boolean fill(ReadableByteChannel channel, ByteBuffer buffer, int size) throws IOException {
+        if (buffer.remaining() >= size) {
+            return true;
+        }
+        buffer.compact();
+        while (buffer.position() < size) {
+            if (channel.read(buffer) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        return buffer.remaining() >= size;
+    }
+
+    private static byte[] toBytes(String string) {
+        return string == null ? null : string.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int length(byte[] bytes) {
+        return bytes == null ? 0 : bytes.length;
+    }
+
+    private static void writeString(byte[] bytes, ByteBuffer buffer) {
+        if (bytes == null) {
+            buffer.putInt(NULL);
+            return;
+        }
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length == NULL) {
+            return null;
+        }
+        String string;
+        if (buffer.hasArray()) {
+            string = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+                    StandardCharsets.UTF_8);
+        } else {
+            byte[] bytes = new byte[length];
+            buffer.get(buffer.position(), bytes);
+            string = new String(bytes, StandardCharsets.UTF_8);
+        }
+        buffer.position(buffer.position() + length);
+        return string;
+    }
+}
@@ -0,0 +1,297 @@
+package converter;
+
+import model.*;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/*
+ * Потоковый разбор CSV задач: строки читаются в переиспользуемый буфер символов, поля разбираются прямо в нём.
+ * Имя и описание могут быть в кавычках: "" внутри означает кавычку, \n, \r и \\ - перевод строки,
+ * возврат каретки и обратную косую черту, так что одна запись всегда занимает одну строку.
+ */
+public class TaskCsvReader {
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final Status[] STATUSES = Status.values();
+    private static final char[] NULL = "null".toCharArray();
+
+    private final Reader reader;
+    private final StringPool pool;
+    private final StringBuilder text = new StringBuilder();
+    private char[] buffer;
+    private int position;
+    private int limit;
+    private boolean eof;
+
+    private char[] chars;
+    private int start;
+    private int cursor;
+    private int end;
+
+    public TaskCsvReader(Reader reader) {
+        this(reader, StringPool.getDefault());
+    }
+
+    public TaskCsvReader(Reader reader, StringPool pool) {  // pool объединяет одинаковые имена и описания.
+        this.reader = reader;
+        this.pool = pool;
+        this.buffer = new char[8192];
+    }
+
+    public static Task parse(String line) {
+        char[] chars = line.toCharArray();
+        return new TaskCsvReader(Reader.nullReader()).parse(chars, 0, chars.length);
+    }
+
+    // Возвращает null в конце потока.
+    public Task next() throws IOException {
+        int lineEnd;
+        while ((lineEnd = nextLineEnd()) >= 0) {
+            int from = position;
+            int to = lineEnd > from && buffer[lineEnd - 1] == '\r' ? lineEnd - 1 : lineEnd;
+            position = Math.min(lineEnd + 1, limit);
+            if (to > from) {
+                return parse(buffer, from, to);
+            }
+        }
+        return null;
+    }
+
+    public boolean skipLine() throws IOException {
+        int lineEnd = nextLineEnd();
+        if (lineEnd < 0) {
+            return false;
+        }
+        position = Math.min(lineEnd + 1, limit);
+        return true;
+    }
+
+    private int nextLineEnd() throws IOException {
+        int scan = position;
+        while (true) {
+            for (; scan < limit; scan++) {
+                if (buffer[scan] == '\n') {
+                    return scan;
+                }
+            }
+            if (eof) {
+                return position < limit ? limit : -1;
+            }
+            scan -= position;
+            if (position > 0) {
+                System.arraycopy(buffer, position, buffer, 0, limit - position);
+                limit -= position;
+                position = 0;
+            } else if (limit == buffer.length) {
+                char[] grown = new char[buffer.length * 2];
+                System.arraycopy(buffer, 0, grown, 0, limit);
+                buffer = grown;
+            }
+            int read = reader.read(buffer, limit, buffer.length - limit);
+            if (read < 0) {
+                eof = true;
+            } else {
+                limit += read;
+            }
+        }
+    }
+
+    private Task parse(char[] chars, int from, int to) {
+        this.chars = chars;
+        this.start = from;
+        this.cursor = from;
+        this.end = to;
+        int id = nextInt();
+        TaskType type = nextEnum(TYPES);
+        String name = pool.get(nextString());  // Задачи из шаблонов делят одну строку.
+        Status status = nextEnum(STATUSES);
+        String description = pool.get(nextString());
+        Integer epicId = isNull() ? skipNull() : Integer.valueOf(nextInt());
+        Duration duration = isNull() ? skipNull() : Duration.ofMinutes(nextInt());
+        LocalDateTime startTime = isNull() ? skipNull() : nextDateTime();
+
+        Task task = switch (type) {
+            case TASK -> new Task(name, description, startTime, duration);
+            case EPIC -> new Epic(name, description);
+            case SUBTASK -> new SubTask(name, description, epicId, startTime, duration);
+        };
+        task.setId(id);
+        task.setStatus(status);
+        return task;
+    }
+
+    private int fieldEnd() {
+        int i = cursor;
+        while (i < end && chars[i] != ',') {
+            i++;
+        }
+        return i;
+    }
+
+    private void skipComma(int fieldEnd) {
+        cursor = fieldEnd < end ? fieldEnd + 1 : end;
+    }
+
+    private boolean isNull() {
+        int fieldEnd = fieldEnd();
+        return fieldEnd - cursor == NULL.length && regionMatches(NULL, cursor);
+    }
+
+    private <T> T skipNull() {
+        skipComma(cursor + NULL.length);
+        return null;
+    }
+
+    private int nextInt() {
+        int fieldEnd = fieldEnd();
+        int i = cursor;
+        boolean negative = i < fieldEnd && chars[i] == '-';
+        if (negative) {
+            i++;
+        }
+        if (i == fieldEnd) {
+            throw error("number");
+        }
+        long value = 0;
+        for (; i < fieldEnd; i++) {
+            int digit = chars[i] - '0';
+            if (digit < 0 || digit > 9 || value > Integer.MAX_VALUE) {
+                throw error("number");
+            }
+            value = value * 10 + digit;
+        }
+        skipComma(fieldEnd);
+        return Math.toIntExact(negative ? -value : value);
+    }
+
+    private <E extends Enum<E>> E nextEnum(E[] values) {
+        int fieldEnd = fieldEnd();
+        for (E value : values) {
+            String name = value.name();
+            if (name.length() == fieldEnd - cursor && regionMatches(name, cursor)) {
+                skipComma(fieldEnd);
+                return value;
+            }
+        }
+        throw error("enum constant");
+    }
+
+    private String nextString() {
+        if (cursor < end && chars[cursor] == '"') {
+            return nextQuoted();
+        }
+        int fieldEnd = fieldEnd();
+        String value = new String(chars, cursor, fieldEnd - cursor);
+        skipComma(fieldEnd);
+        return value;
+    }
+
+    private String nextQuoted() {
+        text.setLength(0);
+        int i = cursor + 1;
+        while (true) {
+            if (i >= end) {
+                throw error("closing quote");
+            }
+            char c = chars[i++];
+            if (c == '"') {
+                if (i < end && chars[i] == '"') {
+                    text.append('"');
+                    i++;
+                    continue;
+                }
+                break;
+            }
+            if (c == '\\' && i < end) {
+                char escaped = chars[i++];
+                text.append(switch (escaped) {
+                    case 'n' -> '\n';
+                    case 'r' -> '\r';
+                    default -> escaped;
+                });
+                continue;
+            }
+            text.append(c);
+        }
+        if (i < end && chars[i] != ',') {
+            throw error("comma after closing quote");
+        }
+        skipComma(i);
+        return text.toString();
+    }
+
+    // Быстрый разбор yyyy-MM-ddTHH:mm[:ss[.f...]], прочие варианты отдаются LocalDateTime.parse.
+    private LocalDateTime nextDateTime() {
+        int fieldEnd = fieldEnd();
+        int i = cursor;
+        int length = fieldEnd - i;
+        LocalDateTime dateTime;
+        if (length >= 16 && chars[i + 4] == '-' && chars[i + 7] == '-' && chars[i + 10] == 'T'
+                && chars[i + 13] == ':' && (length == 16 || chars[i + 16] == ':')) {
+            int year = digits(i, 4);
+            int month = digits(i + 5, 2);
+            int day = digits(i + 8, 2);
+            int hour = digits(i + 11, 2);
+            int minute = digits(i + 14, 2);
+            int second = length >= 19 ? digits(i + 17, 2) : 0;
+            int nano = 0;
+            if (length > 19) {
+                if (chars[i + 19] != '.' || length > 29) {
+                    throw error("date-time");
+                }
+                int fraction = length - 20;
+                nano = digits(i + 20, fraction);
+                for (int k = fraction; k < 9; k++) {
+                    nano *= 10;
+                }
+            } else if (length != 16 && length != 19) {
+                throw error("date-time");
+            }
+            dateTime = LocalDateTime.of(year, month, day, hour, minute, second, nano);
+        } else {
+            dateTime = LocalDateTime.parse(new String(chars, i, length));
+        }
+        skipComma(fieldEnd);
+        return dateTime;
+    }
+
+    private int digits(int from, int count) {
+        if (count <= 0 || from + count > end) {
+            throw error("digits");
+        }
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int digit = chars[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw error("digits");
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private boolean regionMatches(char[] expected, int from) {
+        for (int i = 0; i < expected.length; i++) {
+            if (chars[from + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean regionMatches(String expected, int from) {
+        for (int i = 0; i < expected.length(); i++) {
+            if (chars[from + i] != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private IllegalArgumentException error(String expected) {
+        return new IllegalArgumentException("Invalid task record, expected " + expected + " at column "
+                + (cursor - start) + ": " + new String(chars, start, end - start));
+    }
+}
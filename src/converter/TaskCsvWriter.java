@@ -0,0 +1,160 @@
+package converter;
+
+import model.Task;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+// Пишет задачи в CSV напрямую в Writer, без промежуточных строк; формат читает TaskCsvReader.
+public class TaskCsvWriter {
+    public static final String HEADER = "id,type,name,status,description,epic,duration,startTime";
+
+    private final Writer writer;
+    private final char[] scratch = new char[32];
+
+    public TaskCsvWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    public void writeHeader() throws IOException {
+        writer.write(HEADER);
+        writer.write('\n');
+    }
+
+    public void write(Task task) throws IOException {
+        append(task);
+        writer.write('\n');
+    }
+
+    public void append(Task task) throws IOException {
+        Integer epicId = task.getEpicId();
+        Duration duration = task.getDuration();
+        LocalDateTime startTime = task.getStartTime();
+        writeInt(task.getId());
+        writer.write(',');
+        writer.write(task.getType().name());
+        writer.write(',');
+        writeString(task.getName());
+        writer.write(',');
+        writer.write(task.getStatus().name());
+        writer.write(',');
+        writeString(task.getDescription());
+        writer.write(',');
+        if (epicId == null) {
+            writer.write("null");
+        } else {
+            writeInt(epicId);
+        }
+        writer.write(',');
+        if (duration == null) {
+            writer.write("null");
+        } else {
+            writeInt(Math.toIntExact(duration.toMinutes()));
+        }
+        writer.write(',');
+        writeDateTime(startTime);
+    }
+
+    private void writeInt(int value) throws IOException {
+        if (value == Integer.MIN_VALUE) {
+            writer.write(Integer.toString(value));
+            return;
+        }
+        int position = scratch.length;
+        boolean negative = value < 0;
+        int rest = negative ? -value : value;
+        do {
+            scratch[--position] = (char) ('0' + rest % 10);
+            rest /= 10;
+        } while (rest != 0);
+        if (negative) {
+            scratch[--position] = '-';
+        }
+        writer.write(scratch, position, scratch.length - position);
+    }
+
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            writer.write("null");
+            return;
+        }
+        if (!needsQuotes(value)) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> writer.write("\"\"");
+                case '\\' -> writer.write("\\\\");
+                case '\n' -> writer.write("\\n");
+                case '\r' -> writer.write("\\r");
+                default -> writer.write(c);
+            }
+        }
+        writer.write('"');
+    }
+
+    private static boolean needsQuotes(String value) {
+        if (!value.isEmpty() && value.charAt(0) == '"') {
+            return true;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Печатает в формате ISO yyyy-MM-ddTHH:mm:ss[.fff[fff[fff]]], секунды выводятся всегда.
+    private void writeDateTime(LocalDateTime dateTime) throws IOException {
+        if (dateTime == null) {
+            writer.write("null");
+            return;
+        }
+        int year = dateTime.getYear();
+        if (year < 0 || year > 9999) {
+            writer.write(dateTime.toString());
+            return;
+        }
+        int nano = dateTime.getNano();
+        int length = 19;
+        putDigits(year, 0, 4);
+        scratch[4] = '-';
+        putDigits(dateTime.getMonthValue(), 5, 2);
+        scratch[7] = '-';
+        putDigits(dateTime.getDayOfMonth(), 8, 2);
+        scratch[10] = 'T';
+        putDigits(dateTime.getHour(), 11, 2);
+        scratch[13] = ':';
+        putDigits(dateTime.getMinute(), 14, 2);
+        scratch[16] = ':';
+        putDigits(dateTime.getSecond(), 17, 2);
+        if (nano != 0) {
+            scratch[length++] = '.';
+            if (nano % 1_000_000 == 0) {
+                putDigits(nano / 1_000_000, length, 3);
+                length += 3;
+            } else if (nano % 1000 == 0) {
+                putDigits(nano / 1000, length, 6);
+                length += 6;
+            } else {
+                putDigits(nano, length, 9);
+                length += 9;
+            }
+        }
+        writer.write(scratch, 0, length);
+    }
+
+    private void putDigits(int value, int from, int count) {
+        for (int i = from + count - 1; i >= from; i--) {
+            scratch[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package logging;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Пишет строки журнала в поток вывода из отдельного потока. Очередь ограничена: если писатель не успевает,
+ * новые строки выбрасываются и считаются, вызывающий поток никогда не ждёт вывода.
+ * Строки об ошибках идут в отдельный поток err. awaitFlushed позволяет дождаться записи принятых строк,
+ * например при завершении JVM.
+ */
+public class AsyncAppender {
+    private static final int BATCH_SIZE = 256;
+
+    private final PrintStream out;
+    private final PrintStream err;
+    private final BlockingQueue<Entry> queue;
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+
+    public AsyncAppender(PrintStream out, int capacity) {
+        this(out, out, capacity);
+    }
+
+    public AsyncAppender(PrintStream out, PrintStream err, int capacity) {
+        this.out = out;
+        this.err = err;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        Thread writer = new Thread(this::write, "log-appender");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public void append(String line) {
+        append(line, false);
+    }
+
+    public void append(String line, boolean error) {
+        if (queue.offer(new Entry(line, error))) {
+            accepted.incrementAndGet();
+        } else {
+            dropped.incrementAndGet();
+        }
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    // Ждёт, пока будут записаны все строки, принятые до вызова. false - не успели за timeoutMillis.
+    public boolean awaitFlushed(long timeoutMillis) throws InterruptedException {
+        long target = accepted.get();
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (this) {
+            while (written.get() < target) {
+                long left = deadline - System.currentTimeMillis();
+                if (left <= 0) {
+                    return false;
+                }
+                wait(left);
+            }
+        }
+        return true;
+    }
+
+    private void write() {
+        List<Entry> batch = new ArrayList<>(BATCH_SIZE);
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch, BATCH_SIZE - 1);
+            StringBuilder text = new StringBuilder();
+            StringBuilder errors = new StringBuilder();
+            for (Entry entry : batch) {
+                (entry.error ? errors : text).append(entry.line).append(System.lineSeparator());
+            }
+            if (!text.isEmpty()) {
+                out.print(text);  // Одна запись на пачку строк, а не на каждую строку.
+                out.flush();
+            }
+            if (!errors.isEmpty()) {
+                err.print(errors);
+                err.flush();
+            }
+            written.addAndGet(batch.size());
+            batch.clear();
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+
+    private record Entry(String line, boolean error) {
+    }
+}
@@ -0,0 +1,9 @@
+package logging;
+
+public enum Level {
+    DEBUG,
+    INFO,
+    WARN,
+    ERROR,
+    OFF  // Отключает вывод полностью.
+}
@@ -0,0 +1,118 @@
+package logging;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/*
+ * Простой журнал с уровнями. Сообщение можно передать через Supplier: тогда строка собирается,
+ * только если уровень включён. Общий уровень задаётся системным свойством kanban.log.level
+ * (по умолчанию и при неизвестном значении INFO), вывод идёт через общий AsyncAppender: WARN и ERROR
+ * в System.err, остальное в System.out. При завершении JVM накопленные строки дописываются.
+ */
+public class Logger {
+    private static final int APPENDER_CAPACITY = 8192;
+    private static final long SHUTDOWN_FLUSH_MILLIS = 2000;
+
+    private static volatile Level level = parseLevel(System.getProperty("kanban.log.level"));
+    private static volatile AsyncAppender appender;
+
+    private final String name;
+
+    private Logger(String name) {
+        this.name = name;
+    }
+
+    public static Logger getLogger(Class<?> type) {
+        return new Logger(type.getSimpleName());
+    }
+
+    static Level parseLevel(String value) {
+        if (value == null) {
+            return Level.INFO;
+        }
+        try {
+            return Level.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown log level " + value + ", using INFO");
+            return Level.INFO;
+        }
+    }
+
+    public static Level getLevel() {
+        return level;
+    }
+
+    public static void setLevel(Level newLevel) {
+        level = newLevel;
+    }
+
+    public static void setAppender(AsyncAppender newAppender) {
+        appender = newAppender;
+    }
+
+    private static AsyncAppender appender() {
+        AsyncAppender current = appender;
+        if (current == null) {
+            synchronized (Logger.class) {
+                current = appender;
+                if (current == null) {  // Поток записи создаётся только при первом выводе.
+                    current = new AsyncAppender(System.out, System.err, APPENDER_CAPACITY);
+                    appender = current;
+                    AsyncAppender flushed = current;
+                    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                        try {
+                            flushed.awaitFlushed(SHUTDOWN_FLUSH_MILLIS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }, "log-flush"));
+                }
+            }
+        }
+        return current;
+    }
+
+    public boolean isEnabled(Level messageLevel) {
+        return messageLevel != Level.OFF && messageLevel.compareTo(level) >= 0;
+    }
+
+    public void debug(Supplier<String> message) {
+        log(Level.DEBUG, message, null);
+    }
+
+    public void info(String message) {
+        log(Level.INFO, () -> message, null);
+    }
+
+    public void info(Supplier<String> message) {
+        log(Level.INFO, message, null);
+    }
+
+    public void warn(String message) {
+        log(Level.WARN, () -> message, null);
+    }
+
+    public void error(String message, Throwable error) {
+        log(Level.ERROR, () -> message, error);
+    }
+
+    public void log(Level messageLevel, Supplier<String> message, Throwable error) {
+        if (!isEnabled(messageLevel)) {
+            return;
+        }
+        StringBuilder line = new StringBuilder()
+                .append(LocalDateTime.now()).append(' ')
+                .append(messageLevel).append(' ')
+                .append(name).append(": ")
+                .append(message.get());
+        if (error != null) {
+            StringWriter stackTrace = new StringWriter();
+            error.printStackTrace(new PrintWriter(stackTrace));
+            line.append(System.lineSeparator()).append(stackTrace.toString().stripTrailing());
+        }
+        appender().append(line.toString(), messageLevel.compareTo(Level.WARN) >= 0);
+    }
+}
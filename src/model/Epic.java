@@ -1,21 +1,36 @@
 package model;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.IntConsumer;
 
 public class Epic extends Task {
-    private final List<Integer> subTasksIds;
+    private final IntLinkedSet subTasksIds;  // В JSON пишется массивом id, см. server.adapter.IntLinkedSetTypeAdapter.
     private LocalDateTime endTime;
+    // Сводка для расчёта статуса и времени эпика без обхода подзадач. Не сериализуется и создаётся
+    // при первом обращении, в том числе у эпиков, пришедших из JSON.
+    private transient SubTasksSummary summary;
 
     public Epic(String name, String description) {
         super(name, description);
-        subTasksIds = new ArrayList<>();
+        subTasksIds = new IntLinkedSet();
     }
 
     public List<Integer> getSubTasksIds() {
-        return new ArrayList<>(subTasksIds);
+        return subTasksIds.toList();
+    }
+
+    public int[] getSubTasksIdsArray() {
+        return subTasksIds.toArray();
+    }
+
+    public void forEachSubTaskId(IntConsumer action) {  // Обход id подзадач в порядке добавления без копирования.
+        subTasksIds.forEach(action);
+    }
+
+    public boolean containsSubTask(int subTaskId) {
+        return subTasksIds.contains(subTaskId);
     }
 
     public Integer addTask(Integer subTaskId) {
@@ -26,14 +41,50 @@ public class Epic extends Task {
         return subTaskId;
     }
 
+    public Integer addTask(SubTask subTask) {
+        Integer added = addTask(subTask.getId());
+        if (added != null) {
+            summary().add(subTask);
+        }
+        return added;
+    }
+
+    public void updateTask(SubTask subTask) {
+        summary().update(subTask);
+    }
+
+    public int getSubTasksCount(Status status) {
+        return summary().getCount(status);
+    }
+
+    public int getSubTasksCount() {
+        return subTasksIds.size();
+    }
+
+    public LocalDateTime getSubTasksStartTime() {  // Самое раннее начало подзадач или null, если их нет.
+        return summary().getStartTime();
+    }
+
+    public LocalDateTime getSubTasksEndTime() {
+        return summary().getEndTime();
+    }
+
     public void removeTask(Integer subTaskId) {
+        summary().remove(subTaskId);
         subTasksIds.remove(subTaskId);
     }
 
-    public void removeAllTasks() {
+    public void removeAllTasks() {  // Сводка узнаёт об очистке от самого множества id.
         subTasksIds.clear();
     }
 
+    private SubTasksSummary summary() {
+        if (summary == null) {
+            summary = new SubTasksSummary(subTasksIds);
+        }
+        return summary;
+    }
+
     public boolean isEmpty() {
         return subTasksIds.isEmpty();
     }
@@ -58,6 +109,6 @@ public class Epic extends Task {
             return false;
         }
         Epic epic = (Epic) o;
-        return Objects.equals(subTasksIds, epic.getSubTasksIds());
+        return Objects.equals(subTasksIds, epic.subTasksIds);
     }
 }
@@ -0,0 +1,233 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/*
+ * Множество int без упаковки, с сохранением порядка добавления. Открытая адресация с линейным пробированием,
+ * ячейки связаны в двусвязный список в порядке добавления. add, remove и contains - O(1) в среднем,
+ * обход через forEach не создаёт объектов.
+ * Не потокобезопасно: обход во время изменения из другого потока может пойти по оборванным ссылкам
+ * и не закончиться, поэтому читатели держат ту же блокировку, что и писатели.
+ * Ячейка элемента не меняется до перестройки таблицы, поэтому к ней можно привязать данные в параллельных
+ * массивах (см. SubTasksSummary): SlotListener сообщает, куда переехали ячейки.
+ */
+public final class IntLinkedSet {
+    private static final byte EMPTY = 0;
+    private static final byte FULL = 1;
+    private static final byte REMOVED = 2;
+    private static final int NONE = -1;
+    static final int NONE_SLOT = -1;
+    private static final int MIN_CAPACITY = 8;
+
+    interface SlotListener {
+        // moved[старая ячейка] - новая ячейка элемента или NONE_SLOT, capacity - новый размер таблицы.
+        void rehashed(int[] moved, int capacity);
+    }
+
+    private int[] keys;
+    private byte[] states;
+    private int[] next;
+    private int[] prev;
+    private int head = NONE;
+    private int tail = NONE;
+    private int size;
+    private int removed;
+    private SlotListener slotListener;
+
+    public IntLinkedSet() {
+        allocate(MIN_CAPACITY);
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        states = new byte[capacity];
+        next = new int[capacity];
+        prev = new int[capacity];
+        head = NONE;
+        tail = NONE;
+        size = 0;
+        removed = 0;
+    }
+
+    void setSlotListener(SlotListener listener) {
+        slotListener = listener;
+    }
+
+    int capacity() {
+        return keys.length;
+    }
+
+    int slotOf(int value) {
+        return find(value);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int value) {
+        return find(value) != NONE;
+    }
+
+    public boolean add(int value) {
+        if (find(value) != NONE) {
+            return false;
+        }
+        if ((size + removed + 1) * 2 > keys.length) {  // Заполненность вместе с удалёнными не больше половины.
+            rehash(size + 1);
+        }
+        int mask = keys.length - 1;
+        int slot = mix(value) & mask;
+        while (states[slot] == FULL) {
+            slot = (slot + 1) & mask;
+        }
+        if (states[slot] == REMOVED) {
+            removed--;
+        }
+        keys[slot] = value;
+        states[slot] = FULL;
+        prev[slot] = tail;
+        next[slot] = NONE;
+        if (tail == NONE) {
+            head = slot;
+        } else {
+            next[tail] = slot;
+        }
+        tail = slot;
+        size++;
+        return true;
+    }
+
+    public boolean remove(int value) {
+        int slot = find(value);
+        if (slot == NONE) {
+            return false;
+        }
+        if (prev[slot] == NONE) {
+            head = next[slot];
+        } else {
+            next[prev[slot]] = next[slot];
+        }
+        if (next[slot] == NONE) {
+            tail = prev[slot];
+        } else {
+            prev[next[slot]] = prev[slot];
+        }
+        states[slot] = REMOVED;
+        size--;
+        removed++;
+        return true;
+    }
+
+    public void clear() {
+        int oldCapacity = keys.length;
+        allocate(MIN_CAPACITY);
+        if (slotListener != null) {
+            int[] moved = new int[oldCapacity];
+            Arrays.fill(moved, NONE_SLOT);
+            slotListener.rehashed(moved, keys.length);
+        }
+    }
+
+    public void forEach(IntConsumer action) {
+        for (int slot = head; slot != NONE; slot = next[slot]) {
+            action.accept(keys[slot]);
+        }
+    }
+
+    public int[] toArray() {
+        int[] values = new int[size];
+        int index = 0;
+        for (int slot = head; slot != NONE; slot = next[slot]) {
+            values[index++] = keys[slot];
+        }
+        return values;
+    }
+
+    public List<Integer> toList() {
+        List<Integer> values = new ArrayList<>(size);
+        forEach(values::add);
+        return values;
+    }
+
+    private int find(int value) {
+        int mask = keys.length - 1;
+        int slot = mix(value) & mask;
+        while (states[slot] != EMPTY) {
+            if (states[slot] == FULL && keys[slot] == value) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return NONE;
+    }
+
+    private void rehash(int expected) {
+        int[] slots = new int[size];
+        int index = 0;
+        for (int slot = head; slot != NONE; slot = next[slot]) {
+            slots[index++] = slot;
+        }
+        int[] values = keys;
+        int capacity = MIN_CAPACITY;
+        while (capacity < expected * 2) {
+            capacity <<= 1;
+        }
+        int[] moved = slotListener == null ? null : new int[values.length];
+        if (moved != null) {
+            Arrays.fill(moved, NONE_SLOT);
+        }
+        allocate(capacity);
+        for (int slot : slots) {
+            add(values[slot]);
+            if (moved != null) {
+                moved[slot] = tail;
+            }
+        }
+        if (moved != null) {
+            slotListener.rehashed(moved, capacity);
+        }
+    }
+
+    private static int mix(int value) {  // Последовательные id не должны ложиться в соседние ячейки.
+        int hash = value * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    @Override
+    public boolean equals(Object o) {  // Как у списка: те же элементы в том же порядке.
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        IntLinkedSet that = (IntLinkedSet) o;
+        if (size != that.size) {
+            return false;
+        }
+        for (int slot = head, other = that.head; slot != NONE; slot = next[slot], other = that.next[other]) {
+            if (keys[slot] != that.keys[other]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int slot = head; slot != NONE; slot = next[slot]) {
+            hash = 31 * hash + keys[slot];
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return toList().toString();
+    }
+}
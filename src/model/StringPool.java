@@ -0,0 +1,107 @@
+package model;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Пул одинаковых строк для имён и описаний задач: задачи из шаблонов получают один экземпляр строки
+ * вместо копии на каждую. Ссылки слабые, поэтому строки, которые больше никому не нужны, уходят из пула
+ * вместе с задачами. Строки длиннее maxLength не объединяются: длинные тексты редко повторяются.
+ * Общий пул настраивается системными свойствами kanban.strings.intern (true/false, по умолчанию true)
+ * и kanban.strings.intern.max-length (по умолчанию 1024).
+ */
+public final class StringPool {
+    private static final int SHARDS = 16;
+    private static final int STRING_OVERHEAD = 40;  // Заголовок String и его массива, сжатые ссылки.
+
+    private static volatile StringPool defaultPool = new StringPool(
+            Boolean.parseBoolean(System.getProperty("kanban.strings.intern", "true")),
+            Integer.getInteger("kanban.strings.intern.max-length", 1024));
+
+    private final boolean enabled;
+    private final int maxLength;
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final Map<String, WeakReference<String>>[] shards = new Map[SHARDS];
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder bytesSaved = new LongAdder();
+
+    public StringPool(boolean enabled, int maxLength) {
+        this.enabled = enabled;
+        this.maxLength = maxLength;
+        for (int i = 0; i < SHARDS; i++) {
+            shards[i] = new WeakHashMap<>();
+        }
+    }
+
+    public static StringPool getDefault() {
+        return defaultPool;
+    }
+
+    public static void setDefault(StringPool pool) {
+        defaultPool = pool;
+    }
+
+    public static String intern(String value) {  // Через общий пул.
+        return defaultPool.get(value);
+    }
+
+    public String get(String value) {
+        if (!enabled || value == null || value.length() > maxLength) {
+            return value;
+        }
+        lookups.increment();
+        Map<String, WeakReference<String>> shard = shards[(value.hashCode() & 0x7fffffff) % SHARDS];
+        synchronized (shard) {
+            WeakReference<String> reference = shard.get(value);
+            String pooled = reference == null ? null : reference.get();
+            if (pooled != null) {
+                hits.increment();
+                if (pooled != value) {
+                    bytesSaved.add(sizeOf(value));
+                }
+                return pooled;
+            }
+            shard.put(value, new WeakReference<>(value));
+            return value;
+        }
+    }
+
+    public long getLookupCount() {
+        return lookups.sum();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public double getHitRatio() {
+        long lookupCount = lookups.sum();
+        return lookupCount == 0 ? 0 : (double) hits.sum() / lookupCount;
+    }
+
+    public long getBytesSaved() {  // Оценка памяти под копии, которые заменены строкой из пула.
+        return bytesSaved.sum();
+    }
+
+    public int size() {
+        int size = 0;
+        for (Map<String, WeakReference<String>> shard : shards) {
+            synchronized (shard) {
+                size += shard.size();
+            }
+        }
+        return size;
+    }
+
+    private static long sizeOf(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 0xFF) {  // Строка не помещается в Latin-1 и хранится по два байта на символ.
+                return STRING_OVERHEAD + 2L * value.length();
+            }
+        }
+        return STRING_OVERHEAD + value.length();
+    }
+}
@@ -0,0 +1,220 @@
+package model;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/*
+ * Сводка по подзадачам эпика: учтённые статус и время каждой подзадачи, счётчики статусов,
+ * куча начал (минимум сверху) и куча окончаний (максимум сверху). Данные подзадачи лежат в массивах
+ * по номеру её ячейки в IntLinkedSet эпика, поэтому на подзадачу не создаётся ни одного объекта.
+ * Изменение подзадачи стоит O(log k), статус, начало и окончание эпика - O(1).
+ */
+class SubTasksSummary implements IntLinkedSet.SlotListener {
+    private static final byte UNCOUNTED = -1;
+    private static final Status[] STATUSES = Status.values();
+
+    private final IntLinkedSet ids;
+    private final int[] statusCounts = new int[STATUSES.length];
+    private byte[] statuses;  // Ordinal статуса подзадачи в ячейке или UNCOUNTED.
+    private final TimeHeap starts;
+    private final TimeHeap ends;
+
+    SubTasksSummary(IntLinkedSet ids) {
+        this.ids = ids;
+        int capacity = ids.capacity();
+        statuses = new byte[capacity];
+        Arrays.fill(statuses, UNCOUNTED);
+        starts = new TimeHeap(capacity, false);
+        ends = new TimeHeap(capacity, true);
+        ids.setSlotListener(this);
+    }
+
+    void add(SubTask subTask) {  // Подзадача уже должна быть в множестве id.
+        int slot = ids.slotOf(subTask.getId());
+        if (slot != IntLinkedSet.NONE_SLOT) {
+            uncount(slot);
+            count(slot, subTask);
+        }
+    }
+
+    void update(SubTask subTask) {  // Подзадачи, которых нет в эпике, не учитываются.
+        int slot = ids.slotOf(subTask.getId());
+        if (slot != IntLinkedSet.NONE_SLOT && statuses[slot] != UNCOUNTED) {
+            uncount(slot);
+            count(slot, subTask);
+        }
+    }
+
+    void remove(int subTaskId) {  // Вызывается до удаления id из множества.
+        int slot = ids.slotOf(subTaskId);
+        if (slot != IntLinkedSet.NONE_SLOT) {
+            uncount(slot);
+        }
+    }
+
+    int getCount(Status status) {
+        return statusCounts[status.ordinal()];
+    }
+
+    LocalDateTime getStartTime() {
+        return starts.top();
+    }
+
+    LocalDateTime getEndTime() {
+        return ends.top();
+    }
+
+    @Override
+    public void rehashed(int[] moved, int capacity) {
+        byte[] movedStatuses = new byte[capacity];
+        Arrays.fill(movedStatuses, UNCOUNTED);
+        for (int slot = 0; slot < moved.length; slot++) {
+            if (statuses[slot] == UNCOUNTED) {
+                continue;
+            }
+            if (moved[slot] == IntLinkedSet.NONE_SLOT) {
+                statusCounts[statuses[slot]]--;
+            } else {
+                movedStatuses[moved[slot]] = statuses[slot];
+            }
+        }
+        statuses = movedStatuses;
+        starts.rehashed(moved, capacity);
+        ends.rehashed(moved, capacity);
+    }
+
+    private void count(int slot, SubTask subTask) {
+        Status status = subTask.getStatus() == null ? Status.NEW : subTask.getStatus();  // Из JSON без статуса.
+        statuses[slot] = (byte) status.ordinal();
+        statusCounts[status.ordinal()]++;
+        if (subTask.getStartTime() != null && subTask.getDuration() != null) {
+            starts.put(slot, subTask.getStartTime());
+            ends.put(slot, subTask.getEndTime());
+        }
+    }
+
+    private void uncount(int slot) {
+        if (statuses[slot] == UNCOUNTED) {
+            return;
+        }
+        statusCounts[statuses[slot]]--;
+        statuses[slot] = UNCOUNTED;
+        starts.remove(slot);
+        ends.remove(slot);
+    }
+
+    // Индексированная двоичная куча ячеек по времени: position[ячейка] - место в куче или -1.
+    private static final class TimeHeap {
+        private final boolean max;
+        private int[] heap;
+        private int[] position;
+        private LocalDateTime[] times;
+        private int size;
+
+        TimeHeap(int capacity, boolean max) {
+            this.max = max;
+            allocate(capacity);
+        }
+
+        private void allocate(int capacity) {
+            heap = new int[capacity];
+            position = new int[capacity];
+            Arrays.fill(position, -1);
+            times = new LocalDateTime[capacity];
+        }
+
+        LocalDateTime top() {
+            return size == 0 ? null : times[heap[0]];
+        }
+
+        void put(int slot, LocalDateTime time) {
+            times[slot] = time;
+            heap[size] = slot;
+            position[slot] = size;
+            siftUp(size++);
+        }
+
+        void remove(int slot) {
+            int index = position[slot];
+            if (index < 0) {
+                return;
+            }
+            position[slot] = -1;
+            times[slot] = null;
+            int last = heap[--size];
+            if (index == size) {
+                return;
+            }
+            heap[index] = last;
+            position[last] = index;
+            siftDown(index);
+            siftUp(position[last]);
+        }
+
+        void rehashed(int[] moved, int capacity) {
+            int[] oldHeap = heap;
+            LocalDateTime[] oldTimes = times;
+            int oldSize = size;
+            allocate(capacity);
+            size = 0;
+            boolean dropped = false;
+            for (int index = 0; index < oldSize; index++) {  // Порядок кучи сохраняется, если никто не выпал.
+                int slot = moved[oldHeap[index]];
+                if (slot == IntLinkedSet.NONE_SLOT) {
+                    dropped = true;
+                    continue;
+                }
+                times[slot] = oldTimes[oldHeap[index]];
+                heap[size] = slot;
+                position[slot] = size++;
+            }
+            if (dropped) {
+                for (int index = size / 2 - 1; index >= 0; index--) {
+                    siftDown(index);
+                }
+            }
+        }
+
+        private boolean before(int first, int second) {
+            int compare = times[first].compareTo(times[second]);
+            return max ? compare > 0 : compare < 0;
+        }
+
+        private void siftUp(int index) {
+            int slot = heap[index];
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (!before(slot, heap[parent])) {
+                    break;
+                }
+                move(heap[parent], index);
+                index = parent;
+            }
+            move(slot, index);
+        }
+
+        private void siftDown(int index) {
+            int slot = heap[index];
+            while (true) {
+                int child = 2 * index + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && before(heap[child + 1], heap[child])) {
+                    child++;
+                }
+                if (!before(heap[child], slot)) {
+                    break;
+                }
+                move(heap[child], index);
+                index = child;
+            }
+            move(slot, index);
+        }
+
+        private void move(int slot, int index) {
+            heap[index] = slot;
+            position[slot] = index;
+        }
+    }
+}
@@ -11,6 +11,7 @@ public class Task {
     private Status status;
     private LocalDateTime startTime;
     private Duration duration;
+    private transient LocalDateTime cachedEndTime;  // Считается при первом запросе, сбрасывается при смене времени.
 
     public Task(String name, String description, LocalDateTime startTime, Duration duration) {
         this.name = name;
@@ -36,6 +37,7 @@ public class Task {
 
     public void setStartTime(LocalDateTime startTime) {
         this.startTime = startTime;
+        this.cachedEndTime = null;
     }
 
     public Duration getDuration() {
@@ -44,10 +46,16 @@ public class Task {
 
     public void setDuration(Duration duration) {
         this.duration = duration;
+        this.cachedEndTime = null;
     }
 
     public LocalDateTime getEndTime() {
-        return this.startTime.plus(duration);
+        LocalDateTime endTime = cachedEndTime;
+        if (endTime == null) {
+            endTime = startTime.plus(duration);
+            cachedEndTime = endTime;
+        }
+        return endTime;
     }
 
 
@@ -3,7 +3,11 @@ package server;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.sun.net.httpserver.HttpServer;
+import logging.Logger;
+import model.IntLinkedSet;
 import server.adapter.DurationTypeAdapter;
+import server.adapter.IntLinkedSetTypeAdapter;
+import server.adapter.InterningTaskTypeAdapterFactory;
 import server.adapter.LocalDateTimeTypeAdapter;
 import server.handler.*;
 import service.FileBackedTaskManager;
@@ -14,32 +18,54 @@ import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class HttpTaskServer {
+    private static final Logger log = Logger.getLogger(HttpTaskServer.class);
     private static final int PORT = 8080;
+    private static final int POOL_SIZE = Runtime.getRuntime().availableProcessors() * 2;
+    private static final int POOL_QUEUE_CAPACITY = POOL_SIZE * 64;
     private final HttpServer server;
+    private final ExecutorService executor;
 
     public HttpTaskServer(TaskManager taskManager) {
+        this(taskManager, ServerExecutorMode.DISPATCHER, 0);
+    }
+
+    // Многопоточные режимы требуют потокобезопасного менеджера, например ConcurrentTaskManager.
+    // backlog - длина очереди входящих соединений, 0 - значение по умолчанию системы.
+    public HttpTaskServer(TaskManager taskManager, ServerExecutorMode executorMode, int backlog) {
         try {
-            server = HttpServer.create(new InetSocketAddress(PORT), 0);
+            server = HttpServer.create(new InetSocketAddress(PORT), backlog);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
-        server.createContext("/tasks", new TaskHttpHandler(taskManager));
-        server.createContext("/subtasks", new SubTaskHttpHandler(taskManager));
-        server.createContext("/epics", new EpicHttpHandler(taskManager));
-        server.createContext("/history", new HistoryHttpHandler(taskManager));
-        server.createContext("/prioritized", new PrioritizedHttpHandler(taskManager));
+        executor = createExecutor(executorMode);
+        server.setExecutor(executor);
+        SessionFilter sessionFilter = new SessionFilter();
+        server.createContext("/tasks", new TaskHttpHandler(taskManager)).getFilters().add(sessionFilter);
+        server.createContext("/subtasks", new SubTaskHttpHandler(taskManager)).getFilters().add(sessionFilter);
+        server.createContext("/epics", new EpicHttpHandler(taskManager)).getFilters().add(sessionFilter);
+        server.createContext("/history", new HistoryHttpHandler(taskManager)).getFilters().add(sessionFilter);
+        server.createContext("/prioritized", new PrioritizedHttpHandler(taskManager)).getFilters().add(sessionFilter);
     }
 
     public void startServer() {
         server.start();
-        System.out.println("Server started at port " + PORT);
+        log.info("Server started at port " + PORT);
     }
 
     public void stopServer() {
         server.stop(0);
-        System.out.println("Server stopped at port: " + PORT);
+        if (executor != null) {
+            executor.shutdown();
+        }
+        log.info("Server stopped at port: " + PORT);
     }
 
 
@@ -49,10 +75,30 @@ public class HttpTaskServer {
         httpTaskServer.startServer();
     }
 
+    private static ExecutorService createExecutor(ServerExecutorMode executorMode) {
+        return switch (executorMode) {
+            case DISPATCHER -> null;
+            case VIRTUAL_THREADS -> Executors.newThreadPerTaskExecutor(Thread.ofVirtual()
+                    .name("http-task-virtual-", 0)
+                    .factory());
+            case PLATFORM_POOL -> {
+                AtomicInteger threadNumber = new AtomicInteger();
+                yield new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE, 0, TimeUnit.MILLISECONDS,
+                        new ArrayBlockingQueue<>(POOL_QUEUE_CAPACITY), runnable -> {
+                            Thread thread = new Thread(runnable, "http-task-worker-" + threadNumber.getAndIncrement());
+                            thread.setDaemon(true);
+                            return thread;
+                        }, new ThreadPoolExecutor.CallerRunsPolicy());
+            }
+        };
+    }
+
     public static Gson getGson() {
         GsonBuilder gsonBuilder = new GsonBuilder();
         gsonBuilder.registerTypeAdapter(LocalDateTime.class, new LocalDateTimeTypeAdapter())
                 .registerTypeAdapter(Duration.class, new DurationTypeAdapter())
+                .registerTypeAdapter(IntLinkedSet.class, new IntLinkedSetTypeAdapter())
+                .registerTypeAdapterFactory(new InterningTaskTypeAdapterFactory())
                 .serializeNulls();
         return gsonBuilder.create();
     }
@@ -0,0 +1,7 @@
+package server;
+
+public enum ServerExecutorMode {
+    DISPATCHER,       // Все запросы обрабатывает один поток HttpServer, годится для непотокобезопасных менеджеров.
+    VIRTUAL_THREADS,  // Каждый запрос в своём виртуальном потоке.
+    PLATFORM_POOL     // Ограниченный пул обычных потоков; при переполнении очереди запрос выполняет диспетчер.
+}
@@ -0,0 +1,27 @@
+package server;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+import service.SessionHistoryManager;
+
+import java.io.IOException;
+
+// Привязывает ключ клиента из заголовка к потоку запроса, чтобы SessionHistoryManager вёл отдельную историю.
+public class SessionFilter extends Filter {
+    public static final String SESSION_HEADER = "X-Session-Id";
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        SessionHistoryManager.setCurrentSession(exchange.getRequestHeaders().getFirst(SESSION_HEADER));
+        try {
+            chain.doFilter(exchange);
+        } finally {
+            SessionHistoryManager.clearCurrentSession();
+        }
+    }
+
+    @Override
+    public String description() {
+        return "Binds the " + SESSION_HEADER + " header to the history session";
+    }
+}
@@ -0,0 +1,40 @@
+package server.adapter;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import model.IntLinkedSet;
+
+import java.io.IOException;
+
+public class IntLinkedSetTypeAdapter extends TypeAdapter<IntLinkedSet> {
+    @Override
+    public void write(JsonWriter jsonWriter, IntLinkedSet set) throws IOException {
+        if (set == null) {
+            jsonWriter.nullValue();
+            return;
+        }
+        jsonWriter.beginArray();
+        int[] values = set.toArray();
+        for (int value : values) {
+            jsonWriter.value(value);
+        }
+        jsonWriter.endArray();
+    }
+
+    @Override
+    public IntLinkedSet read(JsonReader jsonReader) throws IOException {
+        IntLinkedSet set = new IntLinkedSet();
+        if (jsonReader.peek() == JsonToken.NULL) {
+            jsonReader.nextNull();
+            return set;
+        }
+        jsonReader.beginArray();
+        while (jsonReader.hasNext()) {
+            set.add(jsonReader.nextInt());
+        }
+        jsonReader.endArray();
+        return set;
+    }
+}
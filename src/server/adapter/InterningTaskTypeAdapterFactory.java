@@ -0,0 +1,40 @@
+package server.adapter;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import model.StringPool;
+import model.Task;
+
+import java.io.IOException;
+
+// Имена и описания задач из JSON проходят через общий пул, чтобы копии из шаблонов не дублировались.
+// Остальные строки запросов не объединяются.
+public class InterningTaskTypeAdapterFactory implements TypeAdapterFactory {
+    @Override
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        if (!Task.class.isAssignableFrom(type.getRawType())) {
+            return null;
+        }
+        TypeAdapter<T> delegate = gson.getDelegateAdapter(this, type);
+        return new TypeAdapter<>() {
+            @Override
+            public void write(JsonWriter jsonWriter, T value) throws IOException {
+                delegate.write(jsonWriter, value);
+            }
+
+            @Override
+            public T read(JsonReader jsonReader) throws IOException {
+                T value = delegate.read(jsonReader);
+                if (value instanceof Task task) {
+                    task.setName(StringPool.intern(task.getName()));
+                    task.setDescription(StringPool.intern(task.getDescription()));
+                }
+                return value;
+            }
+        };
+    }
+}
@@ -3,6 +3,7 @@ package server.handler;
 import com.google.gson.Gson;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
+import logging.Logger;
 import server.HttpTaskServer;
 import service.TaskManager;
 
@@ -12,6 +13,7 @@ import java.nio.charset.StandardCharsets;
 
 public abstract class BaseHttpHandler implements HttpHandler {
     protected static final Charset DEFAULT_CHARSET = StandardCharsets.UTF_8;
+    protected final Logger log = Logger.getLogger(getClass());
     protected TaskManager taskManager;
     protected Gson gson;
 
@@ -29,6 +31,15 @@ public abstract class BaseHttpHandler implements HttpHandler {
         }
     }
 
+    protected void sendBadRequest(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            byte[] bytesResponse = "{\"code\":400,\"message\":\"Bad Request\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json;charset=utf-8");
+            exchange.sendResponseHeaders(400, bytesResponse.length);
+            exchange.getResponseBody().write(bytesResponse);
+        }
+    }
+
     protected void sendNotFound(HttpExchange exchange) throws IOException {
         try (exchange) {
             byte[] bytesResponse = "{\"code\":404,\"message\":\"Not Found\"}".getBytes(StandardCharsets.UTF_8);
@@ -41,7 +41,14 @@ public class EpicHttpHandler extends BaseHttpHandler {
                         int id = Integer.parseInt(pathParts[2]);
                         Epic epic = taskManager.getEpic(id);
                         if (epic != null) {
-                            sendText(exchange, gson.toJson(epic.getSubTasksIds()), 200);
+                            StringBuilder subTasksIds = new StringBuilder("[");  // Без промежуточного списка id.
+                            epic.forEachSubTaskId(subTaskId -> {
+                                if (subTasksIds.length() > 1) {
+                                    subTasksIds.append(',');
+                                }
+                                subTasksIds.append(subTaskId);
+                            });
+                            sendText(exchange, subTasksIds.append(']').toString(), 200);
                         } else {
                             sendNotFound(exchange);
                         }
@@ -77,7 +84,7 @@ public class EpicHttpHandler extends BaseHttpHandler {
         } catch (ManagerSaveException e) {
             sendText(exchange, "{\"code\":500,\"message\":\"Error saving task\"}", 500);
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("Error handling " + exchange.getRequestMethod() + " " + exchange.getRequestURI(), e);
             sendInternalError(exchange);
         }
 
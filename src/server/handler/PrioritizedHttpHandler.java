@@ -4,6 +4,12 @@ import com.sun.net.httpserver.HttpExchange;
 import service.TaskManager;
 
 import java.io.IOException;
+import java.net.URLDecoder;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
 
 public class PrioritizedHttpHandler extends BaseHttpHandler {
 
@@ -19,14 +25,68 @@ public class PrioritizedHttpHandler extends BaseHttpHandler {
         try (exchange) {
             if ("GET".equalsIgnoreCase(method)) {
                 if (pathParts.length == 2) {
-                    sendText(exchange, gson.toJson(taskManager.getPrioritizedTasks()), 200);
+                    String query = exchange.getRequestURI().getRawQuery();
+                    if (query == null) {
+                        sendText(exchange, gson.toJson(taskManager.getPrioritizedTasks()), 200);
+                        return;
+                    }
+                    // /prioritized?from=2024-06-17T10:00&to=2024-06-17T18:00&limit=50, все параметры необязательны.
+                    try {
+                        Map<String, String> parameters = parseQuery(query);
+                        LocalDateTime from = parseTime(parameters.get("from"));
+                        LocalDateTime to = parseTime(parameters.get("to"));
+                        String limit = parameters.get("limit");
+                        sendText(exchange, gson.toJson(taskManager.getPrioritizedTasks(from, to,
+                                limit == null ? Integer.MAX_VALUE : Integer.parseInt(limit))), 200);
+                    } catch (DateTimeException | IllegalArgumentException e) {
+                        sendBadRequest(exchange);
+                    }
+                } else if (pathParts.length == 3 && "free".equals(pathParts[2])) {
+                    // /prioritized/free?after=2024-06-17T10:00&duration=30, after по умолчанию - текущее время.
+                    try {
+                        String rawQuery = exchange.getRequestURI().getRawQuery();
+                        Map<String, String> parameters = rawQuery == null ? Map.of() : parseQuery(rawQuery);
+                        LocalDateTime after = parseTime(parameters.get("after"));
+                        String duration = parameters.get("duration");
+                        if (duration == null) {
+                            sendBadRequest(exchange);
+                            return;
+                        }
+                        LocalDateTime slot = taskManager.findFreeSlot(after == null ? LocalDateTime.now() : after,
+                                Duration.ofMinutes(Long.parseLong(duration)));
+                        if (slot == null) {
+                            sendNotFound(exchange);
+                        } else {
+                            sendText(exchange, gson.toJson(slot), 200);
+                        }
+                    } catch (DateTimeException | ArithmeticException | IllegalArgumentException e) {
+                        sendBadRequest(exchange);  // В том числе переполнение длительности или времени окончания.
+                    }
+                } else {
+                    sendNotFound(exchange);
                 }
             } else {
                 sendMethodNotAllowed(exchange);
             }
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("Error handling " + exchange.getRequestMethod() + " " + exchange.getRequestURI(), e);
             sendInternalError(exchange);
         }
     }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> parameters = new HashMap<>();
+        for (String parameter : query.split("&")) {
+            int separator = parameter.indexOf('=');
+            if (separator > 0) {
+                parameters.put(URLDecoder.decode(parameter.substring(0, separator), DEFAULT_CHARSET),
+                        URLDecoder.decode(parameter.substring(separator + 1), DEFAULT_CHARSET));
+            }
+        }
+        return parameters;
+    }
+
+    private static LocalDateTime parseTime(String value) {
+        return value == null || value.isEmpty() ? null : LocalDateTime.parse(value);
+    }
 }
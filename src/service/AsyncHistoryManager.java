@@ -0,0 +1,205 @@
+package service;
+
+import model.Task;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * История, которая записывается в фоне. Вызывающий поток только кладёт событие в кольцевой буфер,
+ * а единственный поток-потребитель применяет события к обёрнутой истории по порядку.
+ * getHistory тоже проходит через буфер, поэтому видит все события, поставленные до вызова.
+ * Обёрнутая история трогается только потоком-потребителем и может быть непотокобезопасной.
+ * close ставит в буфер событие остановки и дожидается, пока потребитель применит всё, что было до него.
+ * Если потребитель упал с Error, ждущие чтения завершаются с ошибкой, а следующие вызовы сразу бросают
+ * IllegalStateException с причиной.
+ */
+public class AsyncHistoryManager implements ThreadSafeHistoryManager, AutoCloseable {
+
+    public enum OverflowPolicy {
+        DROP_OLDEST,  // При заполненном буфере выбрасывается самый старый просмотр; удаления и чтения не теряются.
+        BACKPRESSURE  // При заполненном буфере вызывающий поток ждёт, пока потребитель освободит место.
+    }
+
+    private static final Event CLOSE = new Event(null, 0, null);
+
+    private final HistoryManager historyManager;
+    private final OverflowPolicy overflowPolicy;
+    private final Thread consumer;
+    private final Event[] ring;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final AtomicLong dropped = new AtomicLong();
+    private int head;
+    private int count;
+    private boolean closed;
+    private Throwable failure;
+
+    public AsyncHistoryManager(HistoryManager historyManager, int capacity, OverflowPolicy overflowPolicy) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Ring buffer capacity should be positive");
+        }
+        this.historyManager = historyManager;
+        this.overflowPolicy = overflowPolicy;
+        this.ring = new Event[capacity];
+        this.consumer = new Thread(this::consume, "task-history");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    @Override
+    public void add(Task task) {
+        if (task != null) {
+            enqueue(new Event(task, 0, null), overflowPolicy == OverflowPolicy.DROP_OLDEST);
+        }
+    }
+
+    @Override
+    public void remove(int id) {
+        enqueue(new Event(null, id, null), false);
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        CompletableFuture<List<Task>> result = new CompletableFuture<>();
+        enqueue(new Event(null, 0, result), false);
+        return result.join();
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            enqueue(CLOSE, false);
+            closed = true;
+        } catch (IllegalStateException e) {  // Потребитель упал, пока ждали места: применять уже некому.
+            return;
+        } finally {
+            lock.unlock();
+        }
+        if (Thread.currentThread() != consumer) {
+            try {
+                consumer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void enqueue(Event event, boolean mayDrop) {
+        lock.lock();
+        try {
+            while (true) {
+                if (closed) {
+                    throw new IllegalStateException("History is closed", failure);
+                }
+                if (count < ring.length) {
+                    break;
+                }
+                if (mayDrop && ring[head].isView()) {  // Старейшее событие - просмотр, его можно потерять.
+                    ring[head] = null;
+                    head = (head + 1) % ring.length;
+                    count--;
+                    dropped.incrementAndGet();
+                    break;
+                }
+                notFull.awaitUninterruptibly();
+            }
+            ring[(head + count) % ring.length] = event;
+            count++;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Event take() {
+        lock.lock();
+        try {
+            while (count == 0) {
+                notEmpty.awaitUninterruptibly();
+            }
+            Event event = ring[head];
+            ring[head] = null;
+            head = (head + 1) % ring.length;
+            count--;
+            notFull.signal();
+            return event;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void consume() {
+        Event event = null;
+        try {
+            while ((event = take()) != CLOSE) {
+                try {
+                    if (event.result != null) {
+                        event.result.complete(historyManager.getHistory());
+                    } else if (event.task != null) {
+                        historyManager.add(event.task);
+                    } else {
+                        historyManager.remove(event.id);
+                    }
+                } catch (RuntimeException e) {
+                    if (event.result != null) {
+                        event.result.completeExceptionally(e);
+                    }
+                }
+            }
+        } catch (Throwable e) {
+            fail(event, e);
+        }
+    }
+
+    // Потребитель больше не работает: никто не должен ждать ответа от него.
+    private void fail(Event current, Throwable cause) {
+        lock.lock();
+        try {
+            closed = true;
+            failure = cause;
+            if (current != null && current.result != null) {
+                current.result.completeExceptionally(cause);
+            }
+            for (; count > 0; count--) {
+                Event event = ring[head];
+                ring[head] = null;
+                head = (head + 1) % ring.length;
+                if (event.result != null) {
+                    event.result.completeExceptionally(new IllegalStateException("History consumer failed", cause));
+                }
+            }
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static final class Event {
+        final Task task;  // Просмотр задачи.
+        final int id;     // Удаление из истории, если task и result пустые.
+        final CompletableFuture<List<Task>> result;  // Чтение истории.
+
+        Event(Task task, int id, CompletableFuture<List<Task>> result) {
+            this.task = task;
+            this.id = id;
+            this.result = result;
+        }
+
+        boolean isView() {
+            return task != null;
+        }
+    }
+}
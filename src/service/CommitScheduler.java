@@ -0,0 +1,147 @@
+package service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Пачки изменений для DurabilityPolicy. Под lock флашер лишь забирает изменения пачки, а запись на диск идёт
+ * уже без lock, чтобы изменения доски не ждали диска. Записи пачек выполняются по одной в потоке
+ * task-commit, поэтому на диск они попадают в порядке пачек.
+ */
+class CommitScheduler {
+
+    interface Flusher {
+        Write prepare();  // Под lock.
+    }
+
+    interface Write {
+        void write(boolean fsync);  // Без lock.
+    }
+
+    private static final CompletableFuture<Void> COMMITTED = CompletableFuture.completedFuture(null);
+
+    private final DurabilityPolicy policy;
+    private final Object lock;
+    private final Flusher flusher;
+    private final long createdNanos = System.nanoTime();
+    private ScheduledExecutorService executor;
+
+    private CompletableFuture<Void> pending;
+    private CompletableFuture<Void> writing;  // Пачка, забранная из pending, но ещё не записанная.
+    private int pendingCount;
+    private long pendingSubmitNanos;
+
+    private long mutations;
+    private long flushes;
+    private long totalFlushNanos;
+    private long maxFlushNanos;
+    private long totalCommitNanos;
+
+    CommitScheduler(DurabilityPolicy policy, Object lock, Flusher flusher) {
+        this.policy = policy;
+        this.lock = lock;
+        this.flusher = flusher;
+    }
+
+    // Вызывается под lock сразу после изменения.
+    public CompletableFuture<Void> submit() {
+        long now = System.nanoTime();
+        if (policy.isSynchronous()) {
+            Write write = flusher.prepare();
+            long start = System.nanoTime();
+            write.write(policy.isFsync());
+            record(1, now, start, System.nanoTime());
+            return COMMITTED;
+        }
+        if (pending == null) {
+            CompletableFuture<Void> batch = new CompletableFuture<>();
+            pending = batch;
+            executor().schedule(() -> flushPending(batch), policy.getMaxDelay().toNanos(), TimeUnit.NANOSECONDS);
+        }
+        CompletableFuture<Void> batch = pending;
+        pendingCount++;
+        pendingSubmitNanos += now;
+        if (pendingCount == policy.getMaxBatch()) {
+            executor().execute(() -> flushPending(batch));
+        }
+        return batch;
+    }
+
+    public CompletableFuture<Void> pending() {
+        synchronized (lock) {
+            return pending != null ? pending : writing != null ? writing : COMMITTED;
+        }
+    }
+
+    public DurabilityStats getStats() {
+        synchronized (lock) {
+            return new DurabilityStats(mutations, flushes, totalFlushNanos, maxFlushNanos, totalCommitNanos,
+                    System.nanoTime() - createdNanos);
+        }
+    }
+
+    private void flushPending(CompletableFuture<Void> batch) {
+        int count;
+        long submitNanos;
+        Write write;
+        synchronized (lock) {
+            if (pending != batch) {
+                return;  // Пачку уже записали по достижении maxBatch.
+            }
+            count = pendingCount;
+            submitNanos = pendingSubmitNanos;
+            pending = null;
+            pendingCount = 0;
+            pendingSubmitNanos = 0;
+            try {
+                write = flusher.prepare();
+            } catch (RuntimeException e) {
+                batch.completeExceptionally(e);
+                return;
+            }
+            writing = batch;
+        }
+        long start = System.nanoTime();
+        RuntimeException failure = null;
+        try {
+            write.write(policy.isFsync());
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        long end = System.nanoTime();
+        synchronized (lock) {
+            if (writing == batch) {
+                writing = null;
+            }
+            if (failure == null) {
+                record(count, submitNanos, start, end);
+            }
+        }
+        if (failure != null) {
+            batch.completeExceptionally(failure);
+        } else {
+            batch.complete(null);
+        }
+    }
+
+    private void record(int count, long submitNanos, long start, long end) {
+        mutations += count;
+        flushes++;
+        totalFlushNanos += end - start;
+        maxFlushNanos = Math.max(maxFlushNanos, end - start);
+        totalCommitNanos += count * end - submitNanos;
+    }
+
+    private ScheduledExecutorService executor() {
+        if (executor == null) {
+            executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "task-commit");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
+}
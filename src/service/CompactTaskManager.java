@@ -0,0 +1,41 @@
+package service;
+
+import model.StringPool;
+
+import java.io.File;
+import java.io.IOException;
+
+/*
+ * Менеджер для очень больших досок в куче: снимок любого формата и журнал читаются потоком прямо
+ * в CompactTaskStore, без карт задач, а объекты задач создаются только при чтении.
+ * Изменения, как и у MappedTaskManager, ложатся в StoreOverlay поверх хранилища и дописываются в журнал.
+ */
+public class CompactTaskManager extends MappedTaskManager {
+    /* Хранилище само держит одинаковые строки одним экземпляром. Через общий пул каждая строка доски
+       держала бы в нём ещё и слабую запись, около 70 байт. */
+    private static final StringPool NO_POOL = new StringPool(false, 0);
+
+    private final File file;
+
+    public CompactTaskManager(HistoryManager historyManager, File file) {
+        super(historyManager, file, detectFormat(file), 0);
+        this.file = file;
+    }
+
+    public static CompactTaskManager loadFromFileStatic(File file) {
+        CompactTaskManager compactTaskManager = new CompactTaskManager(Managers.getDefaultHistory(), file);
+        compactTaskManager.open();
+        return compactTaskManager;
+    }
+
+    @Override
+    StoreOverlay openStore() throws IOException {
+        CompactTaskStore store = new CompactTaskStore();
+        if (file.exists()) {
+            SnapshotFiles.read(file, NO_POOL, store::append);
+        }
+        replayJournal(store.replay());
+        store.seal();
+        return overlay(store);
+    }
+}
@@ -0,0 +1,393 @@
+package service;
+
+import model.Epic;
+import model.Status;
+import model.SubTask;
+import model.Task;
+import model.TaskType;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Доска в виде столбцов примитивных массивов: одна запись - один индекс во всех массивах,
+ * записи идут по возрастанию id.
+ * Время хранится как в бинарном снимке (минута от эпохи, секунда, наносекунды), длительность - в минутах,
+ * имена и описания - номерами в общем пуле строк. Объекты Task создаются только при обращении.
+ * Как и OffHeapTaskStore, хранилище заполняется потоком: снимок и журнал проигрываются через replay()
+ * по одной задаче, затем seal оставляет последние версии, пересчитывает эпики и строит индексы.
+ */
+class CompactTaskStore implements TaskStore {
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final Status[] STATUSES = Status.values();
+    private static final int NULL = -1;
+    private static final int NULL_TIME = Integer.MIN_VALUE;
+    private static final int INITIAL_RECORDS = 1024;
+
+    private int count;
+    private int[] ids = new int[INITIAL_RECORDS];
+    private byte[] types = new byte[INITIAL_RECORDS];          // TaskType.ordinal().
+    private byte[] statuses = new byte[INITIAL_RECORDS];       // Status.ordinal().
+    private int[] epicIds = new int[INITIAL_RECORDS];
+    private int[] startMinutes = new int[INITIAL_RECORDS];
+    private byte[] startSeconds = new byte[INITIAL_RECORDS];
+    private int[] startNanos = new int[INITIAL_RECORDS];
+    private int[] durationMinutes = new int[INITIAL_RECORDS];
+    private int[] names = new int[INITIAL_RECORDS];           // Номер строки в strings.
+    private int[] descriptions = new int[INITIAL_RECORDS];
+    private String[] strings;
+    private Map<String, Integer> pool = new HashMap<>();       // Только до seal.
+    private StoreReplay replay = new StoreReplay(new Columns());
+    private long[] epicLinks;      // (id эпика << 32) | id подзадачи, отсортировано.
+    private StartIndex schedule = StartIndex.EMPTY;
+    private StartIndex epicSpans = StartIndex.EMPTY;
+    private int longestEpic;             // Самый длинный эпик с подзадачами, в минутах.
+
+    public static CompactTaskStore of(Collection<? extends Task> tasks, Collection<? extends Epic> epics,
+                                      Collection<? extends SubTask> subTasks) {
+        CompactTaskStore store = new CompactTaskStore();
+        tasks.forEach(store::append);
+        epics.forEach(store::append);
+        subTasks.forEach(store::append);
+        store.seal();
+        return store;
+    }
+
+    TaskChanges replay() {  // Изменения снимка и журнала до seal.
+        if (replay == null) {
+            throw new IllegalStateException("Store is already sealed");
+        }
+        return replay;
+    }
+
+    public void append(Task task) {
+        replay().put(task);
+    }
+
+    private void put(Task task) {
+        if (count == ids.length) {
+            grow(count * 2);
+        }
+        int record = count++;
+        ids[record] = task.getId();
+        types[record] = (byte) task.getType().ordinal();
+        statuses[record] = (byte) task.getStatus().ordinal();
+        Integer epicId = task.getEpicId();
+        epicIds[record] = epicId == null ? NULL : epicId;
+        LocalDateTime startTime = task.getStartTime();
+        if (startTime == null) {
+            startMinutes[record] = NULL_TIME;
+        } else {
+            long epochSecond = startTime.toEpochSecond(ZoneOffset.UTC);
+            startMinutes[record] = Math.toIntExact(Math.floorDiv(epochSecond, 60));
+            startSeconds[record] = (byte) Math.floorMod(epochSecond, 60);
+            startNanos[record] = startTime.getNano();
+        }
+        Duration duration = task.getDuration();
+        durationMinutes[record] = duration == null ? NULL : Math.toIntExact(duration.toMinutes());
+        names[record] = intern(task.getName());
+        descriptions[record] = intern(task.getDescription());
+    }
+
+    private int intern(String string) {
+        return string == null ? NULL : pool.computeIfAbsent(string, key -> pool.size());
+    }
+
+    // Оставляет последние версии задач по возрастанию id, пересчитывает эпики и строит индексы.
+    public void seal() {
+        StoreReplay replay = this.replay;
+        if (replay == null) {
+            throw new IllegalStateException("Store is already sealed");
+        }
+        int[] live = replay.live();
+        replay.recomputeEpics(live);
+        String[] pooled = new String[pool.size()];
+        pool.forEach((string, index) -> pooled[index] = string);
+        Map<String, Integer> used = new HashMap<>();  // Строки только живых записей.
+        List<String> kept = new ArrayList<>();
+        int[] liveNames = new int[live.length];
+        int[] liveDescriptions = new int[live.length];
+        for (int i = 0; i < live.length; i++) {
+            liveNames[i] = keep(used, kept, pooled, names[live[i]]);
+            liveDescriptions[i] = keep(used, kept, pooled, descriptions[live[i]]);
+        }
+        names = liveNames;
+        descriptions = liveDescriptions;
+        ids = select(ids, live);
+        types = select(types, live);
+        statuses = select(statuses, live);
+        epicIds = select(epicIds, live);
+        startMinutes = select(startMinutes, live);
+        startSeconds = select(startSeconds, live);
+        startNanos = select(startNanos, live);
+        durationMinutes = select(durationMinutes, live);
+        count = live.length;
+        strings = kept.toArray(new String[0]);
+        pool = null;
+        this.replay = null;
+        int links = 0;
+        for (int record = 0; record < count; record++) {
+            if (TYPES[types[record]] == TaskType.SUBTASK) {
+                links++;
+            }
+        }
+        epicLinks = new long[links];
+        int link = 0;
+        for (int record = 0; record < count; record++) {
+            if (TYPES[types[record]] == TaskType.SUBTASK) {
+                epicLinks[link++] = (long) epicIds[record] << 32 | ids[record];
+            }
+        }
+        Arrays.sort(epicLinks);
+        index();
+    }
+
+    private static int keep(Map<String, Integer> used, List<String> kept, String[] pooled, int index) {
+        if (index == NULL) {
+            return NULL;
+        }
+        return used.computeIfAbsent(pooled[index], string -> {
+            kept.add(string);
+            return kept.size() - 1;
+        });
+    }
+
+    private static int[] select(int[] column, int[] live) {
+        int[] selected = new int[live.length];
+        for (int i = 0; i < live.length; i++) {
+            selected[i] = column[live[i]];
+        }
+        return selected;
+    }
+
+    private static byte[] select(byte[] column, int[] live) {
+        byte[] selected = new byte[live.length];
+        for (int i = 0; i < live.length; i++) {
+            selected[i] = column[live[i]];
+        }
+        return selected;
+    }
+
+    private void grow(int capacity) {
+        ids = Arrays.copyOf(ids, capacity);
+        types = Arrays.copyOf(types, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+        epicIds = Arrays.copyOf(epicIds, capacity);
+        startMinutes = Arrays.copyOf(startMinutes, capacity);
+        startSeconds = Arrays.copyOf(startSeconds, capacity);
+        startNanos = Arrays.copyOf(startNanos, capacity);
+        durationMinutes = Arrays.copyOf(durationMinutes, capacity);
+        names = Arrays.copyOf(names, capacity);
+        descriptions = Arrays.copyOf(descriptions, capacity);
+    }
+
+    private void index() {  // Индексы по времени старта строятся один раз, после заполнения столбцов.
+        StartIndex.Starts starts = new StartIndex.Starts() {
+            @Override
+            public int minute(int record) {
+                return startMinutes[record];
+            }
+
+            @Override
+            public int second(int record) {
+                return startSeconds[record];
+            }
+
+            @Override
+            public int nano(int record) {
+                return startNanos[record];
+            }
+
+            @Override
+            public int id(int record) {
+                return ids[record];
+            }
+        };
+        long[] scheduled = new long[ids.length];
+        long[] spans = new long[ids.length];
+        int scheduledCount = 0;
+        int spansCount = 0;
+        for (int record = 0; record < ids.length; record++) {
+            if (startMinutes[record] == NULL_TIME) {
+                continue;
+            }
+            if (TYPES[types[record]] != TaskType.EPIC) {
+                scheduled[scheduledCount++] = StartIndex.key(startMinutes[record], record);
+            } else if (durationMinutes[record] != NULL && hasSubTasks(ids[record])) {
+                spans[spansCount++] = StartIndex.key(startMinutes[record], record);
+                longestEpic = Math.max(longestEpic, durationMinutes[record]);
+            }
+        }
+        schedule = StartIndex.build(scheduled, scheduledCount, starts, false);
+        epicSpans = StartIndex.build(spans, spansCount, starts, false);
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public int getStringCount() {  // Сколько разных строк осталось после объединения одинаковых имён и описаний.
+        return strings.length;
+    }
+
+    @Override
+    public int maxId() {
+        return ids.length == 0 ? 0 : ids[ids.length - 1];
+    }
+
+    @Override
+    public Task get(int id, TaskType type) {
+        int record = find(id);
+        return record < 0 || TYPES[types[record]] != type ? null : view(record);
+    }
+
+    @Override
+    public <T extends Task> List<T> getAll(TaskType type) {
+        List<T> result = new ArrayList<>();
+        for (int record = 0; record < ids.length; record++) {
+            if (TYPES[types[record]] == type) {
+                @SuppressWarnings("unchecked")
+                T typed = (T) view(record);
+                result.add(typed);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Integer> getSubTasksIds(int epicId) {
+        List<Integer> result = new ArrayList<>();
+        for (int i = lowerBound(epicLinks, (long) epicId << 32); i < epicLinks.length
+                && (int) (epicLinks[i] >>> 32) == epicId; i++) {
+            result.add((int) epicLinks[i]);
+        }
+        return result;
+    }
+
+    @Override
+    public Iterator<Task> getSchedule(LocalDateTime from) {
+        return schedule.iterator(from == null ? 0 : schedule.lastBefore(from), this::view);
+    }
+
+    @Override
+    public Iterator<Epic> getEpicSpans(LocalDateTime from) {
+        return epicSpans.iterator(from == null ? 0 : epicSpans.lowerBound(from.minusMinutes(longestEpic)),
+                record -> (Epic) view(record));
+    }
+
+    private boolean hasSubTasks(int epicId) {
+        int i = lowerBound(epicLinks, (long) epicId << 32);
+        return i < epicLinks.length && (int) (epicLinks[i] >>> 32) == epicId;
+    }
+
+    private Task view(int record) {
+        String name = string(names[record]);
+        String description = string(descriptions[record]);
+        LocalDateTime startTime = startMinutes[record] == NULL_TIME ? null
+                : LocalDateTime.ofEpochSecond(startMinutes[record] * 60L + startSeconds[record], startNanos[record],
+                ZoneOffset.UTC);
+        Duration duration = durationMinutes[record] == NULL ? null : Duration.ofMinutes(durationMinutes[record]);
+        int id = ids[record];
+        Task task = switch (TYPES[types[record]]) {
+            case TASK -> new Task(name, description, startTime, duration);
+            case EPIC -> {
+                Epic epic = new Epic(name, description);
+                epic.setId(id);
+                epic.setStartTime(startTime);
+                epic.setDuration(duration);
+                if (startTime != null && duration != null) {
+                    epic.setEndTime(startTime.plus(duration));
+                }
+                getSubTasksIds(id).forEach(epic::addTask);
+                yield epic;
+            }
+            case SUBTASK -> new SubTask(name, description, epicIds[record], startTime, duration);
+        };
+        task.setId(id);
+        task.setStatus(STATUSES[statuses[record]]);
+        return task;
+    }
+
+    private String string(int index) {
+        return index == NULL ? null : strings[index];
+    }
+
+    private int find(int id) {
+        int record = Arrays.binarySearch(ids, id);
+        return record >= 0 ? record : -1;
+    }
+
+    private static int lowerBound(long[] array, long key) {
+        int i = Arrays.binarySearch(array, key);
+        return i >= 0 ? i : -i - 1;
+    }
+
+    private final class Columns implements StoreReplay.Records {
+        @Override
+        public void append(Task task) {
+            put(task);
+        }
+
+        @Override
+        public int count() {
+            return count;
+        }
+
+        @Override
+        public int id(int record) {
+            return ids[record];
+        }
+
+        @Override
+        public int type(int record) {
+            return types[record];
+        }
+
+        @Override
+        public int status(int record) {
+            return statuses[record];
+        }
+
+        @Override
+        public int epicId(int record) {
+            return epicIds[record];
+        }
+
+        @Override
+        public int minute(int record) {
+            return startMinutes[record];
+        }
+
+        @Override
+        public int second(int record) {
+            return startSeconds[record];
+        }
+
+        @Override
+        public int nano(int record) {
+            return startNanos[record];
+        }
+
+        @Override
+        public int duration(int record) {
+            return durationMinutes[record];
+        }
+
+        @Override
+        public void setEpic(int record, int status, int minute, int second, int nano, int duration) {
+            statuses[record] = (byte) status;
+            startMinutes[record] = minute;
+            startSeconds[record] = (byte) second;
+            startNanos[record] = nano;
+            durationMinutes[record] = duration;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package service;
+
+import model.Task;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * История просмотров без глобальной блокировки. Каждый просмотр получает возрастающую метку,
+ * порядок хранится в ConcurrentSkipListSet по метке, а последний просмотр задачи - в ConcurrentHashMap по id.
+ * При превышении ёмкости удаляются самые давние просмотры (LRU).
+ * Запись в порядке и карта по id одной задачи меняются только внутри compute по её id, поэтому гонка
+ * add/remove одной задачи не оставляет в порядке записей без пары. Запись отмечена live, пока она последний
+ * просмотр своей задачи: getHistory читает метку вместо поиска по карте и пропускает ещё не добавленные
+ * и уже заменённые записи.
+ */
+public class ConcurrentHistoryManager implements ThreadSafeHistoryManager {
+    private final int capacity;
+    private final AtomicLong clock = new AtomicLong();
+    private final ConcurrentHashMap<Integer, Entry> latest = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Entry> order = new ConcurrentSkipListSet<>(
+            Comparator.comparingLong(entry -> entry.stamp));
+
+    public ConcurrentHistoryManager(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("History capacity should be positive");
+        }
+        this.capacity = capacity;
+    }
+
+    public ConcurrentHistoryManager() {
+        this(Integer.MAX_VALUE);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    int getOrderSize() {  // Записей в порядке вместе с ещё не вытесненными; без гонок совпадает с размером истории.
+        return order.size();
+    }
+
+    @Override
+    public void add(Task task) {
+        if (task == null) {
+            return;
+        }
+        Entry entry = new Entry(task, clock.incrementAndGet());
+        latest.compute(task.getId(), (id, previous) -> {
+            if (previous != null) {
+                previous.live = false;
+                order.remove(previous);
+            }
+            order.add(entry);
+            entry.live = true;
+            return entry;
+        });
+        evict();
+    }
+
+    private void evict() {
+        while (latest.size() > capacity) {
+            Entry eldest = order.pollFirst();
+            if (eldest == null) {
+                return;
+            }
+            latest.remove(eldest.task.getId(), eldest);  // Ждёт compute той же задачи, если он ещё идёт.
+            eldest.live = false;
+        }
+    }
+
+    @Override
+    public void remove(int id) {
+        latest.computeIfPresent(id, (key, entry) -> {
+            entry.live = false;
+            order.remove(entry);
+            return null;
+        });
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        ArrayList<Task> tasks = new ArrayList<>();
+        for (Entry entry : order) {
+            if (entry.live) {
+                tasks.add(entry.task);
+            }
+        }
+        return tasks;
+    }
+
+    private static final class Entry {
+        final Task task;
+        final long stamp;
+        volatile boolean live;
+
+        Entry(Task task, long stamp) {
+            this.task = task;
+            this.stamp = stamp;
+        }
+    }
+}
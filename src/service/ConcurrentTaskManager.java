@@ -0,0 +1,333 @@
+package service;
+
+import model.Epic;
+import model.SubTask;
+import model.Task;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * Потокобезопасный менеджер для HTTP-сервера. Карты задач конкурентные, идентификаторы выдаются атомарно.
+ * Изменения одного эпика (и его подзадач) сериализуются полосой блокировок по id эпика,
+ * а общий календарь задач защищён отдельной блокировкой только на время проверки пересечений.
+ * Порядок захвата всегда один: полоса, затем календарь.
+ * Чтение задач, списков, подзадач эпика и календаря идёт по текущему неизменяемому снимку без блокировок,
+ * наружу отдаются копии, а не живые объекты, которые меняют писатели. Поэтому блокировки нужны только
+ * писателям и они обычные, без чтения.
+ */
+public class ConcurrentTaskManager extends InMemoryTaskManager {
+    private static final int STRIPES = 64;
+
+    private final AtomicInteger idSequence = new AtomicInteger();
+    private final Lock[] stripes = new Lock[STRIPES];
+    private final Lock scheduleLock = new ReentrantLock();
+
+    public ConcurrentTaskManager(HistoryManager historyManager) {
+        super(historyManager instanceof ThreadSafeHistoryManager ? historyManager
+                        : new SynchronizedHistoryManager(historyManager),
+                new ConcurrentIntMap<>(), new ConcurrentIntMap<>(), new ConcurrentIntMap<>());
+        this.prioritizedTasks = new ConcurrentSkipListSet<>(Comparator.comparing(Task::getStartTime));
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    protected int generateId() {
+        return idSequence.incrementAndGet();
+    }
+
+    private Lock stripe(int id) {
+        return stripes[id & (STRIPES - 1)];
+    }
+
+    private void lockAll() {  // Всегда по возрастанию индекса, чтобы не было взаимных блокировок.
+        for (Lock lock : stripes) {
+            lock.lock();
+        }
+    }
+
+    private void unlockAll() {
+        for (int i = STRIPES - 1; i >= 0; i--) {
+            stripes[i].unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return copyAll(snapshot().getPrioritizedTasks());
+    }
+
+    @Override
+    public Task getTask(int id) {
+        Task task = snapshot().getTask(id);
+        historyManager.add(task);
+        return TaskSnapshot.freeze(task);
+    }
+
+    @Override
+    public Epic getEpic(int id) {  // Снимок собирает эпик заново при каждом чтении, копировать не нужно.
+        TaskSnapshot current = snapshot();
+        historyManager.add(current.getEpic(id));
+        return current.getEpic(id);
+    }
+
+    @Override
+    public SubTask getSubTask(int id) {
+        SubTask subTask = snapshot().getSubTask(id);
+        historyManager.add(subTask);
+        return TaskSnapshot.freeze(subTask);
+    }
+
+    @Override
+    public List<Task> getTasks() {
+        return copyAll(snapshot().getTasks());
+    }
+
+    @Override
+    public List<Epic> getEpics() {
+        return new ArrayList<>(snapshot().getEpics());
+    }
+
+    @Override
+    public List<SubTask> getSubTasks() {
+        return copyAll(snapshot().getSubTasks());
+    }
+
+    private static <T extends Task> List<T> copyAll(Collection<T> frozen) {
+        List<T> result = new ArrayList<>(frozen.size());
+        for (T task : frozen) {
+            result.add(TaskSnapshot.freeze(task));
+        }
+        return result;
+    }
+
+    @Override
+    protected void addPrioritized(Task task) {
+        scheduleLock.lock();
+        try {
+            super.addPrioritized(task);
+        } finally {
+            scheduleLock.unlock();
+        }
+    }
+
+    @Override
+    protected void removePrioritized(Task task) {
+        scheduleLock.lock();
+        try {
+            super.removePrioritized(task);
+        } finally {
+            scheduleLock.unlock();
+        }
+    }
+
+    @Override
+    protected void replacePrioritized(Task oldTask, Task newTask) {
+        scheduleLock.lock();
+        try {
+            super.replacePrioritized(oldTask, newTask);
+        } finally {
+            scheduleLock.unlock();
+        }
+    }
+
+    @Override
+    public Task createTask(Task task) {  // Id выдаётся до полосы, чтобы взять полосу именно этой задачи.
+        task.setId(generateId());
+        Lock lock = stripe(task.getId());
+        lock.lock();
+        try {
+            return insertTask(task);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Epic createEpic(Epic epic) {
+        epic.setId(generateId());
+        Lock lock = stripe(epic.getId());
+        lock.lock();
+        try {
+            return insertEpic(epic);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public SubTask createSubTask(SubTask subTask) {
+        Lock lock = stripe(subTask.getEpicId());
+        lock.lock();
+        try {
+            return super.createSubTask(subTask);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        Lock lock = stripe(task.getId());
+        lock.lock();
+        try {
+            super.updateTask(task);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        Lock lock = stripe(epic.getId());
+        lock.lock();
+        try {
+            super.updateEpic(epic);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void updateSubTask(SubTask subTask) {
+        Lock lock = stripe(subTask.getEpicId());
+        lock.lock();
+        try {
+            super.updateSubTask(subTask);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void deleteByIdTask(int id) {
+        Lock lock = stripe(id);
+        lock.lock();
+        try {
+            super.deleteByIdTask(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void deleteByIdEpic(int id) {
+        Lock lock = stripe(id);
+        lock.lock();
+        try {
+            super.deleteByIdEpic(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void deleteByIdSubTask(int id) {
+        SubTask subTask = subTasks.get(id);
+        if (subTask == null) {
+            super.deleteByIdSubTask(id);  // Бросит исключение об отсутствующей подзадаче.
+            return;
+        }
+        Lock lock = stripe(subTask.getEpicId());
+        lock.lock();
+        try {
+            super.deleteByIdSubTask(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void deleteAllTasks() {  // Поштучно, чтобы не потерять задачи, созданные во время очистки.
+        tasks.keySet().forEach(this::deleteByIdTask);
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        lockAll();
+        try {
+            super.deleteAllEpics();
+        } finally {
+            unlockAll();
+        }
+    }
+
+    @Override
+    public void deleteAllSubTasks() {
+        lockAll();
+        try {
+            super.deleteAllSubTasks();
+        } finally {
+            unlockAll();
+        }
+    }
+
+    @Override
+    public List<SubTask> getAllSubStacksByEpicId(int id) {  // Эпик и его подзадачи берутся из одного снимка.
+        TaskSnapshot current = snapshot();
+        Epic epic = current.getEpic(id);
+        if (epic == null) {
+            throw new IllegalStateException("Epic with id " + id + " does not exist");
+        }
+        List<SubTask> subTaskList = new ArrayList<>(epic.getSubTasksCount());
+        epic.forEachSubTaskId(subTaskId -> subTaskList.add(TaskSnapshot.freeze(current.getSubTask(subTaskId))));
+        return subTaskList;
+    }
+
+    private static class SynchronizedHistoryManager implements ThreadSafeHistoryManager {
+        private final HistoryManager historyManager;
+
+        SynchronizedHistoryManager(HistoryManager historyManager) {
+            this.historyManager = historyManager;
+        }
+
+        @Override
+        public synchronized void add(Task task) {
+            historyManager.add(task);
+        }
+
+        @Override
+        public synchronized void remove(int id) {
+            historyManager.remove(id);
+        }
+
+        @Override
+        public synchronized List<Task> getHistory() {
+            return historyManager.getHistory();
+        }
+    }
+
+    // Реестры должны читаться без блокировок, поэтому здесь ключ всё же упаковывается.
+    private static class ConcurrentIntMap<V> extends ConcurrentHashMap<Integer, V> implements IntMap<V> {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public V get(int key) {
+            return get((Object) key);
+        }
+
+        @Override
+        public V put(int key, V value) {
+            return put(Integer.valueOf(key), value);
+        }
+
+        @Override
+        public V remove(int key) {
+            return remove((Object) key);
+        }
+
+        @Override
+        public boolean containsKey(int key) {
+            return containsKey((Object) key);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package service;
+
+import java.time.Duration;
+import java.util.Objects;
+
+public class DurabilityPolicy {
+
+    public enum Mode {
+        SYNC,          // Запись в файл в потоке вызывающего, без fsync.
+        SYNC_FSYNC,    // Запись в файл и fsync в потоке вызывающего.
+        GROUP_COMMIT,  // Изменения копятся до maxBatch штук или maxDelay, затем одна запись с fsync в фоне.
+        ASYNC          // Запись в фоне сразу после изменения, без fsync.
+    }
+
+    public static final DurabilityPolicy SYNC = new DurabilityPolicy(Mode.SYNC, Duration.ZERO, 1);
+    public static final DurabilityPolicy SYNC_FSYNC = new DurabilityPolicy(Mode.SYNC_FSYNC, Duration.ZERO, 1);
+    public static final DurabilityPolicy ASYNC = new DurabilityPolicy(Mode.ASYNC, Duration.ZERO, Integer.MAX_VALUE);
+
+    private final Mode mode;
+    private final Duration maxDelay;
+    private final int maxBatch;
+
+    private DurabilityPolicy(Mode mode, Duration maxDelay, int maxBatch) {
+        this.mode = mode;
+        this.maxDelay = maxDelay;
+        this.maxBatch = maxBatch;
+    }
+
+    public static DurabilityPolicy groupCommit(Duration maxDelay, int maxBatch) {
+        if (maxDelay.isNegative() || maxBatch < 1) {
+            throw new IllegalArgumentException("Group commit needs non-negative delay and positive batch size");
+        }
+        return new DurabilityPolicy(Mode.GROUP_COMMIT, maxDelay, maxBatch);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public Duration getMaxDelay() {
+        return maxDelay;
+    }
+
+    public int getMaxBatch() {
+        return maxBatch;
+    }
+
+    public boolean isSynchronous() {
+        return mode == Mode.SYNC || mode == Mode.SYNC_FSYNC;
+    }
+
+    public boolean isFsync() {
+        return mode == Mode.SYNC_FSYNC || mode == Mode.GROUP_COMMIT;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        DurabilityPolicy that = (DurabilityPolicy) o;
+        return mode == that.mode && maxBatch == that.maxBatch && Objects.equals(maxDelay, that.maxDelay);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(mode, maxDelay, maxBatch);
+    }
+
+    @Override
+    public String toString() {
+        return "DurabilityPolicy{" +
+                "mode=" + mode +
+                ", maxDelay=" + maxDelay +
+                ", maxBatch=" + maxBatch +
+                '}';
+    }
+}
@@ -0,0 +1,63 @@
+package service;
+
+import java.time.Duration;
+
+public class DurabilityStats {
+    private final long mutations;
+    private final long flushes;
+    private final long totalFlushNanos;
+    private final long maxFlushNanos;
+    private final long totalCommitNanos;
+    private final long elapsedNanos;
+
+    DurabilityStats(long mutations, long flushes, long totalFlushNanos, long maxFlushNanos, long totalCommitNanos,
+                    long elapsedNanos) {
+        this.mutations = mutations;
+        this.flushes = flushes;
+        this.totalFlushNanos = totalFlushNanos;
+        this.maxFlushNanos = maxFlushNanos;
+        this.totalCommitNanos = totalCommitNanos;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getMutations() {
+        return mutations;
+    }
+
+    public long getFlushes() {
+        return flushes;
+    }
+
+    public double getAverageBatchSize() {  // Сколько изменений в среднем ушло на диск одной записью.
+        return flushes == 0 ? 0 : (double) mutations / flushes;
+    }
+
+    public Duration getAverageFlushLatency() {
+        return flushes == 0 ? Duration.ZERO : Duration.ofNanos(totalFlushNanos / flushes);
+    }
+
+    public Duration getMaxFlushLatency() {
+        return Duration.ofNanos(maxFlushNanos);
+    }
+
+    public Duration getAverageCommitLatency() {  // Время от изменения до его записи на диск.
+        return mutations == 0 ? Duration.ZERO : Duration.ofNanos(totalCommitNanos / mutations);
+    }
+
+    public double getThroughput() {  // Изменений в секунду с момента создания менеджера.
+        return elapsedNanos == 0 ? 0 : mutations * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "DurabilityStats{" +
+                "mutations=" + mutations +
+                ", flushes=" + flushes +
+                ", averageBatchSize=" + getAverageBatchSize() +
+                ", averageFlushLatency=" + getAverageFlushLatency() +
+                ", maxFlushLatency=" + getMaxFlushLatency() +
+                ", averageCommitLatency=" + getAverageCommitLatency() +
+                ", throughput=" + getThroughput() +
+                '}';
+    }
+}
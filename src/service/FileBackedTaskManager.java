@@ -1,172 +1,378 @@
 package service;
 
-import converter.TaskConverter;
 import model.Epic;
 import model.SubTask;
 import model.Task;
+import model.TaskType;
 import service.exception.ManagerSaveException;
 
-import java.io.*;
-import java.nio.charset.StandardCharsets;
-import java.util.Comparator;
-import java.util.Map;
-import java.util.TreeSet;
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class FileBackedTaskManager extends InMemoryTaskManager {
+    private static final int COMPACTION_MIN_RECORDS = 1000;
 
     private final File file;
+    private final StorageMode storageMode;
+    private final SnapshotFormat snapshotFormat;
+    private final DurabilityPolicy durabilityPolicy;
+    private final TaskJournal journal;
+    private final SegmentStore segments;
+    private CommitScheduler commitScheduler;
+    private ExecutorService compactor;
+    private boolean compactionScheduled;
 
-    public FileBackedTaskManager(HistoryManager historyManager, File file) {
+    public FileBackedTaskManager(HistoryManager historyManager, File file, StorageMode storageMode,
+                                 SnapshotFormat snapshotFormat, DurabilityPolicy durabilityPolicy) {
         super(historyManager);
         this.file = file;
+        this.storageMode = storageMode;
+        this.snapshotFormat = snapshotFormat;
+        this.journal = new TaskJournal(file);
+        this.durabilityPolicy = durabilityPolicy;
+        this.segments = new SegmentStore(new File(file.getPath() + ".segments"), snapshotFormat, type ->
+                switch (type) {
+                    case TASK -> tasks;
+                    case EPIC -> epics;
+                    case SUBTASK -> subTasks;
+                });
+    }
+
+    public FileBackedTaskManager(HistoryManager historyManager, File file, StorageMode storageMode,
+                                 DurabilityPolicy durabilityPolicy) {
+        this(historyManager, file, storageMode, SnapshotFormat.CSV, durabilityPolicy);
+    }
+
+    public FileBackedTaskManager(HistoryManager historyManager, File file, StorageMode storageMode) {
+        this(historyManager, file, storageMode, DurabilityPolicy.SYNC);
+    }
+
+    public FileBackedTaskManager(HistoryManager historyManager, File file) {
+        this(historyManager, file, StorageMode.SNAPSHOT);
     }
 
     public FileBackedTaskManager(HistoryManager historyManager) {
-        super(historyManager);
-        this.file = new File("resources", "tasks.csv");
+        this(historyManager, new File("resources", "tasks.csv"));
     }
 
     public static FileBackedTaskManager loadFromFileStatic(File file) {
-        FileBackedTaskManager fileBackedTaskManager = new FileBackedTaskManager(Managers.getDefaultHistory(), file);
+        return loadFromFileStatic(file, StorageMode.SNAPSHOT);
+    }
+
+    public static FileBackedTaskManager loadFromFileStatic(File file, StorageMode storageMode) {
+        return loadFromFileStatic(file, storageMode, DurabilityPolicy.SYNC);
+    }
+
+    public static FileBackedTaskManager loadFromFileStatic(File file, StorageMode storageMode,
+                                                           DurabilityPolicy durabilityPolicy) {
+        return loadFromFileStatic(file, storageMode, detectFormat(file), durabilityPolicy);
+    }
+
+    public static FileBackedTaskManager loadFromFileStatic(File file, StorageMode storageMode,
+                                                           SnapshotFormat snapshotFormat,
+                                                           DurabilityPolicy durabilityPolicy) {
+        FileBackedTaskManager fileBackedTaskManager = new FileBackedTaskManager(Managers.getDefaultHistory(), file,
+                storageMode, snapshotFormat, durabilityPolicy);
         fileBackedTaskManager.loadFromFile();
         return fileBackedTaskManager;
     }
 
-    private void loadFromFile() {
-        int maxId = 0;
-        TreeSet<Task> prioritizedTasks = new TreeSet<>(Comparator.comparing(Task::getStartTime));
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            reader.readLine();
-            while (reader.ready()) {
-                String line = reader.readLine();
-                final Task task = TaskConverter.fromString(line);
-                final int id = task.getId();
-                switch (task.getType()) {
-                    case TASK -> {
-                        tasks.put(id, task);
-                        prioritizedTasks.add(task);
-                    }
-                    case EPIC -> epics.put(id, (Epic) task);
-                    case SUBTASK -> {
-                        subTasks.put(id, (SubTask) task);
-                        prioritizedTasks.add(task);
-                    }
+    public CompletableFuture<Void> pendingCommit() {  // Завершится, когда все сделанные изменения будут на диске.
+        return commitScheduler().pending();
+    }
+
+    public DurabilityStats getDurabilityStats() {
+        return commitScheduler().getStats();
+    }
+
+    // Планировщик создаётся при первом обращении, чтобы не отдавать ему this из конструктора.
+    private synchronized CommitScheduler commitScheduler() {
+        if (commitScheduler == null) {
+            commitScheduler = new CommitScheduler(durabilityPolicy, this, () -> switch (storageMode) {
+                case SNAPSHOT -> {
+                    TaskSnapshot snapshot = snapshot();
+                    yield fsync -> writeSnapshot(snapshot, fsync);
+                }
+                case JOURNAL -> journal::flush;
+                case SEGMENTED -> {
+                    Map<Long, List<Task>> dirty = segments.drain();
+                    yield fsync -> writeSegments(dirty, fsync);
                 }
-                maxId = Math.max(maxId, id);
+            });
+        }
+        return commitScheduler;
+    }
+
+    public static SnapshotFormat detectFormat(File file) {
+        try {
+            return SnapshotFiles.detectFormat(file);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error occurred during loading from file, path: "
+                    + file.getAbsolutePath(), e);
+        }
+    }
+
+    protected boolean hasJournal() {
+        return journal.exists();
+    }
+
+    // Проигрывает журнал поверх уже прочитанного снимка, не трогая карты задач (см. CompactTaskManager).
+    void replayJournal(TaskChanges changes) {
+        journal.replay(changes);
+    }
+
+    // Изменение доски в хранилище (см. MappedTaskManager): дописывается в журнал и сразу сбрасывается на диск.
+    void appendJournal(Consumer<TaskChanges> change) {
+        change.accept(journal);
+        journal.flush(durabilityPolicy.isFsync());
+    }
+
+    protected void loadFromFile() {
+        loadSnapshot();
+        int replayed = journal.replay(new TaskChanges() {
+            @Override
+            public void put(Task task) {
+                putLoaded(task);
+            }
+
+            @Override
+            public void delete(TaskType type, int id) {
+                tasks.remove(id);
+                epics.remove(id);
+                subTasks.remove(id);
             }
-            for (SubTask subTask : subTasks.values()) {
-                Epic savedEpic = epics.get(subTask.getEpicId());
-                if (savedEpic == null) {
-                    throw new IllegalStateException("Epic of subTask with id " + subTask.getId() + " does not exist");
+
+            @Override
+            public void clear(TaskType type) {
+                switch (type) {
+                    case TASK -> tasks.clear();
+                    case EPIC -> {
+                        epics.clear();
+                        subTasks.clear();
+                    }
+                    case SUBTASK -> subTasks.clear();
                 }
-                savedEpic.addTask(subTask.getId());
+            }
+        });
+        Map<Integer, List<SubTask>> subTasksByEpic = subTasks.values().parallelStream()
+                .collect(Collectors.groupingBy(SubTask::getEpicId));
+        subTasksByEpic.forEach((epicId, epicSubTasks) -> {
+            if (!epics.containsKey(epicId)) {
+                throw new IllegalStateException("Epic of subTask with id " + epicSubTasks.getFirst().getId()
+                        + " does not exist");
+            }
+        });
+        // Каждый эпик обрабатывается одним потоком, карты задач при этом только читаются.
+        epics.values().parallelStream().forEach(epic -> {
+            subTasksByEpic.getOrDefault(epic.getId(), List.of()).forEach(epic::addTask);
+            updateEpicStatus(epic);
+            recalculationOfEpicTime(epic);
+        });
+        TreeSet<Task> prioritizedTasks = new TreeSet<>(Comparator.comparing(Task::getStartTime));
+        prioritizedTasks.addAll(tasks.values());
+        prioritizedTasks.addAll(subTasks.values());
+        this.prioritizedTasks = prioritizedTasks;
+        seq = Stream.of(tasks.keySet(), epics.keySet(), subTasks.keySet())
+                .flatMap(Collection::stream)
+                .mapToInt(Integer::intValue)
+                .max()
+                .orElse(0);
+        resetSnapshot();
+        if (replayed > 0 && storageMode != StorageMode.JOURNAL) {
+            save();  // Журнал остался от режима JOURNAL: переносим его в файл, чтобы он не проигрывался повторно.
+        }
+    }
+
+    private void loadSnapshot() {
+        try {
+            if (storageMode == StorageMode.SEGMENTED) {
+                segments.load(this::putLoaded);
+            } else if (storageMode == StorageMode.SNAPSHOT || file.exists()) {  // В JOURNAL файла может ещё не быть.
+                SnapshotFiles.read(file, this::putLoaded);
             }
         } catch (IOException e) {
             throw new ManagerSaveException("Error occurred during loading from file, path: "
                     + file.getAbsolutePath(), e);
         }
-        seq = maxId;
-        this.prioritizedTasks = prioritizedTasks;
-        epics.values().forEach(this::recalculationOfEpicTime);
+    }
+
+    private void putLoaded(Task task) {
+        final int id = task.getId();
+        switch (task.getType()) {
+            case TASK -> tasks.put(id, task);
+            case EPIC -> epics.put(id, (Epic) task);
+            case SUBTASK -> subTasks.put(id, (SubTask) task);
+        }
     }
 
     private void save() {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file, StandardCharsets.UTF_8))) {
-            String data = "id,type,name,status,description,epic,duration,startTime";
-            writer.write(data);
-            writer.newLine();
-            for (Map.Entry<Integer, Task> entry : tasks.entrySet()) {
-                data = TaskConverter.toString(entry.getValue());
-                writer.append(data);
-                writer.newLine();
-            }
-            for (Map.Entry<Integer, Epic> entry : epics.entrySet()) {
-                data = TaskConverter.toString(entry.getValue());
-                writer.append(data);
-                writer.newLine();
-            }
-            for (Map.Entry<Integer, SubTask> entry : subTasks.entrySet()) {
-                data = TaskConverter.toString(entry.getValue());
-                writer.append(data);
-                writer.newLine();
+        try {
+            if (storageMode == StorageMode.SEGMENTED) {
+                segments.markAll();
+                segments.flush(durabilityPolicy.isFsync());
+            } else {
+                SnapshotFiles.write(file, snapshotFormat, durabilityPolicy.isFsync(), tasks.values(), epics.values(),
+                        subTasks.values());
             }
         } catch (IOException e) {
             throw new ManagerSaveException("Error occurred during saving to file, path: " + file.getAbsolutePath(), e);
         }
+        journal.reset();
+    }
+
+    // Без замка: снимок неизменяем, а записи снимка идут по одной (см. CommitScheduler).
+    private void writeSnapshot(TaskSnapshot snapshot, boolean fsync) {
+        try {
+            SnapshotFiles.write(file, snapshotFormat, fsync, snapshot.getTasks(), snapshot.getEpics(),
+                    snapshot.getSubTasks());
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error occurred during saving to file, path: " + file.getAbsolutePath(), e);
+        }
+    }
+
+    private void writeSegments(Map<Long, List<Task>> dirty, boolean fsync) {
+        try {
+            segments.write(dirty, fsync);
+        } catch (IOException e) {
+            synchronized (this) {
+                segments.markDirty(dirty.keySet());
+            }
+            throw new ManagerSaveException("Error occurred during saving segments, path: "
+                    + file.getAbsolutePath(), e);
+        }
+    }
+
+    private void persist(Consumer<TaskChanges> change) {
+        if (storageMode == StorageMode.SEGMENTED) {
+            change.accept(segments);
+        } else if (storageMode == StorageMode.JOURNAL) {
+            change.accept(journal);
+        }
+        commitScheduler().submit();
+        if (storageMode != StorageMode.JOURNAL) {
+            return;
+        }
+        int size = tasks.size() + epics.size() + subTasks.size();
+        if (!compactionScheduled && journal.size() >= Math.max(COMPACTION_MIN_RECORDS, size)) {
+            compactionScheduled = true;
+            if (compactor == null) {
+                compactor = Executors.newSingleThreadExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "task-journal-compactor");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            compactor.execute(this::compact);
+        }
+    }
+
+    /* Свёртка журнала в файл, выполняется в фоне. Под замком берётся только неизменяемый снимок доски и
+       начинается новый сегмент журнала, сама запись файла не задерживает изменения. */
+    private void compact() {
+        try {
+            TaskSnapshot snapshot;
+            synchronized (this) {
+                snapshot = snapshot();
+                journal.rotate(durabilityPolicy.isFsync());
+            }
+            try {
+                SnapshotFiles.write(file, snapshotFormat, durabilityPolicy.isFsync(), snapshot.getTasks(),
+                        snapshot.getEpics(), snapshot.getSubTasks());
+            } catch (IOException e) {
+                throw new ManagerSaveException("Error occurred during saving to file, path: "
+                        + file.getAbsolutePath(), e);
+            }
+            journal.dropRotated();
+        } finally {
+            synchronized (this) {
+                compactionScheduled = false;
+            }
+        }
     }
 
     @Override
-    public Task createTask(Task task) {
+    public synchronized Task createTask(Task task) {
         Task taskCreated = super.createTask(task);
-        save();
+        persist(changes -> changes.put(taskCreated));
         return taskCreated;
     }
 
     @Override
-    public Epic createEpic(Epic epic) {
+    public synchronized Epic createEpic(Epic epic) {
         Epic epicCreated = super.createEpic(epic);
-        save();
+        persist(changes -> changes.put(epicCreated));
         return epicCreated;
     }
 
     @Override
-    public SubTask createSubTask(SubTask subTask) {
+    public synchronized SubTask createSubTask(SubTask subTask) {
         SubTask subTaskCreated = super.createSubTask(subTask);
-        save();
+        persist(changes -> changes.put(subTaskCreated));
         return subTaskCreated;
     }
 
     @Override
-    public void updateTask(Task task) {
+    public synchronized void updateTask(Task task) {
         super.updateTask(task);
-        save();
+        persist(changes -> changes.put(task));
     }
 
     @Override
-    public void updateEpic(Epic epic) {
+    public synchronized void updateEpic(Epic epic) {
         super.updateEpic(epic);
-        save();
+        persist(changes -> changes.put(epics.get(epic.getId())));
     }
 
     @Override
-    public void updateSubTask(SubTask subTask) {
+    public synchronized void updateSubTask(SubTask subTask) {
         super.updateSubTask(subTask);
-        save();
+        persist(changes -> changes.put(subTask));
     }
 
     @Override
-    public void deleteByIdTask(int id) {
+    public synchronized void deleteByIdTask(int id) {
         super.deleteByIdTask(id);
-        save();
+        persist(changes -> changes.delete(TaskType.TASK, id));
     }
 
     @Override
-    public void deleteByIdEpic(int id) {
+    public synchronized void deleteByIdEpic(int id) {
+        Epic epic = epics.get(id);
         super.deleteByIdEpic(id);
-        save();
+        persist(changes -> {
+            epic.forEachSubTaskId(subTaskId -> changes.delete(TaskType.SUBTASK, subTaskId));
+            changes.delete(TaskType.EPIC, id);
+        });
     }
 
     @Override
-    public void deleteByIdSubTask(int id) {
+    public synchronized void deleteByIdSubTask(int id) {
         super.deleteByIdSubTask(id);
-        save();
+        persist(changes -> changes.delete(TaskType.SUBTASK, id));
     }
 
     @Override
-    public void deleteAllTasks() {
+    public synchronized void deleteAllTasks() {
         super.deleteAllTasks();
-        save();
+        persist(changes -> changes.clear(TaskType.TASK));
     }
 
     @Override
-    public void deleteAllEpics() {
+    public synchronized void deleteAllEpics() {
         super.deleteAllEpics();
-        save();
+        persist(changes -> changes.clear(TaskType.EPIC));
     }
 
     @Override
-    public void deleteAllSubTasks() {
+    public synchronized void deleteAllSubTasks() {
         super.deleteAllSubTasks();
-        save();
+        persist(changes -> changes.clear(TaskType.SUBTASK));
     }
 }
@@ -0,0 +1,214 @@
+package service;
+
+import model.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.Iterator;
+
+/*
+ * Свободные промежутки расписания: неизменяемое AVL-дерево, ключ - задача, после которой идёт промежуток
+ * (HEAD для промежутка перед первой задачей). Промежутки не пересекаются, поэтому порядок ключей совпадает
+ * с порядком промежутков во времени. Каждый узел хранит самый длинный промежуток своего поддерева,
+ * так что первый подходящий по длине промежуток находится за O(log n).
+ */
+final class GapIndex {
+    static final Task HEAD = TaskSnapshot.probe(LocalDateTime.MIN);
+
+    private final Comparator<? super Task> comparator;
+    private final Node root;
+
+    private GapIndex(Comparator<? super Task> comparator, Node root) {
+        this.comparator = comparator;
+        this.root = root;
+    }
+
+    static GapIndex empty(Comparator<? super Task> comparator) {  // Пустое расписание - один бесконечный промежуток.
+        return new GapIndex(comparator, null).put(HEAD, LocalDateTime.MIN, LocalDateTime.MAX);
+    }
+
+    GapIndex put(Task after, LocalDateTime start, LocalDateTime end) {  // Пустые промежутки не хранятся.
+        GapIndex removed = remove(after);
+        if (!start.isBefore(end)) {
+            return removed;
+        }
+        return new GapIndex(comparator, removed.put(removed.root, after, start, end));
+    }
+
+    GapIndex remove(Task after) {
+        Node newRoot = remove(root, after);
+        return newRoot == root ? this : new GapIndex(comparator, newRoot);
+    }
+
+    // Самое раннее начало не раньше after, с которого свободно duration подряд.
+    LocalDateTime findFreeSlot(LocalDateTime after, Duration duration) {
+        Node node = root;
+        Node containing = null;  // Первый промежуток, который заканчивается позже after.
+        while (node != null) {
+            if (node.end.isAfter(after)) {
+                containing = node;
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        if (containing != null && !containing.start.isAfter(after) && fits(after, duration, containing.end)) {
+            return after;
+        }
+        Node first = firstFit(root, after, duration);
+        return first == null ? null : first.start;
+    }
+
+    /*
+     * То же без индекса, проходом по расписанию за O(число задач после after): для ленивых хранилищ.
+     * schedule - задачи по времени старта, начиная с последней, которая стартует раньше after.
+     */
+    static LocalDateTime scan(Iterator<? extends Task> schedule, LocalDateTime after, Duration duration) {
+        LocalDateTime free = after;
+        while (schedule.hasNext()) {
+            Task task = schedule.next();
+            if (!task.getEndTime().isAfter(free)) {
+                continue;
+            }
+            if (fits(free, duration, task.getStartTime())) {
+                return free;
+            }
+            free = task.getEndTime();
+        }
+        return fits(free, duration, LocalDateTime.MAX) ? free : null;
+    }
+
+    // Самый левый промежуток, который начинается не раньше after и вмещает duration.
+    private Node firstFit(Node node, LocalDateTime after, Duration duration) {
+        if (node == null || node.maxLength.compareTo(duration) < 0) {
+            return null;
+        }
+        if (node.start.isBefore(after)) {
+            return firstFit(node.right, after, duration);
+        }
+        Node left = firstFit(node.left, after, duration);
+        if (left != null) {
+            return left;
+        }
+        if (node.length.compareTo(duration) >= 0) {
+            return node;
+        }
+        return firstFit(node.right, after, duration);
+    }
+
+    private static boolean fits(LocalDateTime start, Duration duration, LocalDateTime end) {
+        return Duration.between(start, end).compareTo(duration) >= 0;
+    }
+
+    private Node put(Node node, Task after, LocalDateTime start, LocalDateTime end) {
+        if (node == null) {
+            return new Node(after, start, end, null, null);
+        }
+        int compare = comparator.compare(after, node.after);
+        if (compare < 0) {
+            return balance(node, put(node.left, after, start, end), node.right);
+        } else if (compare > 0) {
+            return balance(node, node.left, put(node.right, after, start, end));
+        }
+        return new Node(after, start, end, node.left, node.right);
+    }
+
+    private Node remove(Node node, Task after) {
+        if (node == null) {
+            return null;
+        }
+        int compare = comparator.compare(after, node.after);
+        if (compare < 0) {
+            Node left = remove(node.left, after);
+            return left == node.left ? node : balance(node, left, node.right);
+        } else if (compare > 0) {
+            Node right = remove(node.right, after);
+            return right == node.right ? node : balance(node, node.left, right);
+        }
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        Node min = node.right;
+        while (min.left != null) {
+            min = min.left;
+        }
+        return balance(min, node.left, removeMin(node.right));
+    }
+
+    private static Node removeMin(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        return balance(node, removeMin(node.left), node.right);
+    }
+
+    private static Node balance(Node top, Node left, Node right) {  // top даёт ключ и промежуток нового узла.
+        int leftHeight = height(left);
+        int rightHeight = height(right);
+        if (leftHeight > rightHeight + 1) {
+            if (height(left.left) < height(left.right)) {
+                left = rotateLeft(left, left.left, left.right);
+            }
+            return rotateRight(top, left, right);
+        } else if (rightHeight > leftHeight + 1) {
+            if (height(right.right) < height(right.left)) {
+                right = rotateRight(right, right.left, right.right);
+            }
+            return rotateLeft(top, left, right);
+        }
+        return top.with(left, right);
+    }
+
+    private static Node rotateRight(Node top, Node left, Node right) {
+        return left.with(left.left, top.with(left.right, right));
+    }
+
+    private static Node rotateLeft(Node top, Node left, Node right) {
+        return right.with(top.with(left, right.left), right.right);
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static final class Node {
+        final Task after;
+        final LocalDateTime start;
+        final LocalDateTime end;
+        final Duration length;
+        final Duration maxLength;
+        final Node left;
+        final Node right;
+        final int height;
+
+        Node(Task after, LocalDateTime start, LocalDateTime end, Node left, Node right) {
+            this(after, start, end, Duration.between(start, end), left, right);
+        }
+
+        private Node(Task after, LocalDateTime start, LocalDateTime end, Duration length, Node left, Node right) {
+            this.after = after;
+            this.start = start;
+            this.end = end;
+            this.length = length;
+            this.left = left;
+            this.right = right;
+            this.height = Math.max(height(left), height(right)) + 1;
+            Duration max = length;
+            if (left != null && left.maxLength.compareTo(max) > 0) {
+                max = left.maxLength;
+            }
+            if (right != null && right.maxLength.compareTo(max) > 0) {
+                max = right.maxLength;
+            }
+            this.maxLength = max;
+        }
+
+        Node with(Node left, Node right) {
+            return new Node(after, start, end, length, left, right);
+        }
+    }
+}
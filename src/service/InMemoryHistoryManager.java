@@ -1,13 +1,13 @@
 package service;
 
+import logging.Logger;
 import model.Task;
 
 import java.util.ArrayList;
-import java.util.Map;
-import java.util.HashMap;
 import java.util.List;
 
 public class InMemoryHistoryManager implements HistoryManager {
+    private static final Logger log = Logger.getLogger(InMemoryHistoryManager.class);
 
     private static class Node {
         Task data;
@@ -21,7 +21,7 @@ public class InMemoryHistoryManager implements HistoryManager {
         }
     }
 
-    private final Map<Integer, Node> history = new HashMap<>();
+    private final IntHashMap<Node> history = new IntHashMap<>();
     private Node first;
     private Node last;
 
@@ -53,7 +53,7 @@ public class InMemoryHistoryManager implements HistoryManager {
         Node node = history.get(task.getId());
         removeNode(node);
         linkLast(task);
-        System.out.println("В историю задач добавлена задача под номером:" + task.getId());
+        log.debug(() -> "В историю задач добавлена задача под номером:" + task.getId());
     }
 
     private void linkLast(Task task) {
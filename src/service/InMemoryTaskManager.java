@@ -2,6 +2,7 @@ package service;
 
 import model.Epic;
 import model.Status;
+import model.StringPool;
 import model.SubTask;
 import model.Task;
 import service.exception.ValidationException;
@@ -9,42 +10,123 @@ import service.exception.ValidationException;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
 
 public class InMemoryTaskManager implements TaskManager {
     protected int seq = 0;
-    protected final HashMap<Integer, Task> tasks;
-    protected final HashMap<Integer, Epic> epics;
-    protected final HashMap<Integer, SubTask> subTasks;
+    protected final IntMap<Task> tasks;
+    protected final IntMap<Epic> epics;
+    protected final IntMap<SubTask> subTasks;
     protected final HistoryManager historyManager;
-    protected TreeSet<Task> prioritizedTasks;
+    protected NavigableSet<Task> prioritizedTasks;
+    // null - снимок устарел после массовой загрузки и будет собран при первом чтении.
+    private final AtomicReference<TaskSnapshot> snapshot = new AtomicReference<>(TaskSnapshot.EMPTY);
+    private long staleVersion;
 
     public InMemoryTaskManager(HistoryManager historyManager) {
-        this.tasks = new HashMap<>();
-        this.epics = new HashMap<>();
-        this.subTasks = new HashMap<>();
+        this(historyManager, new IntHashMap<>(), new IntHashMap<>(), new IntHashMap<>());
+    }
+
+    protected InMemoryTaskManager(HistoryManager historyManager, IntMap<Task> tasks, IntMap<Epic> epics,
+                                  IntMap<SubTask> subTasks) {
+        this.tasks = tasks;
+        this.epics = epics;
+        this.subTasks = subTasks;
         this.historyManager = historyManager;
         this.prioritizedTasks = new TreeSet<>(Comparator.comparing(Task::getStartTime));
     }
 
-    private int generateId() {
+    protected int generateId() {
         return ++seq;
     }  // Генерация идентификатора.
 
+    @Override
+    public TaskSnapshot snapshot() {  // Текущая версия берётся за O(1), её можно обходить без блокировок.
+        TaskSnapshot current = snapshot.get();
+        return current != null ? current : rebuildSnapshot();
+    }
+
+    // Наследники с массовой загрузкой синхронизируют запись на this, поэтому сборка не пересекается с изменениями.
+    private synchronized TaskSnapshot rebuildSnapshot() {
+        TaskSnapshot current = snapshot.get();
+        if (current == null) {
+            current = TaskSnapshot.of(staleVersion + 1, tasks.values(), epics.values(), subTasks.values());
+            snapshot.set(current);
+        }
+        return current;
+    }
+
+    protected void publish(UnaryOperator<TaskSnapshot> change) {  // Устаревший снимок соберут заново, не обновляем.
+        snapshot.updateAndGet(current -> current == null ? null : change.apply(current));
+    }
+
+    protected void resetSnapshot() {  // Для массовой загрузки, минуя методы создания: снимок собирается лениво.
+        TaskSnapshot current = snapshot.getAndSet(null);
+        if (current != null) {
+            staleVersion = current.getVersion();
+        }
+    }
+
     @Override
     public List<Task> getPrioritizedTasks() {
         return new ArrayList<>(prioritizedTasks);
     }
 
-    private void addPrioritized(Task task) {
-        boolean isOverlapping = getPrioritizedTasks().stream()
-                .anyMatch(prioritizedTask -> tasksOverlap(prioritizedTask, task));
-        if (isOverlapping) {
-            throw new ValidationException("Tasks overlapping!");
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to, int limit) {  // По текущему снимку.
+        return snapshot().getPrioritizedTasks(from, to, limit);
+    }
+
+    @Override
+    public LocalDateTime findFreeSlot(LocalDateTime after, Duration duration) {  // По индексу промежутков снимка.
+        return snapshot().findFreeSlot(after, duration);
+    }
+
+    // Хуки календаря не вызывают друг друга, чтобы наследники могли оборачивать каждый в свою блокировку.
+    protected void addPrioritized(Task task) {
+        validatePrioritized(task);
+        prioritizedTasks.add(task);
+    }
+
+    protected void removePrioritized(Task task) {
+        if (task != null) {
+            prioritizedTasks.remove(task);
         }
+    }
+
+    protected void replacePrioritized(Task oldTask, Task newTask) {  // При ошибке валидации старая версия остаётся.
+        if (oldTask != null) {
+            prioritizedTasks.remove(oldTask);
+        }
+        try {
+            validatePrioritized(newTask);
+        } catch (ValidationException e) {
+            if (oldTask != null) {
+                prioritizedTasks.add(oldTask);
+            }
+            throw e;
+        }
+        prioritizedTasks.add(newTask);
+    }
+
+    private void validatePrioritized(Task task) {
         if (task.getStartTime() == null) {
             throw new ValidationException("Task start time is null!");
         }
-        prioritizedTasks.add(task);
+        if (hasOverlap(task)) {
+            throw new ValidationException("Tasks overlapping!");
+        }
+    }
+
+    // Задачи в prioritizedTasks не пересекаются, поэтому достаточно проверить ближайших соседей по времени старта.
+    private boolean hasOverlap(Task task) {
+        Task before = prioritizedTasks.floor(task);
+        if (before != null && tasksOverlap(before, task)) {
+            return true;
+        }
+        Task after = prioritizedTasks.ceiling(task);
+        return after != null && tasksOverlap(after, task);
     }
 
     private boolean tasksOverlap(Task task1, Task task2) {
@@ -79,29 +161,34 @@ public class InMemoryTaskManager implements TaskManager {
     @Override
     public void deleteAllTasks() {  // Удаление всех задач.
         tasks.keySet().forEach(historyManager::remove);
-        tasks.values().forEach(prioritizedTasks::remove);
+        tasks.values().forEach(this::removePrioritized);
         tasks.clear();
+        publish(TaskSnapshot::withoutTasks);
     }
 
     @Override
     public void deleteAllEpics() {
         epics.keySet().forEach(historyManager::remove);
         subTasks.keySet().forEach(historyManager::remove);
-        subTasks.values().forEach(prioritizedTasks::remove);
+        subTasks.values().forEach(this::removePrioritized);
         subTasks.clear();
         epics.clear();
+        publish(TaskSnapshot::withoutEpics);
     }
 
     @Override
     public void deleteAllSubTasks() {
         subTasks.keySet().forEach(historyManager::remove);
-        subTasks.values().forEach(prioritizedTasks::remove);
+        subTasks.values().forEach(this::removePrioritized);
         subTasks.clear();
         epics.values().forEach(epic -> {
             epic.removeAllTasks();
             updateEpicStatus(epic);
             recalculationOfEpicTime(epic);
         });
+        List<Epic> frozenEpics = new ArrayList<>(epics.size());
+        epics.values().forEach(epic -> frozenEpics.add(TaskSnapshot.freeze(epic)));
+        publish(current -> current.withoutSubTasks(frozenEpics));
     }
 
     @Override
@@ -129,29 +216,46 @@ public class InMemoryTaskManager implements TaskManager {
     @Override
     public Task createTask(Task task) {  // Создание. Сам объект должен передаваться в качестве параметра.
         task.setId(generateId());
-        tasks.put(task.getId(), task);
+        return insertTask(task);
+    }
+
+    // Создание задачи с уже выданным id: наследник может сначала взять блокировку по этому id.
+    protected Task insertTask(Task task) {
         addPrioritized(task);
+        tasks.put(task.getId(), task);
+        Task frozen = TaskSnapshot.freeze(task);
+        publish(current -> current.withTask(frozen));
         return task;
     }
 
     @Override
     public Epic createEpic(Epic epic) {
         epic.setId(generateId());
-        epics.put(epic.getId(), epic);
+        return insertEpic(epic);
+    }
+
+    protected Epic insertEpic(Epic epic) {  // Как insertTask.
         updateEpicStatus(epic);
         recalculationOfEpicTime(epic);
+        epics.put(epic.getId(), epic);
+        Epic frozen = TaskSnapshot.freeze(epic);
+        publish(current -> current.withEpic(frozen));
         return epic;
     }
 
     @Override
     public SubTask createSubTask(SubTask subTask) {
-        subTask.setId(generateId());
         Epic savedEpic = epics.get(subTask.getEpicId());
-        savedEpic.addTask(subTask.getId());
+        if (savedEpic == null) {
+            throw new IllegalStateException("Epic with id " + subTask.getEpicId() + " does not exist");
+        }
+        subTask.setId(generateId());
+        addPrioritized(subTask);
+        savedEpic.addTask(subTask);
         subTasks.put(subTask.getId(), subTask);
         updateEpicStatus(savedEpic);
         recalculationOfEpicTime(savedEpic);
-        addPrioritized(subTask);
+        publishSubTask(subTask, savedEpic);
         return subTask;
     }
 
@@ -162,9 +266,10 @@ public class InMemoryTaskManager implements TaskManager {
         if (savedTask == null) {
             throw new IllegalStateException("Task with id " + task.getId() + " does not exist");
         }
-        prioritizedTasks.remove(savedTask);
-        addPrioritized(task);
+        replacePrioritized(savedTask, task);
         tasks.put(task.getId(), task);
+        Task frozen = TaskSnapshot.freeze(task);
+        publish(current -> current.withTask(frozen));
     }
 
     @Override
@@ -173,8 +278,10 @@ public class InMemoryTaskManager implements TaskManager {
         if (savedEpic == null) {
             throw new IllegalStateException("Epic with id " + epic.getId() + " does not exist");
         }
-        savedEpic.setName(epic.getName());
-        savedEpic.setDescription(epic.getDescription());
+        savedEpic.setName(StringPool.intern(epic.getName()));
+        savedEpic.setDescription(StringPool.intern(epic.getDescription()));
+        Epic frozen = TaskSnapshot.freeze(savedEpic);
+        publish(current -> current.withEpic(frozen));
     }
 
     @Override
@@ -185,18 +292,26 @@ public class InMemoryTaskManager implements TaskManager {
             throw new IllegalStateException("Epic id " + epicId + " of subtask with id " +
                     subTask.getId() + " does not exist");
         }
-        prioritizedTasks.remove(subTasks.get(subTask.getId()));
-        addPrioritized(subTask);
+        replacePrioritized(subTasks.get(subTask.getId()), subTask);
         subTasks.put(subTask.getId(), subTask);
+        savedEpic.updateTask(subTask);
         updateEpicStatus(savedEpic);
         recalculationOfEpicTime(savedEpic);
+        publishSubTask(subTask, savedEpic);
+    }
+
+    private void publishSubTask(SubTask subTask, Epic epic) {  // Копии снимаются один раз, а не при каждом повторе.
+        SubTask frozen = TaskSnapshot.freeze(subTask);
+        Epic frozenEpic = TaskSnapshot.freeze(epic);
+        publish(current -> current.withSubTask(frozen, frozenEpic));
     }
 
     @Override
     public void deleteByIdTask(int id) {  // Удаление по идентификатору.
         Task taskToDelete = tasks.remove(id);
         historyManager.remove(id);
-        prioritizedTasks.remove(taskToDelete);
+        removePrioritized(taskToDelete);
+        publish(current -> current.withoutTask(id));
     }
 
     @Override
@@ -206,11 +321,12 @@ public class InMemoryTaskManager implements TaskManager {
             throw new IllegalStateException("Epic with id " + id + " does not exist");
         }
         historyManager.remove(savedEpic.getId());
-        for (Integer subTasksIds : savedEpic.getSubTasksIds()) {
-            SubTask subTaskToDelete = subTasks.remove(subTasksIds);
-            prioritizedTasks.remove(subTaskToDelete);
-            historyManager.remove(subTasksIds);
-        }
+        savedEpic.forEachSubTaskId(subTaskId -> {
+            SubTask subTaskToDelete = subTasks.remove(subTaskId);
+            removePrioritized(subTaskToDelete);
+            historyManager.remove(subTaskId);
+        });
+        publish(current -> current.withoutEpic(id));
     }
 
     @Override
@@ -225,7 +341,9 @@ public class InMemoryTaskManager implements TaskManager {
         savedEpic.removeTask(subTaskId);
         updateEpicStatus(savedEpic);
         recalculationOfEpicTime(savedEpic);
-        prioritizedTasks.remove(subTask);
+        removePrioritized(subTask);
+        Epic frozenEpic = TaskSnapshot.freeze(savedEpic);
+        publish(current -> current.withoutSubTask(id, frozenEpic));
     }
 
     @Override
@@ -234,58 +352,33 @@ public class InMemoryTaskManager implements TaskManager {
         if (savedEpic == null) {
             throw new IllegalStateException("Epic with id " + id + " does not exist");
         }
-        ArrayList<SubTask> subTaskArrayList = new ArrayList<>();
-        for (Integer subTaskId : savedEpic.getSubTasksIds()) {
-            subTaskArrayList.add(subTasks.get(subTaskId));
-        }
+        ArrayList<SubTask> subTaskArrayList = new ArrayList<>(savedEpic.getSubTasksCount());
+        savedEpic.forEachSubTaskId(subTaskId -> subTaskArrayList.add(subTasks.get(subTaskId)));
         return subTaskArrayList;
     }
 
-    private void updateEpicStatus(Epic epic) {  // Расчитывание статуса Эпика
-        if (epic.isEmpty() || isEpicAllNew(epic)) {
+    protected void updateEpicStatus(Epic epic) {  // Расчитывание статуса Эпика по счётчикам подзадач, O(1).
+        int count = epic.getSubTasksCount();
+        if (count == 0 || epic.getSubTasksCount(Status.NEW) == count) {
             epic.setStatus(Status.NEW);
-        } else if (isEpicAllDone(epic)) {
+        } else if (epic.getSubTasksCount(Status.DONE) == count) {
             epic.setStatus(Status.DONE);
         } else {
             epic.setStatus(Status.IN_PROGRESS);
         }
     }
 
-    private boolean isEpicAllDone(Epic epic) {
-        List<Integer> subTasksIdsOfEpic = epic.getSubTasksIds();
-        return subTasksIdsOfEpic.stream().allMatch(subTaskId -> Status.DONE.equals(subTasks.get(subTaskId).getStatus()));
-    }
-
-    private boolean isEpicAllNew(Epic epic) {
-        List<Integer> subTasksIdsOfEpic = epic.getSubTasksIds();
-        return subTasksIdsOfEpic.stream().allMatch(subTaskId -> Status.NEW.equals(subTasks.get(subTaskId).getStatus()));
-    }
-
-    protected void recalculationOfEpicTime(Epic epic) {
-        List<Integer> subTasksIds = epic.getSubTasksIds();
-        if (subTasksIds.isEmpty()) {
+    protected void recalculationOfEpicTime(Epic epic) {  // Границы берутся из сводки эпика за O(log k).
+        LocalDateTime startTime = epic.getSubTasksStartTime();
+        if (startTime == null) {
             LocalDateTime now = LocalDateTime.now();
             Duration duration = Duration.ofMinutes(15);
             epic.setStartTime(now);
             epic.setDuration(duration);
             epic.setEndTime(now.plus(duration));
         } else {
-            LocalDateTime maxTime = LocalDateTime.MAX;
-            LocalDateTime minTime = LocalDateTime.MIN;
-            for (Integer subTasksId : subTasksIds) {
-                SubTask subTask = subTasks.get(subTasksId);
-                LocalDateTime subTaskStartTime = subTask.getStartTime();
-                LocalDateTime subTaskEndTime = subTask.getEndTime();
-
-                if (subTaskStartTime.isBefore(maxTime)) {
-                    epic.setStartTime(subTaskStartTime);
-                    maxTime = subTaskStartTime;
-                }
-                if (subTaskEndTime.isAfter(minTime)) {
-                    epic.setEndTime(subTaskEndTime);
-                    minTime = subTaskEndTime;
-                }
-            }
+            epic.setStartTime(startTime);
+            epic.setEndTime(epic.getSubTasksEndTime());
         }
         Duration duration = Duration.between(epic.getStartTime(), epic.getEndTime());
         epic.setDuration(duration);
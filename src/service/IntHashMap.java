@@ -0,0 +1,382 @@
+package service;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/*
+ * Словарь int -> объект без упакованных ключей и узлов на каждую запись. Записи лежат подряд в int[] ключей
+ * и Object[] значений в порядке вставки, как в LinkedHashMap, поэтому обход идёт в порядке создания задач.
+ * Поиск идёт по отдельной таблице номеров записей с линейным пробированием; ключи перемешиваются
+ * (как в model.IntLinkedSet), иначе последовательные id образуют один сплошной кластер. Удаление сдвигает
+ * хвост кластера назад и оставляет в массиве записей дыру, дыры вычищаются, когда массив заполнится.
+ * Значения null не поддерживаются. Не потокобезопасен.
+ */
+final class IntHashMap<V> extends AbstractMap<Integer, V> implements IntMap<V> {
+    private static final int MIN_CAPACITY = 16;
+
+    private int[] index;  // Номер записи + 1, 0 - пустая ячейка. Вдвое больше массива записей.
+    private int[] keys;
+    private Object[] values;  // null - удалённая запись.
+    private int used;  // Занятые записи вместе с дырами.
+    private int size;
+    private int modCount;
+    private Set<Entry<Integer, V>> entrySet;
+    private Set<Integer> keySet;
+    private Collection<V> valuesView;
+
+    IntHashMap() {
+        allocate(MIN_CAPACITY);
+    }
+
+    private void allocate(int capacity) {
+        index = new int[capacity * 2];
+        keys = new int[capacity];
+        values = new Object[capacity];
+        used = 0;
+        size = 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public V get(int key) {
+        int slot = find(key);
+        return slot < 0 ? null : value(index[slot] - 1);
+    }
+
+    @Override
+    public V get(Object key) {
+        return key instanceof Integer id ? get(id.intValue()) : null;
+    }
+
+    @Override
+    public boolean containsKey(int key) {
+        return find(key) >= 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Integer id && containsKey(id.intValue());
+    }
+
+    @Override
+    public V put(int key, V value) {
+        Objects.requireNonNull(value, "Null values are not supported");
+        int slot = find(key);
+        if (slot >= 0) {  // Как в LinkedHashMap, замена значения не меняет порядок.
+            int entry = index[slot] - 1;
+            V previous = value(entry);
+            values[entry] = value;
+            return previous;
+        }
+        if (used == keys.length) {
+            rehash();
+        }
+        keys[used] = key;
+        values[used] = value;
+        insert(used++);
+        size++;
+        modCount++;
+        return null;
+    }
+
+    @Override
+    public V put(Integer key, V value) {
+        return put(key.intValue(), value);
+    }
+
+    @Override
+    public V remove(int key) {
+        int slot = find(key);
+        if (slot < 0) {
+            return null;
+        }
+        V previous = value(index[slot] - 1);
+        removeAt(slot);
+        return previous;
+    }
+
+    @Override
+    public V remove(Object key) {
+        return key instanceof Integer id ? remove(id.intValue()) : null;
+    }
+
+    @Override
+    public void clear() {
+        if (used > 0) {
+            allocate(MIN_CAPACITY);
+            modCount++;
+        }
+    }
+
+    public void forEachKey(IntConsumer action) {
+        for (int entry = 0; entry < used; entry++) {
+            if (values[entry] != null) {
+                action.accept(keys[entry]);
+            }
+        }
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super Integer, ? super V> action) {
+        for (int entry = 0; entry < used; entry++) {
+            if (values[entry] != null) {
+                action.accept(keys[entry], value(entry));
+            }
+        }
+    }
+
+    @Override
+    public Set<Integer> keySet() {
+        if (keySet == null) {
+            keySet = new AbstractSet<>() {
+                @Override
+                public Iterator<Integer> iterator() {
+                    return new EntryIterator<>() {
+                        @Override
+                        Integer element(int entry) {
+                            return keys[entry];
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+
+                @Override
+                public boolean contains(Object o) {
+                    return containsKey(o);
+                }
+
+                @Override
+                public void forEach(Consumer<? super Integer> action) {
+                    forEachKey(action::accept);
+                }
+            };
+        }
+        return keySet;
+    }
+
+    @Override
+    public Collection<V> values() {
+        if (valuesView == null) {
+            valuesView = new AbstractCollection<>() {
+                @Override
+                public Iterator<V> iterator() {
+                    return new EntryIterator<>() {
+                        @Override
+                        V element(int entry) {
+                            return value(entry);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+
+                @Override
+                public void forEach(Consumer<? super V> action) {
+                    for (int entry = 0; entry < used; entry++) {
+                        if (values[entry] != null) {
+                            action.accept(value(entry));
+                        }
+                    }
+                }
+            };
+        }
+        return valuesView;
+    }
+
+    @Override
+    public Set<Entry<Integer, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<Integer, V>> iterator() {
+                    return new EntryIterator<>() {
+                        @Override
+                        Entry<Integer, V> element(int entry) {
+                            return new IndexedEntry(entry);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    private int find(int key) {  // Ячейка таблицы с записью ключа или -1.
+        int mask = index.length - 1;
+        int slot = hash(key) & mask;
+        while (index[slot] != 0) {
+            if (keys[index[slot] - 1] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void insert(int entry) {
+        int mask = index.length - 1;
+        int slot = hash(keys[entry]) & mask;
+        while (index[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        index[slot] = entry + 1;
+    }
+
+    private void removeAt(int slot) {
+        values[index[slot] - 1] = null;
+        size--;
+        modCount++;
+        int mask = index.length - 1;
+        int gap = slot;
+        int next = (slot + 1) & mask;
+        while (index[next] != 0) {  // Сдвиг назад: без меток промахи не проходят по удалённым записям.
+            int home = hash(keys[index[next] - 1]) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                index[gap] = index[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        index[gap] = 0;
+    }
+
+    private void rehash() {  // Массив записей заполнен: выбрасываем дыры и, если нужно, растём.
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        int oldUsed = used;
+        int capacity = MIN_CAPACITY;
+        while (capacity < size * 2L) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+        for (int entry = 0; entry < oldUsed; entry++) {
+            if (oldValues[entry] != null) {
+                keys[used] = oldKeys[entry];
+                values[used] = oldValues[entry];
+                insert(used++);
+                size++;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private V value(int entry) {
+        return (V) values[entry];
+    }
+
+    private static int hash(int key) {
+        int hash = key * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private abstract class EntryIterator<E> implements Iterator<E> {
+        private final Object[] entries = values;
+        private final int end = used;
+        private int expectedModCount = modCount;
+        private int next = advance(0);
+        private int current = -1;
+
+        abstract E element(int entry);
+
+        private int advance(int from) {
+            while (from < end && entries[from] == null) {
+                from++;
+            }
+            return from;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < end;
+        }
+
+        @Override
+        public E next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next >= end) {
+                throw new NoSuchElementException();
+            }
+            current = next;
+            next = advance(next + 1);
+            return element(current);
+        }
+
+        @Override
+        public void remove() {
+            if (current < 0) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            removeAt(find(keys[current]));  // Записи не двигаются, поэтому порядок обхода не меняется.
+            expectedModCount = modCount;
+            current = -1;
+        }
+    }
+
+    private final class IndexedEntry implements Map.Entry<Integer, V> {
+        private final int entry;
+
+        IndexedEntry(int entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public Integer getKey() {
+            return keys[entry];
+        }
+
+        @Override
+        public V getValue() {
+            return value(entry);
+        }
+
+        @Override
+        public V setValue(V value) {
+            V previous = value(entry);
+            values[entry] = Objects.requireNonNull(value, "Null values are not supported");
+            return previous;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Map.Entry<?, ?> other && getKey().equals(other.getKey())
+                    && getValue().equals(other.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return getKey() ^ getValue().hashCode();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package service;
+
+import java.util.Map;
+
+/*
+ * Карта с ключами int: реестры задач менеджеров ищут по id без упаковки ключа (см. IntHashMap).
+ */
+interface IntMap<V> extends Map<Integer, V> {
+    V get(int key);
+
+    V put(int key, V value);
+
+    V remove(int key);
+
+    boolean containsKey(int key);
+}
@@ -1,12 +1,37 @@
 package service;
 
+import java.io.File;
+import java.time.Duration;
+
 public class Managers {
+    private static final int CONCURRENT_HISTORY_CAPACITY = 1000;
 
     public static TaskManager getDefaults() {
         return new FileBackedTaskManager(getDefaultHistory());
         //return new InMemoryTaskManager(getDefaultHistory());
     }
 
+    public static TaskManager getDefaults(DurabilityPolicy durabilityPolicy) {
+        return new FileBackedTaskManager(getDefaultHistory(), new File("resources", "tasks.csv"),
+                StorageMode.SNAPSHOT, durabilityPolicy);
+    }
+
+    public static TaskManager getConcurrent() {
+        return new ConcurrentTaskManager(getConcurrentHistory(CONCURRENT_HISTORY_CAPACITY));
+    }
+
+    public static HistoryManager getConcurrentHistory(int capacity) {
+        return new ConcurrentHistoryManager(capacity);
+    }
+
+    public static AsyncHistoryManager getAsyncHistory(int bufferCapacity, AsyncHistoryManager.OverflowPolicy policy) {
+        return new AsyncHistoryManager(getDefaultHistory(), bufferCapacity, policy);
+    }
+
+    public static HistoryManager getSessionHistory(int historyCapacity, int maxSessions, Duration idleTimeout) {
+        return new SessionHistoryManager(historyCapacity, maxSessions, idleTimeout);
+    }
+
     public static HistoryManager getDefaultHistory() {
         return new InMemoryHistoryManager();
     }
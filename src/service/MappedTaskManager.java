@@ -0,0 +1,446 @@
+package service;
+
+import model.Epic;
+import model.SubTask;
+import model.Task;
+import model.TaskType;
+import service.exception.ManagerSaveException;
+import service.exception.ValidationException;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/*
+ * Менеджер для очень больших досок: бинарный снимок отображается в память, задачи создаются только при
+ * обращении по id и держатся в ограниченном кэше. Наследники могут подставить другое хранилище через
+ * openStore, см. CompactTaskManager и OffHeapTaskManager.
+ * Доска в кучу не загружается: чтения, включая выборки по времени и поиск свободного времени, идут по
+ * хранилищу и его индексам, а изменения ложатся в StoreOverlay поверх него и дописываются в журнал, из
+ * которого доска и откроется в следующий раз. Снимок TaskSnapshot собирается только по вызову snapshot().
+ * Как и FileBackedTaskManager, изменения и чтения синхронизируются на самом менеджере.
+ * Вне рамок: журнал такой доски не сворачивается в файл снимка, это делает обычная загрузка
+ * FileBackedTaskManager. CSV-файл MappedTaskManager загружает целиком, как FileBackedTaskManager.
+ */
+public class MappedTaskManager extends FileBackedTaskManager {
+    private final File file;
+    private final int cacheCapacity;
+    private volatile StoreOverlay store;
+
+    public MappedTaskManager(HistoryManager historyManager, File file, int cacheCapacity) {
+        this(historyManager, file, SnapshotFormat.BINARY, cacheCapacity);
+    }
+
+    MappedTaskManager(HistoryManager historyManager, File file, SnapshotFormat snapshotFormat, int cacheCapacity) {
+        super(historyManager, file, StorageMode.SNAPSHOT, snapshotFormat, DurabilityPolicy.SYNC);
+        this.file = file;
+        this.cacheCapacity = cacheCapacity;
+    }
+
+    public static MappedTaskManager loadFromFileStatic(File file, int cacheCapacity) {
+        MappedTaskManager mappedTaskManager = new MappedTaskManager(Managers.getDefaultHistory(), file,
+                cacheCapacity);
+        mappedTaskManager.open();
+        return mappedTaskManager;
+    }
+
+    public boolean isMaterialized() {
+        return store == null;
+    }
+
+    void open() {
+        try {
+            store = openStore();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error occurred during mapping file, path: " + file.getAbsolutePath(), e);
+        }
+        if (store != null) {
+            seq = store.maxId();
+        }
+    }
+
+    // Возвращает хранилище с уже проигранным журналом или null, если доска загружена целиком.
+    StoreOverlay openStore() throws IOException {
+        if (detectFormat(file) != SnapshotFormat.BINARY) {
+            loadFromFile();  // CSV читается обычным способом.
+            return null;
+        }
+        StoreOverlay overlay = overlay(MappedTaskStore.open(file, cacheCapacity));
+        replayJournal(overlay);
+        overlay.recomputeEpics();
+        return overlay;
+    }
+
+    StoreOverlay overlay(TaskStore base) {
+        return new StoreOverlay(base, epic -> {
+            updateEpicStatus(epic);
+            recalculationOfEpicTime(epic);
+        });
+    }
+
+    @Override
+    public List<Task> getTasks() {
+        StoreOverlay store = this.store;
+        if (store == null) {
+            return super.getTasks();
+        }
+        synchronized (this) {
+            return store.getAll(TaskType.TASK);
+        }
+    }
+
+    @Override
+    public List<Epic> getEpics() {
+        StoreOverlay store = this.store;
+        if (store == null) {
+            return super.getEpics();
+        }
+        synchronized (this) {
+            return store.getAll(TaskType.EPIC);
+        }
+    }
+
+    @Override
+    public List<SubTask> getSubTasks() {
+        StoreOverlay store = this.store;
+        if (store == null) {
+            return super.getSubTasks();
+        }
+        synchronized (this) {
+            return store.getAll(TaskType.SUBTASK);
+        }
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        StoreOverlay store = this.store;
+        if (store == null) {
+            return super.getPrioritizedTasks();
+        }
+        List<Task> prioritized = new ArrayList<>();
+        synchronized (this) {
+            store.getSchedule(null).forEachRemaining(prioritized::add);
+        }
+        return prioritized;
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to, int limit) {
+        StoreOverlay store = this.store;
+        if (store == null) {
+            return super.getPrioritizedTasks(from, to, limit);
+        }
+        synchronized (this) {
+            return TaskSnapshot.range(store.getSchedule(from), store.getEpicSpans(from), from, to, limit);
+        }
+    }
+
+    @Override
+    public LocalDateTime findFreeSlot(LocalDateTime after, Duration duration) {
+        StoreOverlay store = this.store;
+        if (store == null) {
+            return super.findFreeSlot(after, duration);
+        }
+        if (after == null || duration == null || duration.isNegative()) {
+            throw new IllegalArgumentException("Slot start and non-negative duration are required");
+        }
+        synchronized (this) {
+            return GapIndex.scan(store.getSchedule(after), after, duration);
+        }
+    }
+
+    @Override
+    public Task getTask(int id) {
+        StoreOverlay store = this.store;
+        if (store == null) {
+            return super.getTask(id);
+        }
+        Task task;
+        synchronized (this) {
+            task = store.get(id, TaskType.TASK);
+        }
+        historyManager.add(task);
+        return task;
+    }
+
+    @Override
+    public Epic getEpic(int id) {
+        StoreOverlay store = this.store;
+        if (store == null) {
+            return super.getEpic(id);
+        }
+        Epic epic;
+        synchronized (this) {
+            epic = (Epic) store.get(id, TaskType.EPIC);
+        }
+        historyManager.add(epic);
+        return epic;
+    }
+
+    @Override
+    public SubTask getSubTask(int id) {
+        StoreOverlay store = this.store;
+        if (store == null) {
+            return super.getSubTask(id);
+        }
+        SubTask subTask;
+        synchronized (this) {
+            subTask = (SubTask) store.get(id, TaskType.SUBTASK);
+        }
+        historyManager.add(subTask);
+        return subTask;
+    }
+
+    @Override
+    public List<SubTask> getAllSubStacksByEpicId(int id) {
+        StoreOverlay store = this.store;
+        if (store == null) {
+            return super.getAllSubStacksByEpicId(id);
+        }
+        synchronized (this) {
+            if (store.get(id, TaskType.EPIC) == null) {
+                throw new IllegalStateException("Epic with id " + id + " does not exist");
+            }
+            ArrayList<SubTask> subTaskArrayList = new ArrayList<>();
+            for (Integer subTaskId : store.getSubTasksIds(id)) {
+                subTaskArrayList.add((SubTask) store.get(subTaskId, TaskType.SUBTASK));
+            }
+            return subTaskArrayList;
+        }
+    }
+
+    // Снимок доски в хранилище собирается при каждом вызове за O(n) и не кэшируется.
+    @Override
+    public TaskSnapshot snapshot() {
+        StoreOverlay store = this.store;
+        if (store == null) {
+            return super.snapshot();
+        }
+        synchronized (this) {
+            return TaskSnapshot.of(store.getVersion(), store.getAll(TaskType.TASK), store.<Epic>getAll(TaskType.EPIC),
+                    store.<SubTask>getAll(TaskType.SUBTASK));
+        }
+    }
+
+    @Override
+    public synchronized Task createTask(Task task) {
+        StoreOverlay store = this.store;
+        if (store == null) {
+            return super.createTask(task);
+        }
+        task.setId(generateId());
+        Task savedTask = plain(task);
+        validateSchedule(store, savedTask);
+        write(store, changes -> changes.put(savedTask));
+        return task;
+    }
+
+    @Override
+    public synchronized Epic createEpic(Epic epic) {
+        StoreOverlay store = this.store;
+        if (store == null) {
+            return super.createEpic(epic);
+        }
+        epic.setId(generateId());
+        updateEpicStatus(epic);
+        recalculationOfEpicTime(epic);
+        write(store, changes -> changes.put(epic));
+        return epic;
+    }
+
+    @Override
+    public synchronized SubTask createSubTask(SubTask subTask) {
+        StoreOverlay store = this.store;
+        if (store == null) {
+            return super.createSubTask(subTask);
+        }
+        if (store.editableEpic(subTask.getEpicId()) == null) {
+            throw new IllegalStateException("Epic with id " + subTask.getEpicId() + " does not exist");
+        }
+        subTask.setId(generateId());
+        validateSchedule(store, subTask);
+        write(store, changes -> changes.put(subTask));
+        return subTask;
+    }
+
+    @Override
+    public synchronized void updateTask(Task task) {
+        StoreOverlay store = this.store;
+        if (store == null) {
+            super.updateTask(task);
+            return;
+        }
+        if (store.get(task.getId(), TaskType.TASK) == null) {
+            throw new IllegalStateException("Task with id " + task.getId() + " does not exist");
+        }
+        validateSchedule(store, task);
+        write(store, changes -> changes.put(task));
+    }
+
+    @Override
+    public synchronized void updateEpic(Epic epic) {
+        StoreOverlay store = this.store;
+        if (store == null) {
+            super.updateEpic(epic);
+            return;
+        }
+        if (store.editableEpic(epic.getId()) == null) {
+            throw new IllegalStateException("Epic with id " + epic.getId() + " does not exist");
+        }
+        store.put(epic);
+        Epic savedEpic = store.editableEpic(epic.getId());
+        appendJournal(changes -> changes.put(savedEpic));
+    }
+
+    @Override
+    public synchronized void updateSubTask(SubTask subTask) {
+        StoreOverlay store = this.store;
+        if (store == null) {
+            super.updateSubTask(subTask);
+            return;
+        }
+        Integer epicId = subTask.getEpicId();
+        if (store.editableEpic(epicId) == null) {
+            throw new IllegalStateException("Epic id " + epicId + " of subtask with id " +
+                    subTask.getId() + " does not exist");
+        }
+        validateSchedule(store, subTask);
+        write(store, changes -> changes.put(subTask));
+    }
+
+    @Override
+    public synchronized void deleteByIdTask(int id) {
+        StoreOverlay store = this.store;
+        if (store == null) {
+            super.deleteByIdTask(id);
+            return;
+        }
+        historyManager.remove(id);
+        if (store.get(id, TaskType.TASK) != null) {
+            write(store, changes -> changes.delete(TaskType.TASK, id));
+        }
+    }
+
+    @Override
+    public synchronized void deleteByIdEpic(int id) {
+        StoreOverlay store = this.store;
+        if (store == null) {
+            super.deleteByIdEpic(id);
+            return;
+        }
+        Epic savedEpic = store.editableEpic(id);
+        if (savedEpic == null) {
+            throw new IllegalStateException("Epic with id " + id + " does not exist");
+        }
+        int[] subTasksIds = savedEpic.getSubTasksIdsArray();
+        historyManager.remove(id);
+        for (int subTaskId : subTasksIds) {
+            historyManager.remove(subTaskId);
+        }
+        write(store, changes -> {
+            for (int subTaskId : subTasksIds) {
+                changes.delete(TaskType.SUBTASK, subTaskId);
+            }
+            changes.delete(TaskType.EPIC, id);
+        });
+    }
+
+    @Override
+    public synchronized void deleteByIdSubTask(int id) {
+        StoreOverlay store = this.store;
+        if (store == null) {
+            super.deleteByIdSubTask(id);
+            return;
+        }
+        if (store.get(id, TaskType.SUBTASK) == null) {
+            throw new IllegalStateException("Subtask with id " + id + " does not exist");
+        }
+        historyManager.remove(id);
+        write(store, changes -> changes.delete(TaskType.SUBTASK, id));
+    }
+
+    @Override
+    public synchronized void deleteAllTasks() {
+        StoreOverlay store = this.store;
+        if (store == null) {
+            super.deleteAllTasks();
+            return;
+        }
+        removeFromHistory(EnumSet.of(TaskType.TASK));
+        write(store, changes -> changes.clear(TaskType.TASK));
+    }
+
+    @Override
+    public synchronized void deleteAllEpics() {
+        StoreOverlay store = this.store;
+        if (store == null) {
+            super.deleteAllEpics();
+            return;
+        }
+        removeFromHistory(EnumSet.of(TaskType.EPIC, TaskType.SUBTASK));
+        write(store, changes -> changes.clear(TaskType.EPIC));
+    }
+
+    @Override
+    public synchronized void deleteAllSubTasks() {
+        StoreOverlay store = this.store;
+        if (store == null) {
+            super.deleteAllSubTasks();
+            return;
+        }
+        removeFromHistory(EnumSet.of(TaskType.SUBTASK));
+        write(store, changes -> changes.clear(TaskType.SUBTASK));
+    }
+
+    private void write(StoreOverlay store, Consumer<TaskChanges> change) {
+        change.accept(store);
+        appendJournal(change);
+    }
+
+    // В истории только просмотренные задачи, поэтому обходится она, а не вся доска.
+    private void removeFromHistory(Set<TaskType> types) {
+        for (Task task : historyManager.getHistory()) {
+            if (types.contains(task.getType())) {
+                historyManager.remove(task.getId());
+            }
+        }
+    }
+
+    // Как в InMemoryTaskManager, createTask заводит обычную задачу, даже если передана подзадача.
+    private static Task plain(Task task) {
+        if (task.getType() == TaskType.TASK) {
+            return task;
+        }
+        Task plainTask = new Task(task.getName(), task.getDescription(), task.getStartTime(), task.getDuration());
+        plainTask.setId(task.getId());
+        plainTask.setStatus(task.getStatus());
+        return plainTask;
+    }
+
+    /* Проверка пересечений по расписанию хранилища: начиная с последней задачи, стартующей раньше новой,
+       и пока задачи стартуют раньше её окончания. Прежняя версия самой задачи не учитывается. */
+    private static void validateSchedule(TaskStore store, Task task) {
+        if (task.getStartTime() == null) {
+            throw new ValidationException("Task start time is null!");
+        }
+        LocalDateTime start = task.getStartTime();
+        LocalDateTime end = task.getEndTime();
+        Iterator<Task> schedule = store.getSchedule(start);
+        while (schedule.hasNext()) {
+            Task other = schedule.next();
+            if (!other.getStartTime().isBefore(end)) {
+                break;
+            }
+            if (!other.getId().equals(task.getId()) && other.getEndTime().isAfter(start)) {
+                throw new ValidationException("Tasks overlapping!");
+            }
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package service;
+
+import converter.BinaryTaskConverter;
+import model.Epic;
+import model.Task;
+import model.TaskType;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.*;
+
+// Бинарный снимок, отображённый в память: в куче только индекс id -> смещение и ограниченный кэш задач.
+class MappedTaskStore implements TaskStore {
+    private static final TaskType[] TYPES = TaskType.values();
+
+    private final MappedByteBuffer buffer;
+    private final long[] ids;          // (id << 32) | номер записи, отсортировано по id.
+    private final int[] offsets;       // Номер записи -> смещение в файле.
+    private final byte[] types;        // Номер записи -> TaskType.ordinal().
+    private final long[] epicLinks;    // (id эпика << 32) | id подзадачи, отсортировано.
+    private final Map<Integer, Task> cache;
+    private final StartIndex schedule;
+    private final StartIndex epicSpans;
+    private final int longestEpic;     // Самый длинный эпик с подзадачами, в минутах.
+
+    private MappedTaskStore(MappedByteBuffer buffer, long[] ids, int[] offsets, byte[] types, long[] epicLinks,
+                            int cacheCapacity) {
+        this.buffer = buffer;
+        this.ids = ids;
+        this.offsets = offsets;
+        this.types = types;
+        this.epicLinks = epicLinks;
+        StartIndex.Starts starts = new StartIndex.Starts() {
+            @Override
+            public int minute(int record) {
+                return buffer.getInt(offsets[record] + BinaryTaskConverter.START_MINUTE_OFFSET);
+            }
+
+            @Override
+            public int second(int record) {
+                return buffer.get(offsets[record] + BinaryTaskConverter.START_SECOND_OFFSET);
+            }
+
+            @Override
+            public int nano(int record) {
+                return buffer.getInt(offsets[record] + BinaryTaskConverter.START_NANO_OFFSET);
+            }
+
+            @Override
+            public int id(int record) {
+                return buffer.getInt(offsets[record] + BinaryTaskConverter.ID_OFFSET);
+            }
+        };
+        long[] scheduled = new long[offsets.length];
+        long[] spans = new long[offsets.length];
+        int scheduledCount = 0;
+        int spansCount = 0;
+        int longest = 0;
+        for (int record = 0; record < offsets.length; record++) {
+            int minute = starts.minute(record);
+            if (minute == BinaryTaskConverter.NULL_TIME) {
+                continue;
+            }
+            if (TYPES[types[record]] != TaskType.EPIC) {
+                scheduled[scheduledCount++] = StartIndex.key(minute, record);
+                continue;
+            }
+            int duration = buffer.getInt(offsets[record] + BinaryTaskConverter.DURATION_OFFSET);
+            if (duration != BinaryTaskConverter.NULL && hasSubTasks(starts.id(record))) {
+                spans[spansCount++] = StartIndex.key(minute, record);
+                longest = Math.max(longest, duration);
+            }
+        }
+        this.schedule = StartIndex.build(scheduled, scheduledCount, starts, false);
+        this.epicSpans = StartIndex.build(spans, spansCount, starts, false);
+        this.longestEpic = longest;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Task> eldest) {
+                return size() > cacheCapacity;
+            }
+        };
+    }
+
+    public static MappedTaskStore open(File file, int cacheCapacity) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot is too large to be mapped: " + channel.size() + " bytes");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        BinaryTaskConverter.readHeader(buffer.duplicate());
+
+        int count = 0;
+        int links = 0;
+        long[] ids = new long[1024];
+        int[] offsets = new int[1024];
+        byte[] types = new byte[1024];
+        long[] epicLinks = new long[1024];
+        int offset = BinaryTaskConverter.HEADER_SIZE;
+        while (offset + BinaryTaskConverter.RECORD_HEADER_SIZE <= buffer.limit()) {
+            int size = buffer.getInt(offset);
+            if (count == offsets.length) {
+                ids = Arrays.copyOf(ids, count * 2);
+                offsets = Arrays.copyOf(offsets, count * 2);
+                types = Arrays.copyOf(types, count * 2);
+            }
+            int id = buffer.getInt(offset + BinaryTaskConverter.ID_OFFSET);
+            byte type = buffer.get(offset + BinaryTaskConverter.TYPE_OFFSET);
+            ids[count] = (long) id << 32 | count;
+            offsets[count] = offset;
+            types[count] = type;
+            if (TYPES[type] == TaskType.SUBTASK) {
+                if (links == epicLinks.length) {
+                    epicLinks = Arrays.copyOf(epicLinks, links * 2);
+                }
+                epicLinks[links++] = (long) buffer.getInt(offset + BinaryTaskConverter.EPIC_OFFSET) << 32 | id;
+            }
+            count++;
+            offset += BinaryTaskConverter.RECORD_HEADER_SIZE + size;
+        }
+        ids = Arrays.copyOf(ids, count);
+        epicLinks = Arrays.copyOf(epicLinks, links);
+        Arrays.sort(ids);
+        Arrays.sort(epicLinks);
+        return new MappedTaskStore(buffer, ids, Arrays.copyOf(offsets, count), Arrays.copyOf(types, count),
+                epicLinks, cacheCapacity);
+    }
+
+    @Override
+    public int maxId() {
+        return ids.length == 0 ? 0 : (int) (ids[ids.length - 1] >>> 32);
+    }
+
+    @Override
+    public synchronized Task get(int id, TaskType type) {
+        int record = find(id);
+        if (record < 0 || TYPES[types[record]] != type) {
+            return null;
+        }
+        Task task = cache.get(id);
+        if (task == null) {
+            task = materialize(record);
+            cache.put(id, task);
+        }
+        return task;
+    }
+
+    // Обходит все записи типа, не вытесняя из кэша горячие задачи.
+    @Override
+    public synchronized <T extends Task> List<T> getAll(TaskType type) {
+        List<T> result = new ArrayList<>();
+        for (int record = 0; record < offsets.length; record++) {
+            if (TYPES[types[record]] != type) {
+                continue;
+            }
+            int id = buffer.getInt(offsets[record] + BinaryTaskConverter.ID_OFFSET);
+            Task task = cache.get(id);
+            @SuppressWarnings("unchecked")
+            T typed = (T) (task != null ? task : materialize(record));
+            result.add(typed);
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized List<Integer> getSubTasksIds(int epicId) {
+        List<Integer> result = new ArrayList<>();
+        for (int i = lowerBound(epicLinks, (long) epicId << 32); i < epicLinks.length
+                && (int) (epicLinks[i] >>> 32) == epicId; i++) {
+            result.add((int) epicLinks[i]);
+        }
+        return result;
+    }
+
+    // Обход не трогает кэш и не держит блокировку: буфер и индексы после открытия только читаются.
+    @Override
+    public Iterator<Task> getSchedule(LocalDateTime from) {
+        return schedule.iterator(from == null ? 0 : schedule.lastBefore(from), this::materialize);
+    }
+
+    @Override
+    public Iterator<Epic> getEpicSpans(LocalDateTime from) {
+        return epicSpans.iterator(from == null ? 0 : epicSpans.lowerBound(from.minusMinutes(longestEpic)),
+                record -> (Epic) materialize(record));
+    }
+
+    private boolean hasSubTasks(int epicId) {
+        int i = lowerBound(epicLinks, (long) epicId << 32);
+        return i < epicLinks.length && (int) (epicLinks[i] >>> 32) == epicId;
+    }
+
+    private Task materialize(int record) {
+        Task task = BinaryTaskConverter.read(buffer.duplicate().position(offsets[record]));
+        if (task instanceof Epic epic) {
+            getSubTasksIds(epic.getId()).forEach(epic::addTask);
+        }
+        return task;
+    }
+
+    private int find(int id) {
+        int i = lowerBound(ids, (long) id << 32);
+        return i < ids.length && (int) (ids[i] >>> 32) == id ? (int) ids[i] : -1;
+    }
+
+    private static int lowerBound(long[] array, long key) {
+        int i = Arrays.binarySearch(array, key);
+        return i >= 0 ? i : -i - 1;
+    }
+}
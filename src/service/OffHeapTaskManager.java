@@ -0,0 +1,40 @@
+package service;
+
+import model.StringPool;
+
+import java.io.File;
+import java.io.IOException;
+
+/*
+ * Менеджер, который держит доску вне кучи (см. OffHeapTaskStore), чтобы большие доски не раздували кучу
+ * и паузы сборщика. Снимок и журнал читаются потоком прямо в хранилище, не создавая карт задач.
+ * Изменения, как и у MappedTaskManager, ложатся в StoreOverlay поверх хранилища и дописываются в журнал.
+ * Вне рамок: сами изменения лежат в куче до следующего открытия доски.
+ */
+public class OffHeapTaskManager extends MappedTaskManager {
+    private static final StringPool NO_POOL = new StringPool(false, 0);  // Строки всё равно копируются вне кучи.
+
+    private final File file;
+
+    public OffHeapTaskManager(HistoryManager historyManager, File file) {
+        super(historyManager, file, detectFormat(file), 0);
+        this.file = file;
+    }
+
+    public static OffHeapTaskManager loadFromFileStatic(File file) {
+        OffHeapTaskManager offHeapTaskManager = new OffHeapTaskManager(Managers.getDefaultHistory(), file);
+        offHeapTaskManager.open();
+        return offHeapTaskManager;
+    }
+
+    @Override
+    StoreOverlay openStore() throws IOException {
+        OffHeapTaskStore store = new OffHeapTaskStore();
+        if (file.exists()) {
+            SnapshotFiles.read(file, NO_POOL, store::append);
+        }
+        replayJournal(store.replay());
+        store.seal();
+        return overlay(store);
+    }
+}
@@ -0,0 +1,423 @@
+package service;
+
+import model.Epic;
+import model.Status;
+import model.SubTask;
+import model.Task;
+import model.TaskType;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/*
+ * Доска вне кучи: записи фиксированной длины лежат в прямых буферах блоками по RECORDS_PER_CHUNK,
+ * имена и описания - в отдельной области текста (UTF-8). В куче остаются только сами буферы.
+ * Запись: id, тип, статус, секунда начала, id эпика, минута начала от эпохи, наносекунды начала,
+ * длительность в минутах, смещение и длина имени, смещение и длина описания.
+ * Сначала записи добавляются через append или проигрываются из журнала через replay(): каждая версия задачи
+ * ложится отдельной записью. Затем seal оставляет последние версии (см. StoreReplay), пересчитывает эпики
+ * и строит индексы по id, по эпикам и по времени, после чего хранилище только читается и может использоваться
+ * из нескольких потоков. Место вытесненных версий в буферах не освобождается.
+ */
+class OffHeapTaskStore implements TaskStore {
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final Status[] STATUSES = Status.values();
+    private static final int NULL = -1;
+    private static final int NULL_TIME = Integer.MIN_VALUE;
+
+    private static final int ID = 0;
+    private static final int TYPE = 4;
+    private static final int STATUS = 5;
+    private static final int START_SECOND = 6;
+    private static final int EPIC = 8;
+    private static final int START_MINUTE = 12;
+    private static final int START_NANO = 16;
+    private static final int DURATION = 20;
+    private static final int NAME = 24;
+    private static final int NAME_LENGTH = 32;
+    private static final int DESCRIPTION = 36;
+    private static final int DESCRIPTION_LENGTH = 44;
+    private static final int RECORD_SIZE = 48;
+
+    private static final int CHUNK_SHIFT = 18;
+    private static final int RECORDS_PER_CHUNK = 1 << CHUNK_SHIFT;
+    private static final int INITIAL_RECORDS = 1024;
+    private static final int INITIAL_TEXT_SIZE = 1 << 16;
+    private static final int TEXT_CHUNK_SIZE = 1 << 24;
+
+    private final List<ByteBuffer> records = new ArrayList<>();
+    private final List<ByteBuffer> text = new ArrayList<>();
+    private int count;              // Все записи, включая вытесненные версии.
+    private int size;               // Живые записи, по одной на id.
+    private int links;
+    private StoreReplay replay = new StoreReplay(new Records());
+    private ByteBuffer index;       // Номера живых записей по возрастанию id.
+    private ByteBuffer epicLinks;   // (id эпика << 32) | id подзадачи, по возрастанию.
+    private StartIndex schedule = StartIndex.EMPTY;    // Оба индекса по времени - тоже в прямых буферах.
+    private StartIndex epicSpans = StartIndex.EMPTY;
+    private int longestEpic;        // Самый длинный эпик с подзадачами, в минутах.
+
+    TaskChanges replay() {  // Изменения снимка и журнала до seal.
+        if (replay == null) {
+            throw new IllegalStateException("Store is already sealed");
+        }
+        return replay;
+    }
+
+    public void append(Task task) {
+        replay().put(task);
+    }
+
+    private void put(Task task) {
+        int base = (count & (RECORDS_PER_CHUNK - 1)) * RECORD_SIZE;
+        ByteBuffer chunk = recordChunk(base);
+        chunk.putInt(base + ID, task.getId());
+        chunk.put(base + TYPE, (byte) task.getType().ordinal());
+        chunk.put(base + STATUS, (byte) task.getStatus().ordinal());
+        Integer epicId = task.getEpicId();
+        chunk.putInt(base + EPIC, epicId == null ? NULL : epicId);
+        LocalDateTime startTime = task.getStartTime();
+        if (startTime == null) {
+            chunk.putInt(base + START_MINUTE, NULL_TIME);
+        } else {
+            long epochSecond = startTime.toEpochSecond(ZoneOffset.UTC);
+            chunk.putInt(base + START_MINUTE, Math.toIntExact(Math.floorDiv(epochSecond, 60)));
+            chunk.put(base + START_SECOND, (byte) Math.floorMod(epochSecond, 60));
+            chunk.putInt(base + START_NANO, startTime.getNano());
+        }
+        Duration duration = task.getDuration();
+        chunk.putInt(base + DURATION, duration == null ? NULL : Math.toIntExact(duration.toMinutes()));
+        putString(chunk, base + NAME, base + NAME_LENGTH, task.getName());
+        putString(chunk, base + DESCRIPTION, base + DESCRIPTION_LENGTH, task.getDescription());
+        count++;
+    }
+
+    // Индексы строятся в куче и переносятся в прямые буферы, после чего массивы отпускаются.
+    public void seal() {
+        StoreReplay replay = this.replay;
+        if (replay == null) {
+            throw new IllegalStateException("Store is already sealed");
+        }
+        int[] live = replay.live();  // Уже по возрастанию id.
+        replay.recomputeEpics(live);
+        this.replay = null;
+        long[] byEpic = new long[live.length];
+        int link = 0;
+        ByteBuffer index = ByteBuffer.allocateDirect(live.length * Integer.BYTES);
+        for (int i = 0; i < live.length; i++) {
+            int record = live[i];
+            index.putInt(i * Integer.BYTES, record);
+            if (TYPES[getByte(record, TYPE)] == TaskType.SUBTASK) {
+                byEpic[link++] = (long) getInt(record, EPIC) << 32 | getInt(record, ID);
+            }
+        }
+        Arrays.sort(byEpic, 0, link);
+        ByteBuffer epicLinks = ByteBuffer.allocateDirect(link * Long.BYTES);
+        for (int i = 0; i < link; i++) {
+            epicLinks.putLong(i * Long.BYTES, byEpic[i]);
+        }
+        this.size = live.length;
+        this.links = link;
+        this.epicLinks = epicLinks;
+        this.index = index;
+        indexStarts(live);
+    }
+
+    private void indexStarts(int[] live) {
+        StartIndex.Starts starts = new StartIndex.Starts() {
+            @Override
+            public int minute(int record) {
+                return getInt(record, START_MINUTE);
+            }
+
+            @Override
+            public int second(int record) {
+                return getByte(record, START_SECOND);
+            }
+
+            @Override
+            public int nano(int record) {
+                return getInt(record, START_NANO);
+            }
+
+            @Override
+            public int id(int record) {
+                return getInt(record, ID);
+            }
+        };
+        long[] scheduled = new long[live.length];
+        long[] spans = new long[live.length];
+        int scheduledCount = 0;
+        int spansCount = 0;
+        for (int record : live) {
+            int minute = getInt(record, START_MINUTE);
+            if (minute == NULL_TIME) {
+                continue;
+            }
+            if (TYPES[getByte(record, TYPE)] != TaskType.EPIC) {
+                scheduled[scheduledCount++] = StartIndex.key(minute, record);
+            } else if (getInt(record, DURATION) != NULL && hasSubTasks(getInt(record, ID))) {
+                spans[spansCount++] = StartIndex.key(minute, record);
+                longestEpic = Math.max(longestEpic, getInt(record, DURATION));
+            }
+        }
+        schedule = StartIndex.build(scheduled, scheduledCount, starts, true);
+        epicSpans = StartIndex.build(spans, spansCount, starts, true);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getOffHeapBytes() {
+        long bytes = 0;
+        for (ByteBuffer chunk : records) {
+            bytes += chunk.capacity();
+        }
+        for (ByteBuffer chunk : text) {
+            bytes += chunk.capacity();
+        }
+        return bytes + (index == null ? 0 : index.capacity()) + (epicLinks == null ? 0 : epicLinks.capacity());
+    }
+
+    @Override
+    public int maxId() {
+        return size == 0 ? 0 : getInt(index.getInt((size - 1) * Integer.BYTES), ID);
+    }
+
+    @Override
+    public Task get(int id, TaskType type) {
+        int record = find(id);
+        return record < 0 || TYPES[getByte(record, TYPE)] != type ? null : view(record);
+    }
+
+    @Override
+    public <T extends Task> List<T> getAll(TaskType type) {
+        List<T> result = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            int record = index.getInt(i * Integer.BYTES);
+            if (TYPES[getByte(record, TYPE)] == type) {
+                @SuppressWarnings("unchecked")
+                T typed = (T) view(record);
+                result.add(typed);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Integer> getSubTasksIds(int epicId) {
+        List<Integer> result = new ArrayList<>();
+        for (int i = firstLink(epicId); i < links; i++) {
+            long link = epicLinks.getLong(i * Long.BYTES);
+            if ((int) (link >>> 32) != epicId) {
+                break;
+            }
+            result.add((int) link);
+        }
+        return result;
+    }
+
+    @Override
+    public Iterator<Task> getSchedule(LocalDateTime from) {
+        return schedule.iterator(from == null ? 0 : schedule.lastBefore(from), this::view);
+    }
+
+    @Override
+    public Iterator<Epic> getEpicSpans(LocalDateTime from) {
+        return epicSpans.iterator(from == null ? 0 : epicSpans.lowerBound(from.minusMinutes(longestEpic)),
+                record -> (Epic) view(record));
+    }
+
+    private int firstLink(int epicId) {
+        long key = (long) epicId << 32;
+        int low = 0;
+        int high = links;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (epicLinks.getLong(middle * Long.BYTES) < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private boolean hasSubTasks(int epicId) {
+        int i = firstLink(epicId);
+        return i < links && (int) (epicLinks.getLong(i * Long.BYTES) >>> 32) == epicId;
+    }
+
+    private Task view(int record) {
+        int id = getInt(record, ID);
+        String name = getString(record, NAME, NAME_LENGTH);
+        String description = getString(record, DESCRIPTION, DESCRIPTION_LENGTH);
+        int startMinute = getInt(record, START_MINUTE);
+        LocalDateTime startTime = startMinute == NULL_TIME ? null
+                : LocalDateTime.ofEpochSecond(startMinute * 60L + getByte(record, START_SECOND),
+                getInt(record, START_NANO), ZoneOffset.UTC);
+        int durationMinutes = getInt(record, DURATION);
+        Duration duration = durationMinutes == NULL ? null : Duration.ofMinutes(durationMinutes);
+        Task task = switch (TYPES[getByte(record, TYPE)]) {
+            case TASK -> new Task(name, description, startTime, duration);
+            case EPIC -> {
+                Epic epic = new Epic(name, description);
+                epic.setId(id);
+                epic.setStartTime(startTime);
+                epic.setDuration(duration);
+                if (startTime != null && duration != null) {
+                    epic.setEndTime(startTime.plus(duration));
+                }
+                getSubTasksIds(id).forEach(epic::addTask);
+                yield epic;
+            }
+            case SUBTASK -> new SubTask(name, description, getInt(record, EPIC), startTime, duration);
+        };
+        task.setId(id);
+        task.setStatus(STATUSES[getByte(record, STATUS)]);
+        return task;
+    }
+
+    private int find(int id) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int record = index.getInt(middle * Integer.BYTES);
+            int middleId = getInt(record, ID);
+            if (middleId < id) {
+                low = middle + 1;
+            } else if (middleId > id) {
+                high = middle - 1;
+            } else {
+                return record;
+            }
+        }
+        return -1;
+    }
+
+    // Последний блок записей растёт удвоением до RECORDS_PER_CHUNK, дальше добавляются новые блоки.
+    private ByteBuffer recordChunk(int base) {
+        if (base == 0 && (count >>> CHUNK_SHIFT) == records.size()) {
+            records.add(ByteBuffer.allocateDirect(INITIAL_RECORDS * RECORD_SIZE));
+        }
+        ByteBuffer chunk = records.getLast();
+        if (base == chunk.capacity()) {
+            ByteBuffer grown = ByteBuffer.allocateDirect(Math.min(chunk.capacity() * 2,
+                    RECORDS_PER_CHUNK * RECORD_SIZE));
+            grown.put(0, chunk, 0, chunk.capacity());
+            records.set(records.size() - 1, grown);
+            chunk = grown;
+        }
+        return chunk;
+    }
+
+    private int getInt(int record, int field) {
+        return records.get(record >>> CHUNK_SHIFT).getInt((record & (RECORDS_PER_CHUNK - 1)) * RECORD_SIZE + field);
+    }
+
+    private byte getByte(int record, int field) {
+        return records.get(record >>> CHUNK_SHIFT).get((record & (RECORDS_PER_CHUNK - 1)) * RECORD_SIZE + field);
+    }
+
+    // Смещение строки в области текста: (номер блока << 32) | позиция в блоке.
+    private void putString(ByteBuffer chunk, int offsetField, int lengthField, String string) {
+        if (string == null) {
+            chunk.putInt(lengthField, NULL);
+            return;
+        }
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer textChunk = text.isEmpty() ? null : text.getLast();
+        if (textChunk == null || textChunk.remaining() < bytes.length) {
+            int size = textChunk == null ? INITIAL_TEXT_SIZE : Math.min(textChunk.capacity() * 2, TEXT_CHUNK_SIZE);
+            textChunk = ByteBuffer.allocateDirect(Math.max(size, bytes.length));
+            text.add(textChunk);
+        }
+        chunk.putLong(offsetField, (long) (text.size() - 1) << 32 | textChunk.position());
+        chunk.putInt(lengthField, bytes.length);
+        textChunk.put(bytes);
+    }
+
+    private String getString(int record, int offsetField, int lengthField) {
+        int length = getInt(record, lengthField);
+        if (length == NULL) {
+            return null;
+        }
+        long offset = records.get(record >>> CHUNK_SHIFT)
+                .getLong((record & (RECORDS_PER_CHUNK - 1)) * RECORD_SIZE + offsetField);
+        byte[] bytes = new byte[length];
+        text.get((int) (offset >>> 32)).get((int) offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private final class Records implements StoreReplay.Records {
+        @Override
+        public void append(Task task) {
+            put(task);
+        }
+
+        @Override
+        public int count() {
+            return count;
+        }
+
+        @Override
+        public int id(int record) {
+            return getInt(record, ID);
+        }
+
+        @Override
+        public int type(int record) {
+            return getByte(record, TYPE);
+        }
+
+        @Override
+        public int status(int record) {
+            return getByte(record, STATUS);
+        }
+
+        @Override
+        public int epicId(int record) {
+            return getInt(record, EPIC);
+        }
+
+        @Override
+        public int minute(int record) {
+            return getInt(record, START_MINUTE);
+        }
+
+        @Override
+        public int second(int record) {
+            return getByte(record, START_SECOND);
+        }
+
+        @Override
+        public int nano(int record) {
+            return getInt(record, START_NANO);
+        }
+
+        @Override
+        public int duration(int record) {
+            return getInt(record, DURATION);
+        }
+
+        @Override
+        public void setEpic(int record, int status, int minute, int second, int nano, int duration) {
+            ByteBuffer chunk = records.get(record >>> CHUNK_SHIFT);
+            int base = (record & (RECORDS_PER_CHUNK - 1)) * RECORD_SIZE;
+            chunk.put(base + STATUS, (byte) status);
+            chunk.putInt(base + START_MINUTE, minute);
+            chunk.put(base + START_SECOND, (byte) second);
+            chunk.putInt(base + START_NANO, nano);
+            chunk.putInt(base + DURATION, duration);
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package service;
+
+import model.Task;
+import model.TaskType;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/*
+ * Хранилище из сегментов: отдельный файл на каждый тип задач и диапазон из SEGMENT_SIZE идентификаторов.
+ * Изменение помечает грязным только свой сегмент, при сбросе переписываются лишь грязные сегменты.
+ * Сброс атомарен для всех сегментов сразу: грязные сегменты пишутся в новые файлы с номером поколения,
+ * затем через переименование подменяется манифест со списком текущих файлов, и только после этого
+ * удаляются заменённые файлы. Загрузка читает файлы из манифеста, поэтому прерванный сброс оставляет
+ * прежнее состояние, а его недописанные файлы удаляются. Каталог без манифеста читается целиком.
+ * Сброс идёт в два шага: drain под замком менеджера копирует задачи грязных сегментов, а write пишет их
+ * уже без замка. Сбросы выполняются по одному (см. CommitScheduler).
+ */
+class SegmentStore implements TaskChanges {
+    static final int SEGMENT_SIZE = 4096;
+    static final String MANIFEST = "manifest";
+
+    private final File directory;
+    private final SnapshotFormat format;
+    private final Function<TaskType, Map<Integer, ? extends Task>> source;
+    private final Set<Long> known = new HashSet<>();  // Непустые сегменты с учётом ещё не записанных.
+    private final Set<Long> dirty = new HashSet<>();
+    private final TreeMap<Long, String> existing = new TreeMap<>();  // Записанный файл каждого сегмента.
+    private long generation;
+
+    SegmentStore(File directory, SnapshotFormat format, Function<TaskType, Map<Integer, ? extends Task>> source) {
+        this.directory = directory;
+        this.format = format;
+        this.source = source;
+    }
+
+    public void load(Consumer<Task> consumer) throws IOException {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        File manifest = new File(directory, MANIFEST);
+        Set<String> listed = manifest.exists()
+                ? new HashSet<>(Files.readAllLines(manifest.toPath(), StandardCharsets.UTF_8)) : null;
+        for (File segment : files) {
+            String name = segment.getName();
+            Long key = parseKey(name);
+            if (key == null) {
+                continue;
+            }
+            if (listed != null && !listed.contains(name)) {
+                Files.delete(segment.toPath());  // Остался от прерванного сброса.
+                continue;
+            }
+            existing.put(key, name);  // По типу и диапазону id, то есть в порядке создания.
+            known.add(key);
+            generation = Math.max(generation, parseGeneration(name));
+        }
+        for (String name : existing.values()) {
+            SnapshotFiles.read(new File(directory, name), consumer);
+        }
+    }
+
+    @Override
+    public void put(Task task) {
+        dirty.add(key(task.getType(), task.getId() / SEGMENT_SIZE));
+    }
+
+    @Override
+    public void delete(TaskType type, int id) {
+        dirty.add(key(type, id / SEGMENT_SIZE));
+    }
+
+    @Override
+    public void clear(TaskType type) {
+        for (Long key : known) {
+            TaskType segmentType = typeOf(key);
+            if (segmentType == type || (type == TaskType.EPIC && segmentType == TaskType.SUBTASK)) {
+                dirty.add(key);
+            }
+        }
+    }
+
+    public void markAll() {
+        dirty.addAll(known);
+        for (TaskType type : TaskType.values()) {
+            for (Integer id : source.apply(type).keySet()) {
+                dirty.add(key(type, id / SEGMENT_SIZE));
+            }
+        }
+    }
+
+    public void flush(boolean fsync) throws IOException {
+        write(drain(), fsync);
+    }
+
+    // Под замком менеджера: копии задач грязных сегментов по ключу, пустой список - сегмент удалён.
+    public Map<Long, List<Task>> drain() {
+        Map<Long, List<Task>> segments = new HashMap<>();
+        for (long key : dirty) {
+            int index = (int) key;
+            Map<Integer, ? extends Task> tasks = source.apply(typeOf(key));
+            List<Task> segmentTasks = new ArrayList<>();
+            for (int id = index * SEGMENT_SIZE; id < (index + 1) * SEGMENT_SIZE; id++) {
+                Task task = tasks.get(id);
+                if (task != null) {
+                    segmentTasks.add(TaskSnapshot.freeze(task));
+                }
+            }
+            segments.put(key, segmentTasks);
+            if (segmentTasks.isEmpty()) {
+                known.remove(key);
+            } else {
+                known.add(key);
+            }
+        }
+        dirty.clear();
+        return segments;
+    }
+
+    // Под замком менеджера: сегменты несостоявшегося сброса будут записаны следующим.
+    public void markDirty(Collection<Long> keys) {
+        dirty.addAll(keys);
+    }
+
+    public void write(Map<Long, List<Task>> segments, boolean fsync) throws IOException {
+        if (segments.isEmpty()) {
+            return;
+        }
+        if (!directory.isDirectory()) {
+            Files.createDirectories(directory.toPath());
+        }
+        long next = generation + 1;
+        TreeMap<Long, String> current = new TreeMap<>(existing);
+        List<String> replaced = new ArrayList<>();
+        for (Map.Entry<Long, List<Task>> segment : segments.entrySet()) {
+            long key = segment.getKey();
+            String previous;
+            if (segment.getValue().isEmpty()) {
+                previous = current.remove(key);
+            } else {
+                String name = fileName(typeOf(key), (int) key, next, format);
+                SnapshotFiles.write(new File(directory, name), format, fsync, segment.getValue());
+                previous = current.put(key, name);
+            }
+            if (previous != null) {
+                replaced.add(previous);
+            }
+        }
+        writeManifest(current.values(), fsync);
+        generation = next;
+        existing.clear();
+        existing.putAll(current);
+        for (String name : replaced) {
+            Files.deleteIfExists(new File(directory, name).toPath());
+        }
+    }
+
+    private void writeManifest(Collection<String> names, boolean fsync) throws IOException {
+        File tempFile = new File(directory, MANIFEST + ".tmp");
+        try (FileOutputStream output = new FileOutputStream(tempFile);
+             Writer writer = new OutputStreamWriter(output, StandardCharsets.UTF_8)) {
+            for (String name : names) {
+                writer.write(name);
+                writer.write('\n');
+            }
+            writer.flush();
+            if (fsync) {
+                output.getChannel().force(false);
+            }
+        }
+        Files.move(tempFile.toPath(), new File(directory, MANIFEST).toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // type-index.generation.csv; файлы без поколения записаны до появления манифеста.
+    private static String fileName(TaskType type, int index, long generation, SnapshotFormat format) {
+        return type.name().toLowerCase() + "-" + index + "." + generation
+                + (format == SnapshotFormat.BINARY ? ".bin" : ".csv");
+    }
+
+    private static Long parseKey(String name) {
+        int dash = name.indexOf('-');
+        int dot = name.indexOf('.', dash + 1);
+        if (dash < 0 || dot < 0 || !(name.endsWith(".csv") || name.endsWith(".bin"))) {
+            return null;  // Манифест, временные и посторонние файлы.
+        }
+        try {
+            TaskType type = TaskType.valueOf(name.substring(0, dash).toUpperCase());
+            parseGeneration(name);
+            return key(type, Integer.parseInt(name.substring(dash + 1, dot)));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static long parseGeneration(String name) {
+        int first = name.indexOf('.', name.indexOf('-') + 1);
+        int last = name.lastIndexOf('.');
+        return first == last ? 0 : Long.parseLong(name.substring(first + 1, last));
+    }
+
+    private static long key(TaskType type, int index) {
+        return (long) type.ordinal() << 32 | index;
+    }
+
+    private static TaskType typeOf(long key) {
+        return TaskType.values()[(int) (key >>> 32)];
+    }
+}
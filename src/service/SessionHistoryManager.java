@@ -0,0 +1,193 @@
+package service;
+
+import model.Task;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/*
+ * История, разделённая по клиентам. Ключ сессии привязывается к потоку запроса (см. server.SessionFilter),
+ * без ключа используется общая сессия DEFAULT_SESSION.
+ * Сессии лежат в нескольких шардах со своими блокировками, блокировка шарда держится только на поиск сессии,
+ * а сама история сессии - ограниченная ConcurrentHistoryManager, так что разные сессии не мешают друг другу.
+ * Сессии без обращений дольше idleTimeout и сверх maxSessions вытесняются, начиная с самых давних.
+ * remove не обходит сессии: он записывает id под очередным номером версии, а каждая сессия при следующем
+ * обращении убирает из своей истории задачи, удалённые после её последней сверки: берётся только этот
+ * хвост записей, а не все удаления. Когда записей становится много, все сессии сверяются разом и старые
+ * записи отбрасываются.
+ */
+public class SessionHistoryManager implements ThreadSafeHistoryManager {
+    public static final String DEFAULT_SESSION = "";
+    private static final int SHARDS = 16;
+    private static final int PRUNE_THRESHOLD = 1024;
+    private static final ThreadLocal<String> CURRENT_SESSION = ThreadLocal.withInitial(() -> DEFAULT_SESSION);
+
+    private final int historyCapacity;
+    private final int maxSessionsPerShard;
+    private final long idleTimeoutNanos;
+    private final LongSupplier clock;
+    private final Shard[] shards = new Shard[SHARDS];
+    private final int pruneThreshold;
+    // Версия удаления -> id удалённой задачи. Пишется под removeLock, version меняется после записи.
+    private final ConcurrentSkipListMap<Long, Integer> removed = new ConcurrentSkipListMap<>();
+    private final Object removeLock = new Object();
+    private volatile int removedCount;  // size() у removed - обход всех записей.
+    private final AtomicBoolean pruning = new AtomicBoolean();
+    private volatile long version;
+
+    public SessionHistoryManager(int historyCapacity, int maxSessions, Duration idleTimeout) {
+        this(historyCapacity, maxSessions, idleTimeout, System::nanoTime);
+    }
+
+    SessionHistoryManager(int historyCapacity, int maxSessions, Duration idleTimeout, LongSupplier clock) {
+        if (maxSessions < 1) {
+            throw new IllegalArgumentException("Session limit should be positive");
+        }
+        this.historyCapacity = historyCapacity;
+        this.maxSessionsPerShard = Math.max(1, (maxSessions + SHARDS - 1) / SHARDS);
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.clock = clock;
+        this.pruneThreshold = PRUNE_THRESHOLD + maxSessions;
+        for (int i = 0; i < SHARDS; i++) {
+            shards[i] = new Shard();
+        }
+    }
+
+    public static void setCurrentSession(String session) {
+        CURRENT_SESSION.set(session == null ? DEFAULT_SESSION : session);
+    }
+
+    public static void clearCurrentSession() {
+        CURRENT_SESSION.remove();
+    }
+
+    public int getSessionCount() {
+        int count = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                count += shard.sessions.size();
+            }
+        }
+        return count;
+    }
+
+    int getRemovedCount() {
+        return removedCount;
+    }
+
+    @Override
+    public void add(Task task) {
+        if (task != null) {
+            Session session = session(CURRENT_SESSION.get(), true);
+            sync(session);
+            session.history.add(task);
+        }
+    }
+
+    @Override
+    public void remove(int id) {  // Задача удалена: сессии уберут её из истории при следующем обращении.
+        synchronized (removeLock) {
+            long next = version + 1;
+            removed.put(next, id);
+            removedCount++;
+            version = next;
+        }
+        if (removedCount > pruneThreshold && pruning.compareAndSet(false, true)) {
+            try {
+                prune();
+            } finally {
+                pruning.set(false);
+            }
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        Session session = session(CURRENT_SESSION.get(), false);
+        if (session == null) {
+            return new ArrayList<>();
+        }
+        sync(session);
+        return session.history.getHistory();
+    }
+
+    // Убирает задачи, удалённые после прошлой сверки сессии. Без новых удалений блокировка не берётся.
+    private void sync(Session session) {
+        if (session.synced == version) {
+            return;
+        }
+        synchronized (session) {
+            long current = version;
+            removed.subMap(session.synced, false, current, true).values().forEach(session.history::remove);
+            session.synced = current;
+        }
+    }
+
+    // Все сессии сверяются до версии pruned, после чего записи не новее неё больше никому не нужны.
+    private void prune() {
+        long pruned = version;
+        for (Shard shard : shards) {
+            List<Session> sessions;
+            synchronized (shard) {
+                sessions = new ArrayList<>(shard.sessions.values());
+            }
+            sessions.forEach(this::sync);
+        }
+        synchronized (removeLock) {
+            removed.headMap(pruned, true).clear();
+            removedCount = removed.size();
+        }
+    }
+
+    private Session session(String key, boolean create) {
+        Shard shard = shards[(key.hashCode() & 0x7fffffff) % SHARDS];
+        long now = clock.getAsLong();
+        synchronized (shard) {
+            evictIdle(shard, now);
+            Session session = shard.sessions.get(key);  // Обращение переносит сессию в конец порядка.
+            if (session == null) {
+                if (!create) {
+                    return null;
+                }
+                if (shard.sessions.size() >= maxSessionsPerShard) {
+                    Iterator<Session> eldest = shard.sessions.values().iterator();
+                    eldest.next();
+                    eldest.remove();
+                }
+                session = new Session(new ConcurrentHistoryManager(historyCapacity), version);
+                shard.sessions.put(key, session);
+            }
+            session.lastAccess = now;
+            return session;
+        }
+    }
+
+    private void evictIdle(Shard shard, long now) {
+        Iterator<Session> eldest = shard.sessions.values().iterator();
+        while (eldest.hasNext() && now - eldest.next().lastAccess >= idleTimeoutNanos) {
+            eldest.remove();
+        }
+    }
+
+    private static final class Session {
+        final HistoryManager history;
+        long lastAccess;  // Меняется только под блокировкой шарда.
+        volatile long synced;  // Версия удалений, с которой сверена история. Пишется под блокировкой сессии.
+
+        Session(HistoryManager history, long synced) {
+            this.history = history;
+            this.synced = synced;
+        }
+    }
+
+    private static final class Shard {
+        // Порядок по последнему обращению: первой идёт самая давняя сессия.
+        final LinkedHashMap<String, Session> sessions = new LinkedHashMap<>(16, 0.75f, true);
+    }
+}
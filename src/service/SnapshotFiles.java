@@ -0,0 +1,175 @@
+package service;
+
+import converter.BinaryTaskConverter;
+import converter.TaskCsvReader;
+import converter.TaskCsvWriter;
+import model.StringPool;
+import model.Task;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+// Чтение и запись файлов снимка в форматах CSV и BINARY.
+class SnapshotFiles {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final long PARALLEL_LOAD_THRESHOLD = 1 << 20;
+
+    public static SnapshotFormat detectFormat(File file) throws IOException {
+        if (!file.exists() || file.length() < BinaryTaskConverter.HEADER_SIZE) {
+            return SnapshotFormat.CSV;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+            channel.read(header);
+            header.flip();
+            return BinaryTaskConverter.isHeader(header) ? SnapshotFormat.BINARY : SnapshotFormat.CSV;
+        }
+    }
+
+    public static void read(File file, Consumer<Task> consumer) throws IOException {
+        read(file, StringPool.getDefault(), consumer);
+    }
+
+    // pool объединяет одинаковые имена и описания прочитанных задач.
+    public static void read(File file, StringPool pool, Consumer<Task> consumer) throws IOException {
+        if (detectFormat(file) == SnapshotFormat.BINARY) {
+            readBinary(file, pool, consumer);
+        } else {
+            readCsv(file, pool, consumer);
+        }
+    }
+
+    // Пишет во временный файл и атомарно подменяет им file.
+    @SafeVarargs
+    public static void write(File file, SnapshotFormat format, boolean fsync,
+                             Collection<? extends Task>... groups) throws IOException {
+        File tempFile = new File(file.getPath() + ".tmp");
+        if (format == SnapshotFormat.BINARY) {
+            writeBinary(tempFile, fsync, groups);
+        } else {
+            writeCsv(tempFile, fsync, groups);
+        }
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void readCsv(File file, StringPool pool, Consumer<Task> consumer) throws IOException {
+        long size = file.length();
+        if (size >= PARALLEL_LOAD_THRESHOLD && size <= Integer.MAX_VALUE
+                && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            readCsvParallel(file, pool, consumer);
+            return;
+        }
+        try (Reader reader = new FileReader(file, StandardCharsets.UTF_8)) {
+            TaskCsvReader csvReader = new TaskCsvReader(reader, pool);
+            csvReader.skipLine();
+            Task task;
+            while ((task = csvReader.next()) != null) {
+                consumer.accept(task);
+            }
+        }
+    }
+
+    // Файл делится на куски по границам строк, куски разбираются параллельно и отдаются consumer по порядку.
+    private static void readCsvParallel(File file, StringPool pool, Consumer<Task> consumer) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        int limit = buffer.limit();
+        int start = nextLine(buffer, 0);
+        int chunkSize = Math.max(1, (limit - start) / (ForkJoinPool.getCommonPoolParallelism() * 4));
+        List<int[]> chunks = new ArrayList<>();
+        while (start < limit) {
+            int end = nextLine(buffer, Math.min(limit, start + chunkSize));
+            chunks.add(new int[]{start, end});
+            start = end;
+        }
+        List<List<Task>> parsed = chunks.parallelStream()
+                .map(chunk -> parseChunk(buffer, chunk[0], chunk[1], pool))
+                .toList();
+        parsed.forEach(chunk -> chunk.forEach(consumer));
+    }
+
+    private static int nextLine(ByteBuffer buffer, int position) {
+        while (position < buffer.limit()) {
+            if (buffer.get(position++) == '\n') {
+                break;
+            }
+        }
+        return position;
+    }
+
+    private static List<Task> parseChunk(ByteBuffer buffer, int from, int to, StringPool pool) {
+        CharBuffer chars = StandardCharsets.UTF_8.decode(buffer.slice(from, to - from));
+        TaskCsvReader csvReader = new TaskCsvReader(new CharArrayReader(chars.array(), chars.arrayOffset(),
+                chars.limit()), pool);
+        List<Task> chunk = new ArrayList<>();
+        try {
+            Task task;
+            while ((task = csvReader.next()) != null) {
+                chunk.add(task);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);  // CharArrayReader не бросает IOException.
+        }
+        return chunk;
+    }
+
+    private static void readBinary(File file, StringPool pool, Consumer<Task> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            BinaryTaskConverter.readAll(channel, ByteBuffer.allocate(BUFFER_SIZE), pool, consumer);
+        }
+    }
+
+    @SafeVarargs
+    private static void writeCsv(File target, boolean fsync, Collection<? extends Task>... groups)
+            throws IOException {
+        try (FileOutputStream output = new FileOutputStream(target);
+             BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8),
+                     BUFFER_SIZE)) {
+            TaskCsvWriter csvWriter = new TaskCsvWriter(writer);
+            csvWriter.writeHeader();
+            for (Collection<? extends Task> group : groups) {
+                for (Task task : group) {
+                    csvWriter.write(task);
+                }
+            }
+            if (fsync) {
+                writer.flush();
+                output.getChannel().force(false);
+            }
+        }
+    }
+
+    @SafeVarargs
+    private static void writeBinary(File target, boolean fsync, Collection<? extends Task>... groups)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(target.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            BinaryTaskConverter.writeHeader(buffer);
+            for (Collection<? extends Task> group : groups) {
+                for (Task task : group) {
+                    BinaryTaskConverter.write(task, buffer, channel);
+                }
+            }
+            BinaryTaskConverter.drain(buffer, channel);
+            if (fsync) {
+                channel.force(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package service;
+
+public enum SnapshotFormat {
+    CSV,     // Текстовый формат TaskCsvWriter.
+    BINARY   // Компактный формат BinaryTaskConverter.
+}
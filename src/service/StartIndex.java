@@ -0,0 +1,126 @@
+package service;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.IntFunction;
+
+/*
+ * Номера записей хранилища по возрастанию времени старта (затем id), чтобы выборки по времени шли прямо
+ * по записям, без задач в куче. Время - как в бинарном снимке: минута от эпохи, секунда, наносекунды.
+ * Сортируются ключи (минута << 32) | запись, записи с одинаковой минутой затем досортировываются по остальному.
+ */
+final class StartIndex {
+    static final StartIndex EMPTY = new StartIndex(IntBuffer.allocate(0), null);
+
+    interface Starts {  // Поля записи, по которым идёт сортировка.
+        int minute(int record);
+
+        int second(int record);
+
+        int nano(int record);
+
+        int id(int record);
+    }
+
+    private final IntBuffer order;
+    private final Starts starts;
+
+    private StartIndex(IntBuffer order, Starts starts) {
+        this.order = order;
+        this.starts = starts;
+    }
+
+    // keys - (минута << 32) | номер записи для первых count записей, массив будет отсортирован на месте.
+    static StartIndex build(long[] keys, int count, Starts starts, boolean direct) {
+        Arrays.sort(keys, 0, count);
+        IntBuffer order = direct ? ByteBuffer.allocateDirect(count * Integer.BYTES).asIntBuffer()
+                : IntBuffer.allocate(count);
+        Comparator<Integer> byRest = Comparator.<Integer>comparingInt(starts::second)
+                .thenComparingInt(starts::nano)
+                .thenComparingInt(starts::id);
+        int runStart = 0;
+        while (runStart < count) {
+            int runEnd = runStart + 1;
+            while (runEnd < count && keys[runEnd] >> 32 == keys[runStart] >> 32) {
+                runEnd++;
+            }
+            if (runEnd - runStart == 1) {
+                order.put(runStart, (int) keys[runStart]);
+            } else {
+                Integer[] run = new Integer[runEnd - runStart];
+                for (int i = 0; i < run.length; i++) {
+                    run[i] = (int) keys[runStart + i];
+                }
+                Arrays.sort(run, byRest);
+                for (int i = 0; i < run.length; i++) {
+                    order.put(runStart + i, run[i]);
+                }
+            }
+            runStart = runEnd;
+        }
+        return new StartIndex(order, starts);
+    }
+
+    static long key(int minute, int record) {
+        return (long) minute << 32 | record & 0xFFFFFFFFL;
+    }
+
+    int size() {
+        return order.limit();
+    }
+
+    int lowerBound(LocalDateTime time) {  // Первая позиция со стартом не раньше time.
+        long epochSecond = time.toEpochSecond(ZoneOffset.UTC);
+        long minute = Math.floorDiv(epochSecond, 60);
+        int second = Math.floorMod(epochSecond, 60);
+        int nano = time.getNano();
+        int low = 0;
+        int high = size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int record = order.get(middle);
+            int compare = Long.compare(starts.minute(record), minute);
+            if (compare == 0) {
+                compare = Integer.compare(starts.second(record), second);
+            }
+            if (compare == 0) {
+                compare = Integer.compare(starts.nano(record), nano);
+            }
+            if (compare < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    int lastBefore(LocalDateTime time) {  // Последняя позиция со стартом раньше time, или начало индекса.
+        return Math.max(lowerBound(time) - 1, 0);
+    }
+
+    <T> Iterator<T> iterator(int from, IntFunction<T> view) {  // Задачи создаются по одной при обходе.
+        return new Iterator<>() {
+            private int position = from;
+
+            @Override
+            public boolean hasNext() {
+                return position < size();
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return view.apply(order.get(position++));
+            }
+        };
+    }
+}
@@ -0,0 +1,7 @@
+package service;
+
+public enum StorageMode {
+    SNAPSHOT,  // Каждое изменение полностью перезаписывает файл.
+    JOURNAL,   // Каждое изменение дописывает одну запись в журнал, файл периодически пересобирается в фоне.
+    SEGMENTED  // Задачи лежат в сегментах по типу и диапазону id, переписываются только изменённые сегменты.
+}
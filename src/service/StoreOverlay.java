@@ -0,0 +1,351 @@
+package service;
+
+import model.Epic;
+import model.Status;
+import model.SubTask;
+import model.Task;
+import model.TaskType;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/*
+ * Изменения ленивой доски поверх хранилища только для чтения (см. MappedTaskManager). Само хранилище и его
+ * индексы не трогаются: новые и изменённые задачи лежат здесь по id, удалённые отмечены меткой, а очистка
+ * типа прячет все его записи в хранилище. Эпик, подзадачи которого менялись, переносится сюда вместе
+ * с множеством id подзадач и дальше пересчитывается по своей сводке, как в InMemoryTaskManager.
+ * Куча растёт с числом изменённых задач и подзадачами изменённых эпиков, а не с размером доски.
+ * Наружу отдаются копии. Не потокобезопасен.
+ */
+final class StoreOverlay implements TaskStore, TaskChanges {
+    private static final Comparator<Task> BY_START_TIME = Comparator.comparing(Task::getStartTime)
+            .thenComparing(Task::getId);
+    private static final Task REMOVED = new Task(null, null);
+
+    private final TaskStore base;
+    private final Consumer<Epic> recompute;  // Статус и время эпика по его подзадачам.
+    private final IntHashMap<Task> changed = new IntHashMap<>();  // Новые версии записей хранилища или REMOVED.
+    private final IntHashMap<Task> created = new IntHashMap<>();  // Задачи, которых в хранилище нет.
+    private final NavigableSet<Task> schedule = new TreeSet<>(BY_START_TIME);  // Задачи и подзадачи отсюда.
+    private final boolean[] hidden = new boolean[TaskType.values().length];  // Записи типа в хранилище очищены.
+    private LocalDateTime subTasksClearedAt;  // Время эпиков хранилища, оставшихся без подзадач.
+    private int maxId;
+    private long version;
+
+    StoreOverlay(TaskStore base, Consumer<Epic> recompute) {
+        this.base = base;
+        this.recompute = recompute;
+        this.maxId = base.maxId();
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    @Override
+    public int maxId() {
+        return maxId;
+    }
+
+    @Override
+    public Task get(int id, TaskType type) {
+        Task task = local(id);
+        if (task == null) {
+            return hidden[type.ordinal()] ? null : stored(base.get(id, type));
+        }
+        return task != REMOVED && task.getType() == type ? copy(task) : null;
+    }
+
+    @Override
+    public <T extends Task> List<T> getAll(TaskType type) {
+        List<T> result = new ArrayList<>();
+        if (!hidden[type.ordinal()]) {
+            for (Task task : base.getAll(type)) {
+                Task local = changed.get(task.getId().intValue());
+                if (local != REMOVED) {
+                    result.add(cast(local == null ? stored(task) : copy(local)));
+                }
+            }
+        }
+        for (Task task : created.values()) {
+            if (task.getType() == type) {
+                result.add(cast(copy(task)));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Integer> getSubTasksIds(int epicId) {  // Подзадачи эпика меняются только вместе с ним самим.
+        Task local = local(epicId);
+        if (local != null) {
+            return local instanceof Epic epic ? epic.getSubTasksIds() : List.of();
+        }
+        return hidden[TaskType.SUBTASK.ordinal()] ? List.of() : base.getSubTasksIds(epicId);
+    }
+
+    @Override
+    public Iterator<Task> getSchedule(LocalDateTime from) {
+        Iterator<Task> own;
+        if (from == null) {
+            own = schedule.iterator();
+        } else {
+            Task before = schedule.lower(TaskSnapshot.probe(from));
+            own = schedule.tailSet(before != null ? before : TaskSnapshot.probe(from), true).iterator();
+        }
+        return new Merge<>(visible(base.getSchedule(from)), own);
+    }
+
+    // Изменённых эпиков немного, поэтому их интервалы сортируются при каждом запросе.
+    @Override
+    public Iterator<Epic> getEpicSpans(LocalDateTime from) {
+        List<Epic> own = new ArrayList<>();
+        Consumer<Task> collect = task -> {
+            if (task instanceof Epic epic && !epic.isEmpty() && epic.getStartTime() != null) {
+                own.add(epic);
+            }
+        };
+        changed.values().forEach(collect);
+        created.values().forEach(collect);
+        own.sort(BY_START_TIME);
+        Iterator<Epic> stored = hidden[TaskType.SUBTASK.ordinal()] ? List.<Epic>of().iterator()
+                : visible(base.getEpicSpans(from));
+        return new Merge<>(stored, own.iterator());
+    }
+
+    // Эпик, который можно менять: из хранилища он переносится сюда вместе с подзадачами, O(k).
+    Epic editableEpic(int id) {
+        Task local = local(id);
+        if (local != null) {
+            return local instanceof Epic epic ? epic : null;
+        }
+        if (hidden[TaskType.EPIC.ordinal()]) {
+            return null;
+        }
+        Epic epic = TaskSnapshot.freeze((Epic) stored(base.get(id, TaskType.EPIC)));
+        if (epic == null) {
+            return null;
+        }
+        if (!hidden[TaskType.SUBTASK.ordinal()]) {
+            for (Integer subTaskId : base.getSubTasksIds(id)) {
+                epic.addTask((SubTask) base.get(subTaskId, TaskType.SUBTASK));
+            }
+        }
+        changed.put(id, epic);
+        return epic;
+    }
+
+    void recomputeEpics() {  // После журнала: эпики, как и при обычной загрузке, пересчитываются заново.
+        changed.values().forEach(this::recompute);
+        created.values().forEach(this::recompute);
+    }
+
+    @Override
+    public void put(Task task) {
+        version++;
+        switch (task.getType()) {
+            case TASK -> store(TaskSnapshot.freeze(task));
+            case EPIC -> {
+                Epic epic = editableEpic(task.getId());
+                if (epic == null) {
+                    store(task);  // Новый эпик, как в InMemoryTaskManager, хранится тем же объектом.
+                } else {  // Как updateEpic: статус и время эпика считаются по подзадачам.
+                    epic.setName(task.getName());
+                    epic.setDescription(task.getDescription());
+                }
+            }
+            case SUBTASK -> {
+                Epic epic = editableEpic(task.getEpicId());
+                if (epic == null) {
+                    throw new IllegalStateException("Epic with id " + task.getEpicId() + " does not exist");
+                }
+                SubTask subTask = TaskSnapshot.freeze((SubTask) task);
+                store(subTask);
+                epic.addTask(subTask);
+                recompute.accept(epic);
+            }
+        }
+    }
+
+    @Override
+    public void delete(TaskType type, int id) {
+        Task task = local(id);
+        if (task == null && (hidden[type.ordinal()] || base.get(id, type) == null)
+                || task != null && (task == REMOVED || task.getType() != type)) {
+            return;
+        }
+        version++;
+        if (type == TaskType.SUBTASK) {
+            SubTask subTask = task != null ? (SubTask) task : (SubTask) base.get(id, type);
+            Epic epic = editableEpic(subTask.getEpicId());
+            if (epic != null) {
+                epic.removeTask(id);
+                recompute.accept(epic);
+            }
+        }
+        if (task != null) {
+            schedule.remove(task);
+        }
+        if (created.remove(id) == null) {
+            changed.put(id, REMOVED);
+        }
+    }
+
+    @Override
+    public void clear(TaskType type) {
+        version++;
+        hide(type);
+        if (type == TaskType.EPIC) {
+            hide(TaskType.SUBTASK);
+        } else if (type == TaskType.SUBTASK) {
+            subTasksClearedAt = LocalDateTime.now();
+            Consumer<Task> clearEpic = task -> {
+                if (task instanceof Epic epic) {
+                    epic.removeAllTasks();
+                    recompute.accept(epic);
+                }
+            };
+            changed.values().forEach(clearEpic);
+            created.values().forEach(clearEpic);
+        }
+    }
+
+    private void hide(TaskType type) {
+        hidden[type.ordinal()] = true;
+        Predicate<Task> ofType = task -> task.getType() == type && task != REMOVED;
+        schedule.removeIf(ofType);
+        changed.values().removeIf(ofType);
+        created.values().removeIf(ofType);
+    }
+
+    private void store(Task task) {  // task - собственная копия или новый эпик.
+        int id = task.getId();
+        Task previous = local(id);
+        if (previous != null && previous != REMOVED) {
+            schedule.remove(previous);
+        }
+        if (created.containsKey(id) || previous == null && (hidden[task.getType().ordinal()]
+                || base.get(id, task.getType()) == null)) {
+            created.put(id, task);
+        } else {
+            changed.put(id, task);
+        }
+        if (task.getType() != TaskType.EPIC && task.getStartTime() != null) {
+            schedule.add(task);
+        }
+        maxId = Math.max(maxId, id);
+    }
+
+    private void recompute(Task task) {
+        if (task instanceof Epic epic) {
+            recompute.accept(epic);
+        }
+    }
+
+    private Task local(int id) {
+        Task task = created.get(id);
+        return task != null ? task : changed.get(id);
+    }
+
+    // Запись хранилища как она видна сейчас: после удаления всех подзадач эпики хранилища пусты.
+    private Task stored(Task task) {
+        if (!(task instanceof Epic epic) || !hidden[TaskType.SUBTASK.ordinal()]) {
+            return task;
+        }
+        Epic empty = TaskSnapshot.freeze(epic);
+        empty.setStatus(Status.NEW);
+        empty.setStartTime(subTasksClearedAt);
+        empty.setDuration(Duration.ofMinutes(15));
+        empty.setEndTime(subTasksClearedAt.plusMinutes(15));
+        return empty;
+    }
+
+    // Записи хранилища, которые здесь не изменены и не спрятаны очисткой.
+    private <T extends Task> Iterator<T> visible(Iterator<T> stored) {
+        return new Iterator<>() {
+            private T next = advance();
+
+            private T advance() {
+                while (stored.hasNext()) {
+                    T task = stored.next();
+                    if (!hidden[task.getType().ordinal()] && changed.get(task.getId().intValue()) == null) {
+                        return task;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public T next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                T task = next;
+                next = advance();
+                return task;
+            }
+        };
+    }
+
+    private static Task copy(Task task) {
+        Task copy = TaskSnapshot.freeze(task);
+        if (task instanceof Epic epic) {
+            epic.forEachSubTaskId(((Epic) copy)::addTask);
+        }
+        return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends Task> T cast(Task task) {
+        return (T) task;
+    }
+
+    // Слияние записей хранилища и собственных задач по времени старта; собственные отдаются копиями.
+    private static final class Merge<T extends Task> implements Iterator<T> {
+        private final Iterator<T> stored;
+        private final Iterator<T> own;
+        private T storedHead;
+        private T ownHead;
+
+        Merge(Iterator<T> stored, Iterator<T> own) {
+            this.stored = stored;
+            this.own = own;
+            storedHead = stored.hasNext() ? stored.next() : null;
+            ownHead = own.hasNext() ? own.next() : null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return storedHead != null || ownHead != null;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (ownHead == null || storedHead != null && BY_START_TIME.compare(storedHead, ownHead) < 0) {
+                T task = storedHead;
+                storedHead = stored.hasNext() ? stored.next() : null;
+                return task;
+            }
+            T task = ownHead;
+            ownHead = own.hasNext() ? own.next() : null;
+            return cast(copy(task));
+        }
+    }
+}
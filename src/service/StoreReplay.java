@@ -0,0 +1,177 @@
+package service;
+
+import model.Status;
+import model.Task;
+import model.TaskType;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/*
+ * Снимок и журнал, проигранные прямо в записи хранилища без карт задач (см. CompactTaskStore, OffHeapTaskStore).
+ * put дописывает каждую версию задачи отдельной записью, delete и clear лишь запоминают, сколько записей было
+ * до них. live оставляет для каждого id последнюю запись, если после неё id не удалялся, а тип не очищался;
+ * recomputeEpics пересчитывает статус и время всех эпиков по оставшимся подзадачам, как обычная загрузка.
+ * Время записей - как в бинарном снимке: минута от эпохи, секунда, наносекунды; длительность - в минутах.
+ */
+final class StoreReplay implements TaskChanges {
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final Status[] STATUSES = Status.values();
+    private static final int NULL = -1;
+    private static final int NULL_TIME = Integer.MIN_VALUE;
+
+    interface Records extends StartIndex.Starts {
+        void append(Task task);
+
+        int count();
+
+        int type(int record);  // TaskType.ordinal().
+
+        int status(int record);  // Status.ordinal().
+
+        int epicId(int record);
+
+        int duration(int record);
+
+        void setEpic(int record, int status, int minute, int second, int nano, int duration);
+    }
+
+    private final Records records;
+    private final int[] barriers = new int[TYPES.length];  // Записи с меньшими номерами очищены.
+    private long[] deletes = new long[16];  // (id << 32) | число записей на момент удаления.
+    private int deleteCount;
+
+    StoreReplay(Records records) {
+        this.records = records;
+    }
+
+    @Override
+    public void put(Task task) {
+        records.append(task);
+    }
+
+    @Override
+    public void delete(TaskType type, int id) {  // Как при обычной загрузке: id удаляется независимо от типа.
+        if (deleteCount == deletes.length) {
+            deletes = Arrays.copyOf(deletes, deleteCount * 2);
+        }
+        deletes[deleteCount++] = (long) id << 32 | records.count();
+    }
+
+    @Override
+    public void clear(TaskType type) {
+        barriers[type.ordinal()] = records.count();
+        if (type == TaskType.EPIC) {
+            barriers[TaskType.SUBTASK.ordinal()] = records.count();
+        }
+    }
+
+    // Номера живых записей по возрастанию id.
+    int[] live() {
+        int count = records.count();
+        long[] byId = new long[count];
+        for (int record = 0; record < count; record++) {
+            byId[record] = (long) records.id(record) << 32 | record;
+        }
+        Arrays.sort(byId);
+        Arrays.sort(deletes, 0, deleteCount);
+        int[] live = new int[count];
+        int liveCount = 0;
+        int delete = 0;
+        for (int i = 0; i < count; i++) {
+            int id = (int) (byId[i] >> 32);
+            if (i + 1 < count && (int) (byId[i + 1] >> 32) == id) {
+                continue;  // Есть более поздняя версия.
+            }
+            int record = (int) byId[i];
+            int deletedAt = 0;
+            while (delete < deleteCount && (int) (deletes[delete] >> 32) <= id) {
+                if ((int) (deletes[delete] >> 32) == id) {
+                    deletedAt = (int) deletes[delete];
+                }
+                delete++;
+            }
+            if (record >= deletedAt && record >= barriers[records.type(record)]) {
+                live[liveCount++] = record;
+            }
+        }
+        return Arrays.copyOf(live, liveCount);
+    }
+
+    /* live - результат live(). Как InMemoryTaskManager: эпик без подзадач получает статус NEW, а эпик,
+       у подзадач которого нет времени, - начало в момент загрузки и длительность 15 минут. */
+    void recomputeEpics(int[] live) {
+        long[] subTasks = new long[live.length];  // (id эпика << 32) | номер записи подзадачи.
+        int subTaskCount = 0;
+        for (int record : live) {
+            if (TYPES[records.type(record)] == TaskType.SUBTASK) {
+                subTasks[subTaskCount++] = (long) records.epicId(record) << 32 | record;
+            }
+        }
+        Arrays.sort(subTasks, 0, subTaskCount);
+        LocalDateTime now = LocalDateTime.now();
+        int first = 0;
+        for (int epic : live) {  // live и подзадачи упорядочены по id эпика, поэтому идём по ним вместе.
+            if (TYPES[records.type(epic)] != TaskType.EPIC) {
+                continue;
+            }
+            int epicId = records.id(epic);
+            if (first < subTaskCount && (int) (subTasks[first] >> 32) < epicId) {
+                break;  // Подзадача эпика, которого нет.
+            }
+            int end = first;
+            while (end < subTaskCount && (int) (subTasks[end] >> 32) == epicId) {
+                end++;
+            }
+            recompute(epic, subTasks, first, end, now);
+            first = end;
+        }
+        if (first < subTaskCount) {
+            throw new IllegalStateException("Epic of subTask with id " + records.id((int) subTasks[first])
+                    + " does not exist");
+        }
+    }
+
+    private void recompute(int epic, long[] subTasks, int from, int to, LocalDateTime now) {
+        int newCount = 0;
+        int doneCount = 0;
+        LocalDateTime start = null;
+        LocalDateTime end = null;
+        int startRecord = -1;
+        for (int i = from; i < to; i++) {
+            int record = (int) subTasks[i];
+            Status status = STATUSES[records.status(record)];
+            newCount += status == Status.NEW ? 1 : 0;
+            doneCount += status == Status.DONE ? 1 : 0;
+            if (records.minute(record) == NULL_TIME || records.duration(record) == NULL) {
+                continue;
+            }
+            LocalDateTime subTaskStart = startOf(record);
+            LocalDateTime subTaskEnd = subTaskStart.plusMinutes(records.duration(record));
+            if (start == null || subTaskStart.isBefore(start)) {
+                start = subTaskStart;
+                startRecord = record;
+            }
+            if (end == null || subTaskEnd.isAfter(end)) {
+                end = subTaskEnd;
+            }
+        }
+        int total = to - from;
+        Status status = newCount == total ? Status.NEW : doneCount == total ? Status.DONE : Status.IN_PROGRESS;
+        if (start == null) {
+            long second = now.toEpochSecond(ZoneOffset.UTC);
+            records.setEpic(epic, status.ordinal(), Math.toIntExact(Math.floorDiv(second, 60)),
+                    Math.floorMod(second, 60), now.getNano(), 15);
+        } else {
+            records.setEpic(epic, status.ordinal(), records.minute(startRecord), records.second(startRecord),
+                    records.nano(startRecord), Math.toIntExact(Duration.between(start, end).toMinutes()));
+        }
+    }
+
+    private LocalDateTime startOf(int record) {
+        return LocalDateTime.ofEpochSecond(records.minute(record) * 60L + records.second(record),
+                records.nano(record), ZoneOffset.UTC);
+    }
+}
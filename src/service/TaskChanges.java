@@ -0,0 +1,13 @@
+package service;
+
+import model.Task;
+import model.TaskType;
+
+// Изменения хранилища, которые надо сохранить: журнал дописывает их в файл, сегменты помечают грязными.
+interface TaskChanges {
+    void put(Task task);
+
+    void delete(TaskType type, int id);
+
+    void clear(TaskType type);
+}
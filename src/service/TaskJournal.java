@@ -0,0 +1,241 @@
+package service;
+
+import converter.TaskConverter;
+import model.Task;
+import model.TaskType;
+import service.exception.ManagerSaveException;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/*
+ * Журнал изменений доски. Записи копятся в памяти под замком менеджера, а в файл их отдаёт flush,
+ * который можно звать и без этого замка (см. CommitScheduler): запись файла идёт под своим монитором,
+ * и изменения доски на это время не останавливаются.
+ */
+class TaskJournal implements TaskChanges {
+    private static final char PUT = '+';
+    private static final char DELETE = '-';
+    private static final char CLEAR = '!';
+
+    private final File file;
+    private final File rotated;  // Сегмент, который сейчас сворачивается в файл снимка.
+    private final Object fileLock = new Object();  // Файлы журнала и output.
+    private StringBuilder pending = new StringBuilder();  // Ещё не записанные в файл; под своим монитором.
+    private FileOutputStream output;
+    private int records;
+
+    TaskJournal(File snapshot) {
+        this.file = new File(snapshot.getPath() + ".journal");
+        this.rotated = new File(snapshot.getPath() + ".journal.compacting");
+    }
+
+    public int size() {
+        return records;
+    }
+
+    public boolean exists() {
+        return file.exists() || rotated.exists();
+    }
+
+    @Override
+    public void put(Task task) {
+        append(PUT + "," + TaskConverter.toString(task));
+    }
+
+    @Override
+    public void delete(TaskType type, int id) {
+        append(DELETE + "," + id + "," + type);
+    }
+
+    @Override
+    public void clear(TaskType type) {
+        append(CLEAR + "," + type);
+    }
+
+    public int replay(TaskChanges replayer) {  // Сначала незавершённая свёртка, затем записи после неё.
+        records = replay(rotated, replayer) + replay(file, replayer);
+        return records;
+    }
+
+    /* Последняя запись без перевода строки или не разбираемая - недописанная при сбое: она пропускается,
+       а файл обрезается перед ней, чтобы новые записи не легли в её продолжение. */
+    private static int replay(File file, TaskChanges replayer) {
+        if (!file.exists()) {
+            return 0;
+        }
+        int replayed = 0;
+        long length = file.length();
+        try (InputStream input = new BufferedInputStream(new FileInputStream(file))) {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            long start = 0;
+            long offset = 0;
+            int next;
+            while ((next = input.read()) != -1) {
+                offset++;
+                if (next != '\n') {
+                    line.write(next);
+                    continue;
+                }
+                String record = line.toString(StandardCharsets.UTF_8);
+                line.reset();
+                Consumer<TaskChanges> change;
+                try {
+                    change = parse(record.endsWith("\r") ? record.substring(0, record.length() - 1) : record);
+                } catch (RuntimeException e) {
+                    if (offset < length) {
+                        throw new IllegalStateException("Malformed journal record: " + record, e);
+                    }
+                    truncate(file, start);
+                    return replayed;
+                }
+                change.accept(replayer);
+                replayed++;
+                start = offset;
+            }
+            if (start < offset) {
+                truncate(file, start);
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error occurred during replaying journal, path: "
+                    + file.getAbsolutePath(), e);
+        }
+        return replayed;
+    }
+
+    private static Consumer<TaskChanges> parse(String line) {
+        if (line.length() < 2) {
+            throw new IllegalArgumentException("Journal record is too short");
+        }
+        String data = line.substring(2);
+        switch (line.charAt(0)) {
+            case PUT -> {
+                Task task = TaskConverter.fromString(data);
+                return replayer -> replayer.put(task);
+            }
+            case DELETE -> {
+                int comma = data.indexOf(',');
+                TaskType type = TaskType.valueOf(data.substring(comma + 1));
+                int id = Integer.parseInt(data.substring(0, comma));
+                return replayer -> replayer.delete(type, id);
+            }
+            case CLEAR -> {
+                TaskType type = TaskType.valueOf(data);
+                return replayer -> replayer.clear(type);
+            }
+            default -> throw new IllegalArgumentException("Unknown journal record type");
+        }
+    }
+
+    private static void truncate(File file, long length) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            channel.truncate(length);
+        }
+    }
+
+    public void reset() {
+        synchronized (fileLock) {
+            takePending();
+            close();
+            delete(file);
+            delete(rotated);
+        }
+        records = 0;
+    }
+
+    /* Начинает новый сегмент: записанное до этого момента уходит на свёртку, новые записи идут в чистый файл.
+       Если прошлая свёртка не завершилась, текущий сегмент дописывается в конец незавершённого. */
+    public void rotate(boolean fsync) {
+        synchronized (fileLock) {
+            flush(fsync);
+            close();
+            if (!file.exists()) {
+                return;
+            }
+            try {
+                if (rotated.exists()) {
+                    try (FileOutputStream target = new FileOutputStream(rotated, true)) {
+                        Files.copy(file.toPath(), target);
+                        if (fsync) {
+                            target.getChannel().force(false);
+                        }
+                    }
+                    delete(file);
+                } else {
+                    Files.move(file.toPath(), rotated.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                }
+            } catch (IOException e) {
+                throw new ManagerSaveException("Error occurred during rotating journal, path: "
+                        + file.getAbsolutePath(), e);
+            }
+        }
+        records = 0;
+    }
+
+    public void dropRotated() {  // Свёртка записана в файл снимка.
+        synchronized (fileLock) {
+            delete(rotated);
+        }
+    }
+
+    // Накопленные записи забираются и пишутся под одним fileLock, поэтому в файле они лежат по порядку.
+    public void flush(boolean fsync) {
+        synchronized (fileLock) {
+            String chunk = takePending();
+            if (chunk.isEmpty() && output == null) {
+                return;
+            }
+            try {
+                if (output == null) {
+                    output = new FileOutputStream(file, true);
+                }
+                output.write(chunk.getBytes(StandardCharsets.UTF_8));
+                if (fsync) {
+                    output.getChannel().force(false);
+                }
+            } catch (IOException e) {
+                throw new ManagerSaveException("Error occurred during flushing journal, path: "
+                        + file.getAbsolutePath(), e);
+            }
+        }
+    }
+
+    private void append(String record) {
+        synchronized (this) {
+            pending.append(record).append('\n');
+        }
+        records++;
+    }
+
+    private synchronized String takePending() {
+        String chunk = pending.toString();
+        pending = new StringBuilder(Math.max(16, chunk.length()));
+        return chunk;
+    }
+
+    private static void delete(File file) {
+        if (file.exists() && !file.delete()) {
+            throw new ManagerSaveException("Error occurred during resetting journal, path: " + file.getAbsolutePath(),
+                    new IOException("File was not deleted"));
+        }
+    }
+
+    private void close() {
+        if (output == null) {
+            return;
+        }
+        try {
+            output.close();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error occurred during closing journal, path: "
+                    + file.getAbsolutePath(), e);
+        } finally {
+            output = null;
+        }
+    }
+}
@@ -4,6 +4,8 @@ import model.Epic;
 import model.SubTask;
 import model.Task;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface TaskManager {
@@ -17,6 +19,10 @@ public interface TaskManager {
 
     List<Task> getPrioritizedTasks();
 
+    List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to, int limit);
+
+    LocalDateTime findFreeSlot(LocalDateTime after, Duration duration);
+
     void deleteAllTasks();
 
     void deleteAllEpics();
@@ -48,4 +54,6 @@ public interface TaskManager {
     void deleteByIdSubTask(int id);
 
     List<SubTask> getAllSubStacksByEpicId(int id);
+
+    TaskSnapshot snapshot();  // Ленивые хранилища (см. MappedTaskManager) собирают снимок целиком, за O(n).
 }
@@ -0,0 +1,436 @@
+package service;
+
+import model.Epic;
+import model.SubTask;
+import model.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+/*
+ * Неизменяемая версия состояния менеджера. Менеджер публикует новую версию после каждого изменения,
+ * при этом новая версия разделяет с предыдущей все незатронутые узлы деревьев.
+ * Задачи внутри снимка - копии, сделанные в момент публикации, их не нужно менять.
+ * Эпик хранится только заголовком, состав эпика - отдельное дерево связей (эпик, подзадача),
+ * поэтому изменение эпика стоит O(log n) независимо от числа его подзадач. Полный эпик собирается при чтении.
+ */
+public final class TaskSnapshot {
+    private static final Comparator<Task> BY_START_TIME = Comparator.comparing(Task::getStartTime)
+            .thenComparing(Task::getId);
+    private static final Comparator<Task> BY_DURATION = Comparator.comparing(Task::getDuration)
+            .thenComparing(Task::getId);
+
+    static final TaskSnapshot EMPTY = new TaskSnapshot(0, PersistentTreeMap.empty(Comparator.naturalOrder()),
+            PersistentTreeMap.empty(Comparator.naturalOrder()), PersistentTreeMap.empty(Comparator.naturalOrder()),
+            PersistentTreeMap.empty(Comparator.naturalOrder()), Schedule.EMPTY, EpicSpans.EMPTY);
+
+    private final long version;
+    private final PersistentTreeMap<Integer, Task> tasks;
+    private final PersistentTreeMap<Integer, Epic> epics;
+    private final PersistentTreeMap<Integer, SubTask> subTasks;
+    private final PersistentTreeMap<Long, SubTask> epicLinks;  // Ключ: id эпика в старших битах, подзадачи - в младших.
+    private final Schedule schedule;
+    private final EpicSpans epicSpans;
+
+    private TaskSnapshot(long version, PersistentTreeMap<Integer, Task> tasks, PersistentTreeMap<Integer, Epic> epics,
+                         PersistentTreeMap<Integer, SubTask> subTasks, PersistentTreeMap<Long, SubTask> epicLinks,
+                         Schedule schedule, EpicSpans epicSpans) {
+        this.version = version;
+        this.tasks = tasks;
+        this.epics = epics;
+        this.subTasks = subTasks;
+        this.epicLinks = epicLinks;
+        this.schedule = schedule;
+        this.epicSpans = epicSpans;
+    }
+
+    static TaskSnapshot of(long version, Collection<? extends Task> tasks, Collection<? extends Epic> epics,
+                           Collection<? extends SubTask> subTasks) {
+        TaskSnapshot snapshot = EMPTY;
+        for (Task task : tasks) {
+            snapshot = snapshot.withTask(freeze(task));
+        }
+        for (SubTask subTask : subTasks) {  // Связи раньше эпиков, чтобы эпики сразу попали в расписание.
+            snapshot = snapshot.withSubTask(freeze(subTask), null);
+        }
+        for (Epic epic : epics) {
+            snapshot = snapshot.withEpic(freeze(epic));
+        }
+        return new TaskSnapshot(version, snapshot.tasks, snapshot.epics, snapshot.subTasks, snapshot.epicLinks,
+                snapshot.schedule, snapshot.epicSpans);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Collection<Task> getTasks() {  // Все коллекции - представления без копирования, упорядочены по id.
+        return tasks.values();
+    }
+
+    public Collection<Epic> getEpics() {  // Каждый эпик собирается при обходе, это отдельный объект.
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<Epic> iterator() {
+                Iterator<Epic> headers = epics.values().iterator();
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return headers.hasNext();
+                    }
+
+                    @Override
+                    public Epic next() {
+                        return assemble(headers.next());
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return epics.size();
+            }
+        };
+    }
+
+    public Collection<SubTask> getSubTasks() {
+        return subTasks.values();
+    }
+
+    public Collection<Task> getPrioritizedTasks() {  // Упорядочены по времени старта.
+        return schedule.tasks.values();
+    }
+
+    /*
+     * Задачи, подзадачи и эпики (по их общему интервалу), пересекающие [from, to), по времени старта,
+     * не больше limit. Пустые from и to не ограничивают диапазон.
+     * Задачи и подзадачи не пересекаются между собой, поэтому до from достаточно проверить одну предыдущую;
+     * эпики берутся начиная с from минус самый длинный эпик. Стоимость растёт с размером ответа, а не доски.
+     */
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to, int limit) {
+        Task before = from == null ? null : schedule.tasks.lower(probe(from));
+        Iterator<Task> scheduled = from == null ? schedule.tasks.values().iterator()
+                : schedule.tasks.valuesFrom(before != null ? before : probe(from));
+        List<Task> result = range(scheduled, epicSpans.startingFrom(from), from, to, limit);
+        result.replaceAll(task -> task instanceof Epic epic ? assemble(epic) : task);
+        return result;
+    }
+
+    /*
+     * Слияние двух потоков по времени старта: задачи и подзадачи (начиная с последней, стартующей раньше from)
+     * и эпики (начиная с from минус самый длинный эпик). Общее для снимка и ленивых хранилищ.
+     */
+    static List<Task> range(Iterator<? extends Task> scheduled, Iterator<? extends Task> spans,
+                            LocalDateTime from, LocalDateTime to, int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit should not be negative");
+        }
+        List<Task> result = new ArrayList<>(Math.min(limit, 64));
+        if (limit == 0) {
+            return result;
+        }
+        Range scheduledRange = new Range(scheduled, from, to);
+        Range spansRange = new Range(spans, from, to);
+        while (result.size() < limit && (scheduledRange.head != null || spansRange.head != null)) {
+            Range next = spansRange.head == null
+                    || scheduledRange.head != null && BY_START_TIME.compare(scheduledRange.head, spansRange.head) < 0
+                    ? scheduledRange : spansRange;
+            result.add(next.head);
+            next.advance();
+        }
+        return result;
+    }
+
+    // Самое раннее время не раньше after, когда задача длительностью duration ни с чем не пересечётся, за O(log n).
+    public LocalDateTime findFreeSlot(LocalDateTime after, Duration duration) {
+        if (after == null || duration == null || duration.isNegative()) {
+            throw new IllegalArgumentException("Slot start and non-negative duration are required");
+        }
+        return schedule.gaps.findFreeSlot(after, duration);
+    }
+
+    public Task getTask(int id) {
+        return tasks.get(id);
+    }
+
+    public Epic getEpic(int id) {
+        Epic header = epics.get(id);
+        return header == null ? null : assemble(header);
+    }
+
+    public SubTask getSubTask(int id) {
+        return subTasks.get(id);
+    }
+
+    // Все with-методы принимают уже замороженные копии, чтобы повтор публикации не копировал задачи заново.
+    TaskSnapshot withTask(Task frozen) {
+        return new TaskSnapshot(version + 1, tasks.put(frozen.getId(), frozen), epics, subTasks, epicLinks,
+                reschedule(tasks.get(frozen.getId()), frozen), epicSpans);
+    }
+
+    TaskSnapshot withEpic(Epic frozen) {
+        return new TaskSnapshot(version + 1, tasks, epics.put(frozen.getId(), frozen), subTasks, epicLinks, schedule,
+                epicSpans.replace(epics.get(frozen.getId()), frozen, hasSubTasks(epicLinks, frozen.getId())));
+    }
+
+    TaskSnapshot withSubTask(SubTask frozen, Epic frozenEpic) {  // frozenEpic - эпик после изменения, если он менялся.
+        SubTask old = subTasks.get(frozen.getId());
+        PersistentTreeMap<Long, SubTask> newLinks = epicLinks;
+        if (old != null) {
+            newLinks = newLinks.remove(link(old.getEpicId(), old.getId()));
+        }
+        newLinks = newLinks.put(link(frozen.getEpicId(), frozen.getId()), frozen);
+        PersistentTreeMap<Integer, Epic> newEpics = epics;
+        EpicSpans newSpans = epicSpans;
+        if (frozenEpic != null) {
+            newEpics = epics.put(frozenEpic.getId(), frozenEpic);
+            newSpans = epicSpans.replace(epics.get(frozenEpic.getId()), frozenEpic,
+                    hasSubTasks(newLinks, frozenEpic.getId()));
+        }
+        return new TaskSnapshot(version + 1, tasks, newEpics, subTasks.put(frozen.getId(), frozen), newLinks,
+                reschedule(old, frozen), newSpans);
+    }
+
+    TaskSnapshot withoutTask(int id) {
+        return new TaskSnapshot(version + 1, tasks.remove(id), epics, subTasks, epicLinks,
+                reschedule(tasks.get(id), null), epicSpans);
+    }
+
+    TaskSnapshot withoutEpic(int id) {
+        Epic epic = epics.get(id);
+        if (epic == null) {
+            return this;
+        }
+        PersistentTreeMap<Integer, SubTask> newSubTasks = subTasks;
+        PersistentTreeMap<Long, SubTask> newLinks = epicLinks;
+        Schedule newSchedule = schedule;
+        Iterator<SubTask> links = epicLinks.valuesFrom(link(id, 0));
+        while (links.hasNext()) {
+            SubTask subTask = links.next();
+            if (subTask.getEpicId() != id) {
+                break;
+            }
+            newSubTasks = newSubTasks.remove(subTask.getId());
+            newLinks = newLinks.remove(link(id, subTask.getId()));
+            newSchedule = newSchedule.without(subTask);
+        }
+        return new TaskSnapshot(version + 1, tasks, epics.remove(id), newSubTasks, newLinks, newSchedule,
+                epicSpans.replace(epic, null, false));
+    }
+
+    TaskSnapshot withoutSubTask(int id, Epic frozenEpic) {
+        SubTask old = subTasks.get(id);
+        PersistentTreeMap<Long, SubTask> newLinks = old == null ? epicLinks
+                : epicLinks.remove(link(old.getEpicId(), id));
+        return new TaskSnapshot(version + 1, tasks, epics.put(frozenEpic.getId(), frozenEpic),
+                subTasks.remove(id), newLinks, reschedule(old, null),
+                epicSpans.replace(epics.get(frozenEpic.getId()), frozenEpic,
+                        hasSubTasks(newLinks, frozenEpic.getId())));
+    }
+
+    TaskSnapshot withoutTasks() {
+        Schedule newSchedule = schedule;
+        for (Task task : tasks.values()) {
+            newSchedule = newSchedule.without(task);
+        }
+        return new TaskSnapshot(version + 1, PersistentTreeMap.empty(Comparator.naturalOrder()), epics, subTasks,
+                epicLinks, newSchedule, epicSpans);
+    }
+
+    TaskSnapshot withoutEpics() {
+        TaskSnapshot snapshot = withoutSubTasks(List.of());
+        return new TaskSnapshot(version + 1, tasks, PersistentTreeMap.empty(Comparator.naturalOrder()),
+                snapshot.subTasks, snapshot.epicLinks, snapshot.schedule, EpicSpans.EMPTY);
+    }
+
+    TaskSnapshot withoutSubTasks(Collection<Epic> frozenEpics) {  // Без подзадач ни один эпик не входит в расписание.
+        Schedule newSchedule = schedule;
+        for (SubTask subTask : subTasks.values()) {
+            newSchedule = newSchedule.without(subTask);
+        }
+        PersistentTreeMap<Integer, Epic> newEpics = epics;
+        for (Epic epic : frozenEpics) {
+            newEpics = newEpics.put(epic.getId(), epic);
+        }
+        return new TaskSnapshot(version + 1, tasks, newEpics, PersistentTreeMap.empty(Comparator.naturalOrder()),
+                PersistentTreeMap.empty(Comparator.naturalOrder()), newSchedule, EpicSpans.EMPTY);
+    }
+
+    private Epic assemble(Epic header) {  // Отдельная копия заголовка с id подзадач из связей, O(k).
+        Epic epic = freeze(header);
+        int epicId = header.getId();
+        Iterator<SubTask> links = epicLinks.valuesFrom(link(epicId, 0));
+        while (links.hasNext()) {
+            SubTask subTask = links.next();
+            if (subTask.getEpicId() != epicId) {
+                break;
+            }
+            epic.addTask(subTask.getId());
+        }
+        return epic;
+    }
+
+    private static long link(int epicId, int subTaskId) {
+        return (long) epicId << 32 | subTaskId & 0xFFFFFFFFL;
+    }
+
+    private static boolean hasSubTasks(PersistentTreeMap<Long, SubTask> epicLinks, int epicId) {
+        Iterator<SubTask> links = epicLinks.valuesFrom(link(epicId, 0));
+        return links.hasNext() && links.next().getEpicId() == epicId;
+    }
+
+    private Schedule reschedule(Task oldTask, Task newTask) {
+        return schedule.without(oldTask).with(newTask);
+    }
+
+    static Task probe(LocalDateTime startTime) {  // Ключ поиска, стоящий перед всеми задачами с этим стартом.
+        Task probe = new Task(null, null, startTime, Duration.ZERO);
+        probe.setId(Integer.MIN_VALUE);
+        return probe;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T extends Task> T freeze(T task) {  // Копия задачи; у эпика копируется только заголовок, без подзадач.
+        if (task == null) {
+            return null;
+        }
+        Task frozen = switch (task.getType()) {
+            case TASK -> new Task(task.getName(), task.getDescription(), task.getStartTime(), task.getDuration());
+            case SUBTASK -> new SubTask(task.getName(), task.getDescription(), task.getEpicId(),
+                    task.getStartTime(), task.getDuration());
+            case EPIC -> {
+                Epic epic = (Epic) task;
+                Epic frozenEpic = new Epic(epic.getName(), epic.getDescription());
+                frozenEpic.setStartTime(epic.getStartTime());
+                frozenEpic.setDuration(epic.getDuration());
+                frozenEpic.setEndTime(epic.getEndTime());
+                yield frozenEpic;
+            }
+        };
+        frozen.setId(task.getId());
+        frozen.setStatus(task.getStatus());
+        return (T) frozen;
+    }
+
+    // Кандидаты по возрастанию старта: пропускает не пересекающие диапазон и останавливается на первом после to.
+    private static final class Range {
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+        private Iterator<? extends Task> candidates;
+        private Task head;
+
+        Range(Iterator<? extends Task> candidates, LocalDateTime from, LocalDateTime to) {
+            this.from = from;
+            this.to = to;
+            this.candidates = candidates;
+            advance();
+        }
+
+        void advance() {
+            head = null;
+            while (candidates.hasNext()) {
+                Task candidate = candidates.next();
+                if (to != null && !candidate.getStartTime().isBefore(to)) {
+                    candidates = Collections.emptyIterator();
+                    return;
+                }
+                if (from == null || !candidate.getStartTime().isBefore(from) || candidate.getEndTime().isAfter(from)) {
+                    head = candidate;
+                    return;
+                }
+            }
+        }
+    }
+
+    // Эпики с подзадачами, упорядоченные по старту и по длительности (для поиска самого длинного).
+    private static final class EpicSpans {
+        static final EpicSpans EMPTY = new EpicSpans(PersistentTreeMap.empty(BY_START_TIME),
+                PersistentTreeMap.empty(BY_DURATION));
+
+        private final PersistentTreeMap<Task, Epic> byStart;
+        private final PersistentTreeMap<Task, Epic> byDuration;
+
+        private EpicSpans(PersistentTreeMap<Task, Epic> byStart, PersistentTreeMap<Task, Epic> byDuration) {
+            this.byStart = byStart;
+            this.byDuration = byDuration;
+        }
+
+        EpicSpans replace(Epic oldEpic, Epic newEpic, boolean newHasSubTasks) {
+            PersistentTreeMap<Task, Epic> newByStart = byStart;
+            PersistentTreeMap<Task, Epic> newByDuration = byDuration;
+            if (hasTimes(oldEpic) && byStart.get(oldEpic) != null) {
+                newByStart = newByStart.remove(oldEpic);
+                newByDuration = newByDuration.remove(oldEpic);
+            }
+            if (newHasSubTasks && hasTimes(newEpic)) {  // Время эпика без подзадач - заглушка, его не учитываем.
+                newByStart = newByStart.put(newEpic, newEpic);
+                newByDuration = newByDuration.put(newEpic, newEpic);
+            }
+            return new EpicSpans(newByStart, newByDuration);
+        }
+
+        Iterator<Epic> startingFrom(LocalDateTime from) {
+            Epic longest = byDuration.last();
+            if (from == null || longest == null) {
+                return byStart.values().iterator();
+            }
+            return byStart.valuesFrom(probe(from.minus(longest.getDuration())));
+        }
+
+        private static boolean hasTimes(Epic epic) {
+            return epic != null && epic.getStartTime() != null && epic.getDuration() != null
+                    && epic.getEndTime() != null;
+        }
+    }
+
+    // Задачи и подзадачи по времени старта вместе с промежутками между ними; меняются только вместе.
+    private static final class Schedule {
+        static final Schedule EMPTY = new Schedule(PersistentTreeMap.empty(BY_START_TIME),
+                GapIndex.empty(BY_START_TIME));
+
+        private final PersistentTreeMap<Task, Task> tasks;
+        private final GapIndex gaps;
+
+        private Schedule(PersistentTreeMap<Task, Task> tasks, GapIndex gaps) {
+            this.tasks = tasks;
+            this.gaps = gaps;
+        }
+
+        Schedule with(Task task) {  // Делит промежуток, в который попала задача, на часть до неё и после.
+            if (task == null || task.getStartTime() == null) {
+                return this;
+            }
+            Task before = before(tasks, task);
+            GapIndex newGaps = gaps.put(before, before.getEndTime(), task.getStartTime())
+                    .put(task, task.getEndTime(), startOfNext(tasks, task));
+            return new Schedule(tasks.put(task, task), newGaps);
+        }
+
+        Schedule without(Task task) {  // Сливает промежутки до и после задачи.
+            if (task == null || task.getStartTime() == null || tasks.get(task) == null) {
+                return this;
+            }
+            PersistentTreeMap<Task, Task> newTasks = tasks.remove(task);
+            Task before = before(newTasks, task);
+            GapIndex newGaps = gaps.remove(task).put(before, before.getEndTime(), startOfNext(newTasks, task));
+            return new Schedule(newTasks, newGaps);
+        }
+
+        private static Task before(PersistentTreeMap<Task, Task> tasks, Task task) {
+            Task before = tasks.lower(task);
+            return before == null ? GapIndex.HEAD : before;
+        }
+
+        private static LocalDateTime startOfNext(PersistentTreeMap<Task, Task> tasks, Task task) {
+            Iterator<Task> next = tasks.valuesFrom(task);
+            return next.hasNext() ? next.next().getStartTime() : LocalDateTime.MAX;
+        }
+    }
+}
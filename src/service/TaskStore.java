@@ -0,0 +1,26 @@
+package service;
+
+import model.Epic;
+import model.Task;
+import model.TaskType;
+
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+
+// Хранилище доски только для чтения, поверх которого MappedTaskManager ведёт изменения (см. StoreOverlay).
+interface TaskStore {
+    Task get(int id, TaskType type);
+
+    int maxId();  // Наибольший id среди записей или 0.
+
+    <T extends Task> List<T> getAll(TaskType type);
+
+    List<Integer> getSubTasksIds(int epicId);
+
+    // Задачи и подзадачи по времени старта, с последней стартующей раньше from; null - с самого начала.
+    Iterator<Task> getSchedule(LocalDateTime from);
+
+    // Эпики с подзадачами по времени старта, с from минус самый длинный эпик; null - с самого начала.
+    Iterator<Epic> getEpicSpans(LocalDateTime from);
+}
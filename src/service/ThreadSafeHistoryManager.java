@@ -0,0 +1,5 @@
+package service;
+
+// Метка для историй, которые можно вызывать из нескольких потоков без внешней синхронизации.
+interface ThreadSafeHistoryManager extends HistoryManager {
+}
@@ -0,0 +1,76 @@
+package logging;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoggerTest {
+    private final Level savedLevel = Logger.getLevel();
+
+    @AfterEach
+    public void restore() {
+        Logger.setLevel(savedLevel);
+        Logger.setAppender(null);
+    }
+
+    @Test
+    @DisplayName("Disabled level does not build the message")
+    public void shouldNotBuildDisabledMessage() {
+        Logger.setLevel(Level.INFO);
+        Logger logger = Logger.getLogger(LoggerTest.class);
+        logger.debug(() -> fail("Message should not be built"));
+        assertFalse(logger.isEnabled(Level.DEBUG));
+        assertTrue(logger.isEnabled(Level.ERROR));
+    }
+
+    @Test
+    @DisplayName("Enabled messages are written by the background appender")
+    public void shouldWriteInBackground() throws InterruptedException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AsyncAppender appender = new AsyncAppender(new PrintStream(out, true, StandardCharsets.UTF_8), 16);
+        Logger.setAppender(appender);
+        Logger.setLevel(Level.DEBUG);
+        Logger logger = Logger.getLogger(LoggerTest.class);
+        logger.debug(() -> "first");
+        logger.error("second", new IllegalStateException("broken"));
+        for (int i = 0; i < 100 && appender.getWrittenCount() < 2; i++) {
+            Thread.sleep(10);
+        }
+        String text = out.toString(StandardCharsets.UTF_8);
+        assertTrue(text.contains("DEBUG LoggerTest: first"));
+        assertTrue(text.contains("ERROR LoggerTest: second"));
+        assertTrue(text.contains("IllegalStateException: broken"));
+    }
+
+    @Test
+    @DisplayName("Unknown level falls back to INFO")
+    public void shouldFallBackToInfo() {
+        assertEquals(Level.INFO, Logger.parseLevel("verbose"));
+        assertEquals(Level.INFO, Logger.parseLevel(null));
+        assertEquals(Level.WARN, Logger.parseLevel("warn"));
+    }
+
+    @Test
+    @DisplayName("Warnings and errors go to the error stream")
+    public void shouldWriteErrorsSeparately() throws InterruptedException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        AsyncAppender appender = new AsyncAppender(new PrintStream(out, true, StandardCharsets.UTF_8),
+                new PrintStream(err, true, StandardCharsets.UTF_8), 16);
+        Logger.setAppender(appender);
+        Logger.setLevel(Level.INFO);
+        Logger logger = Logger.getLogger(LoggerTest.class);
+        logger.info("plain");
+        logger.warn("careful");
+        assertTrue(appender.awaitFlushed(5000));
+        assertTrue(out.toString(StandardCharsets.UTF_8).contains("INFO LoggerTest: plain"));
+        assertFalse(out.toString(StandardCharsets.UTF_8).contains("careful"));
+        assertTrue(err.toString(StandardCharsets.UTF_8).contains("WARN LoggerTest: careful"));
+    }
+}
@@ -3,6 +3,14 @@ package model;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
@@ -27,4 +35,45 @@ class EpicTest {
                 actual.getSubTasksIds().toArray(), message + " subtasks ids");
     }
 
-}
\ No newline at end of file
+    @Test
+    @DisplayName("Summary matches a full scan through inserts, updates, removals and growth")
+    public void shouldKeepSummaryInSyncWithSubTasks() {
+        Epic epic = new Epic("name", "desc");
+        epic.setId(0);
+        Map<Integer, SubTask> subTasks = new HashMap<>();
+        Random random = new Random(42);
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int step = 0; step < 5_000; step++) {
+            int id = 1 + random.nextInt(300);
+            if (random.nextInt(4) == 0) {
+                epic.removeTask(id);
+                subTasks.remove(id);
+            } else {
+                boolean timed = random.nextInt(5) != 0;
+                LocalDateTime start = timed ? base.plusMinutes(random.nextInt(10_000)) : null;
+                SubTask subTask = new SubTask("sub", "desc", 0, start,
+                        timed ? Duration.ofMinutes(1 + random.nextInt(100)) : null);
+                subTask.setId(id);
+                subTask.setStatus(Status.values()[random.nextInt(3)]);
+                if (subTasks.put(id, subTask) == null) {
+                    epic.addTask(subTask);
+                } else {
+                    epic.updateTask(subTask);
+                }
+            }
+            if (step % 1_000 == 999) {
+                epic.removeAllTasks();
+                subTasks.clear();
+            }
+            for (Status status : Status.values()) {
+                assertEquals(subTasks.values().stream().filter(subTask -> subTask.getStatus() == status).count(),
+                        epic.getSubTasksCount(status));
+            }
+            assertEquals(subTasks.values().stream().map(SubTask::getStartTime).filter(Objects::nonNull)
+                    .min(Comparator.naturalOrder()).orElse(null), epic.getSubTasksStartTime());
+            assertEquals(subTasks.values().stream().filter(subTask -> subTask.getStartTime() != null)
+                    .map(SubTask::getEndTime)
+                    .max(Comparator.naturalOrder()).orElse(null), epic.getSubTasksEndTime());
+        }
+    }
+}
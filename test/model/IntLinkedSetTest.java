@@ -0,0 +1,54 @@
+package model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntLinkedSetTest {
+
+    @Test
+    @DisplayName("Should keep insertion order after removes and growth")
+    public void shouldKeepInsertionOrder() {
+        IntLinkedSet set = new IntLinkedSet();
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            set.add(i * 7);
+            expected.add(i * 7);
+        }
+        for (int i = 0; i < 1_000; i += 3) {
+            assertTrue(set.remove(i * 7));
+            expected.remove(Integer.valueOf(i * 7));
+        }
+        assertFalse(set.add(7), "Duplicate should not be added");
+        set.add(0);
+        expected.add(0);
+
+        assertEquals(expected, set.toList());
+        assertEquals(expected.size(), set.size());
+        assertTrue(set.contains(0));
+        assertFalse(set.contains(21));
+    }
+
+    @Test
+    @DisplayName("Should be equal only with the same order")
+    public void shouldEqualByOrder() {
+        IntLinkedSet first = new IntLinkedSet();
+        IntLinkedSet second = new IntLinkedSet();
+        first.add(1);
+        first.add(2);
+        second.add(2);
+        second.add(1);
+        assertFalse(first.equals(second), "Sets with different order should differ");
+        second.remove(2);
+        second.add(2);
+        assertEquals(first, second);
+        assertArrayEquals(new int[]{1, 2}, second.toArray());
+    }
+}
@@ -0,0 +1,51 @@
+package model;
+
+import converter.TaskConverter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class StringPoolTest {
+
+    @Test
+    @DisplayName("Should return the pooled copy and count hits and saved bytes")
+    public void shouldCountHitsAndSavedBytes() {
+        StringPool pool = new StringPool(true, 16);
+        String first = new String("template");
+        String second = new String("template");
+        String longText = "x".repeat(17);
+
+        assertSame(first, pool.get(first));
+        assertSame(first, pool.get(second));
+        assertSame(longText, pool.get(longText), "Long strings should not be pooled");
+
+        assertEquals(2, pool.getLookupCount());
+        assertEquals(1, pool.getHitCount());
+        assertEquals(0.5, pool.getHitRatio());
+        assertEquals(40 + "template".length(), pool.getBytesSaved());
+    }
+
+    @Test
+    @DisplayName("Disabled pool should return strings as is")
+    public void shouldPassThroughWhenDisabled() {
+        StringPool pool = new StringPool(false, 16);
+        String first = new String("template");
+
+        assertSame(first, pool.get(first));
+        assertNotSame(first, pool.get(new String("template")));
+        assertEquals(0, pool.getLookupCount());
+    }
+
+    @Test
+    @DisplayName("Tasks parsed from CSV should share equal names")
+    public void shouldShareNamesOfParsedTasks() {
+        Task first = TaskConverter.fromString("1,TASK,template name,NEW,template description,null,15,null");
+        Task second = TaskConverter.fromString("2,TASK,template name,NEW,template description,null,15,null");
+
+        assertSame(first.getName(), second.getName());
+        assertSame(first.getDescription(), second.getDescription());
+    }
+}
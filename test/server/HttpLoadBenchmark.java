@@ -0,0 +1,127 @@
+package server;
+
+import com.google.gson.Gson;
+import model.Task;
+import service.ConcurrentTaskManager;
+import service.Managers;
+import service.TaskManager;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Нагрузочный замер HttpTaskServer в каждом режиме исполнителя. clients потоков шлют GET /tasks, каждый
+ * двадцатый запрос - POST /tasks, сохранение которого занимает saveMillis, как запись снимка на диск.
+ * Печатаются p50 и p99 задержек GET и всех запросов; первый прогон каждого режима - прогрев.
+ * Запуск: java -cp <классы> server.HttpLoadBenchmark [клиентов] [запросов на клиента] [мс сохранения]
+ */
+public class HttpLoadBenchmark {
+    private static final int TASKS = 100;
+    private static final Gson gson = HttpTaskServer.getGson();
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int requests = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int saveMillis = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        for (ServerExecutorMode mode : ServerExecutorMode.values()) {
+            run(mode, clients, Math.max(20, requests / 4), saveMillis, false);
+            run(mode, clients, requests, saveMillis, true);
+        }
+    }
+
+    private static void run(ServerExecutorMode mode, int clients, int requests, int saveMillis, boolean print)
+            throws Exception {
+        TaskManager taskManager = new SlowSaveTaskManager(saveMillis);
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 0, 0);
+        for (int i = 0; i < TASKS; i++) {
+            taskManager.createTask(new Task("task" + i, "desc", start.plusMinutes(30L * i), Duration.ofMinutes(15)));
+        }
+        AtomicInteger created = new AtomicInteger(TASKS);
+        HttpTaskServer server = new HttpTaskServer(taskManager, mode, 1024);
+        server.startServer();
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        long[][] gets = new long[clients][];
+        long[][] all = new long[clients][];
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int c = 0; c < clients; c++) {
+                int clientIndex = c;
+                futures.add(pool.submit(() -> {
+                    long[] getLatencies = new long[requests];
+                    long[] latencies = new long[requests];
+                    int getCount = 0;
+                    for (int i = 0; i < requests; i++) {
+                        HttpRequest request;
+                        boolean write = (i + clientIndex) % 20 == 0;
+                        if (write) {
+                            Task task = new Task("new", "desc", start.plusMinutes(30L * created.getAndIncrement()),
+                                    Duration.ofMinutes(15));
+                            request = HttpRequest.newBuilder(URI.create("http://localhost:8080/tasks"))
+                                    .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(task))).build();
+                        } else {
+                            request = HttpRequest.newBuilder(URI.create("http://localhost:8080/tasks")).GET().build();
+                        }
+                        long sent = System.nanoTime();
+                        client.send(request, HttpResponse.BodyHandlers.discarding());
+                        latencies[i] = System.nanoTime() - sent;
+                        if (!write) {
+                            getLatencies[getCount++] = latencies[i];
+                        }
+                    }
+                    gets[clientIndex] = Arrays.copyOf(getLatencies, getCount);
+                    all[clientIndex] = latencies;
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+            server.stopServer();
+        }
+        if (print) {
+            System.out.printf("%-16s %d clients x %d requests: GET p50 %6.2f ms, p99 %7.2f ms; all p50 %6.2f ms, "
+                            + "p99 %7.2f ms%n", mode, clients, requests, percentile(gets, 50), percentile(gets, 99),
+                    percentile(all, 50), percentile(all, 99));
+        }
+    }
+
+    private static double percentile(long[][] latencies, int percent) {
+        long[] merged = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+        int index = Math.min(merged.length - 1, (int) Math.ceil(merged.length * percent / 100.0) - 1);
+        return merged[Math.max(0, index)] / 1e6;
+    }
+
+    // Создание задачи держит запись столько же, сколько её сохранение на диск в FileBackedTaskManager.
+    private static final class SlowSaveTaskManager extends ConcurrentTaskManager {
+        private final int saveMillis;
+
+        SlowSaveTaskManager(int saveMillis) {
+            super(Managers.getDefaultHistory());
+            this.saveMillis = saveMillis;
+        }
+
+        @Override
+        public synchronized Task createTask(Task task) {
+            Task created = super.createTask(task);
+            try {
+                Thread.sleep(saveMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return created;
+        }
+    }
+}
@@ -74,4 +74,76 @@ class HttpTaskManagerPrioritizedTasksTest {
                 subTasks.get(1).getId(), subTasks.get(2).getId()));
 
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Get prioritized tasks in time range")
+    public void shouldGetPrioritizedTasksInRange() throws IOException, InterruptedException {
+        LocalDateTime start = LocalDateTime.of(2024, 6, 17, 10, 0);
+        Task task1 = taskManager.createTask(new Task("name1", "description1", start, Duration.ofMinutes(30)));
+        Task task2 = taskManager.createTask(new Task("name2", "description2", start.plusHours(1),
+                Duration.ofMinutes(30)));
+        taskManager.createTask(new Task("name3", "description3", start.plusHours(2), Duration.ofMinutes(30)));
+
+        HttpResponse<String> response;
+        HttpResponse<String> badResponse;
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            response = client.send(HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:8080/prioritized?from=2024-06-17T10:15&to=2024-06-17T11:15"))
+                    .GET()
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            badResponse = client.send(HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:8080/prioritized?limit=many"))
+                    .GET()
+                    .build(), HttpResponse.BodyHandlers.ofString());
+        }
+        List<Task> tasks = gson.fromJson(response.body(), new TypeToken<ArrayList<Task>>() {
+        }.getType());
+
+        assertEquals(200, response.statusCode());
+        assertEquals(List.of(task1, task2), tasks);
+        assertEquals(400, badResponse.statusCode());
+    }
+
+    @Test
+    @DisplayName("Find free slot")
+    public void shouldFindFreeSlot() throws IOException, InterruptedException {
+        LocalDateTime start = LocalDateTime.of(2024, 6, 17, 10, 0);
+        taskManager.createTask(new Task("name1", "description1", start, Duration.ofMinutes(30)));
+        taskManager.createTask(new Task("name2", "description2", start.plusMinutes(45), Duration.ofMinutes(30)));
+
+        HttpResponse<String> response;
+        HttpResponse<String> badResponse;
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            response = client.send(HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:8080/prioritized/free?after=2024-06-17T10:00&duration=20"))
+                    .GET()
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            badResponse = client.send(HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:8080/prioritized/free?after=2024-06-17T10:00"))
+                    .GET()
+                    .build(), HttpResponse.BodyHandlers.ofString());
+        }
+
+        assertEquals(200, response.statusCode());
+        assertEquals(start.plusMinutes(75), gson.fromJson(response.body(), LocalDateTime.class));
+        assertEquals(400, badResponse.statusCode());
+    }
+
+    @Test
+    @DisplayName("Overflowing free slot requests are rejected and unknown paths are not found")
+    public void shouldRejectOverflowAndUnknownPaths() throws IOException, InterruptedException {
+        List<Integer> codes = new ArrayList<>();
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            for (String path : List.of("/prioritized/free?duration=" + Long.MAX_VALUE,
+                    "/prioritized/free?duration=-5",
+                    "/prioritized/other", "/prioritized/free/more")) {
+                codes.add(client.send(HttpRequest.newBuilder()
+                        .uri(URI.create("http://localhost:8080" + path))
+                        .GET()
+                        .build(), HttpResponse.BodyHandlers.ofString()).statusCode());
+            }
+        }
+
+        assertEquals(List.of(400, 400, 404, 404), codes);
+    }
+}
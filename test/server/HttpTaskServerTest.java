@@ -0,0 +1,129 @@
+package server;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import model.Epic;
+import model.StringPool;
+import model.SubTask;
+import model.Task;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import service.ConcurrentTaskManager;
+import service.InMemoryTaskManager;
+import service.Managers;
+import service.TaskManager;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class HttpTaskServerTest {
+    private static final int REQUESTS = 50;
+
+    Gson gson = HttpTaskServer.getGson();
+
+    @Test
+    @DisplayName("Server on virtual threads handles parallel requests")
+    public void shouldHandleParallelRequestsOnVirtualThreads() throws Exception {
+        assertParallelCreation(ServerExecutorMode.VIRTUAL_THREADS);
+    }
+
+    @Test
+    @DisplayName("Server on platform pool handles parallel requests")
+    public void shouldHandleParallelRequestsOnPlatformPool() throws Exception {
+        assertParallelCreation(ServerExecutorMode.PLATFORM_POOL);
+    }
+
+    private void assertParallelCreation(ServerExecutorMode executorMode) throws Exception {
+        TaskManager taskManager = new ConcurrentTaskManager(Managers.getDefaultHistory());
+        HttpTaskServer server = new HttpTaskServer(taskManager, executorMode, 128);
+        server.startServer();
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            LocalDateTime start = LocalDateTime.now();
+            List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+            for (int i = 0; i < REQUESTS; i++) {
+                String taskJson = gson.toJson(new Task("name" + i, "description" + i,
+                        start.plusMinutes(10L * i), Duration.ofMinutes(5)));
+                HttpRequest request = HttpRequest.newBuilder()
+                        .uri(URI.create("http://localhost:8080/tasks"))
+                        .POST(HttpRequest.BodyPublishers.ofString(taskJson))
+                        .build();
+                responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+            }
+            for (CompletableFuture<HttpResponse<String>> response : responses) {
+                assertEquals(201, response.get().statusCode());
+            }
+        } finally {
+            server.stopServer();
+        }
+        assertEquals(REQUESTS, taskManager.getTasks().size());
+        assertEquals(REQUESTS, taskManager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    @DisplayName("History is kept per session header")
+    public void shouldKeepHistoryPerSession() throws IOException, InterruptedException {
+        TaskManager sessionManager = new InMemoryTaskManager(Managers.getSessionHistory(10, 100,
+                Duration.ofMinutes(30)));
+        Epic epic = sessionManager.createEpic(new Epic("name", "description"));
+        SubTask subTask = sessionManager.createSubTask(new SubTask("name1", "description1",
+                epic.getId(), LocalDateTime.now(), Duration.ofMinutes(1)));
+        HttpTaskServer sessionServer = new HttpTaskServer(sessionManager);
+        sessionServer.startServer();
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            client.send(HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:8080/subtasks/" + subTask.getId()))
+                    .header(SessionFilter.SESSION_HEADER, "alice")
+                    .GET()
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> alice = client.send(HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:8080/history"))
+                    .header(SessionFilter.SESSION_HEADER, "alice")
+                    .GET()
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> bob = client.send(HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:8080/history"))
+                    .header(SessionFilter.SESSION_HEADER, "bob")
+                    .GET()
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            List<SubTask> aliceHistory = gson.fromJson(alice.body(), new TypeToken<ArrayList<SubTask>>() {
+            }.getType());
+            List<SubTask> bobHistory = gson.fromJson(bob.body(), new TypeToken<ArrayList<SubTask>>() {
+            }.getType());
+
+            assertEquals(List.of(subTask), aliceHistory);
+            assertEquals(List.of(), bobHistory);
+        } finally {
+            sessionServer.stopServer();
+        }
+    }
+
+    @Test
+    @DisplayName("Only task names and descriptions go through the string pool")
+    public void shouldInternOnlyTaskStrings() {
+        StringPool previous = StringPool.getDefault();
+        StringPool pool = new StringPool(true, 1024);
+        StringPool.setDefault(pool);
+        try {
+            Task first = gson.fromJson("{\"name\":\"name\",\"description\":\"desc\"}", Task.class);
+            Task second = gson.fromJson("{\"name\":\"name\",\"description\":\"desc\"}", Task.class);
+            assertSame(first.getName(), second.getName());
+            assertSame(first.getDescription(), second.getDescription());
+            long lookups = pool.getLookupCount();
+            gson.fromJson("[\"name\",\"other\"]", String[].class);
+            assertEquals(lookups, pool.getLookupCount(), "Plain strings should not be pooled");
+        } finally {
+            StringPool.setDefault(previous);
+        }
+    }
+}
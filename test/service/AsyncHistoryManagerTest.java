@@ -0,0 +1,127 @@
+package service;
+
+import model.Task;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncHistoryManagerTest {
+
+    private static Task task(int id) {
+        Task task = new Task("name" + id, "desc" + id, LocalDateTime.now(), Duration.ofMinutes(15));
+        task.setId(id);
+        return task;
+    }
+
+    private static List<Integer> ids(HistoryManager historyManager) {
+        return historyManager.getHistory().stream().map(Task::getId).toList();
+    }
+
+    // История, которая задерживает первый просмотр, пока тест не отпустит потребителя.
+    private static class BlockingHistoryManager extends InMemoryHistoryManager {
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public void add(Task task) {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            super.add(task);
+        }
+    }
+
+    @Test
+    @DisplayName("History reflects every update made before the read")
+    public void shouldReadOwnUpdates() {
+        HistoryManager historyManager = new AsyncHistoryManager(new InMemoryHistoryManager(), 4,
+                AsyncHistoryManager.OverflowPolicy.BACKPRESSURE);
+        for (int id = 1; id <= 20; id++) {
+            historyManager.add(task(id % 5));
+        }
+        historyManager.remove(3);
+        assertEquals(List.of(1, 2, 4, 0), ids(historyManager));
+    }
+
+    @Test
+    @DisplayName("Oldest views are dropped when the buffer is full")
+    public void shouldDropOldestViews() throws InterruptedException {
+        BlockingHistoryManager blocking = new BlockingHistoryManager();
+        AsyncHistoryManager historyManager = new AsyncHistoryManager(blocking, 2,
+                AsyncHistoryManager.OverflowPolicy.DROP_OLDEST);
+        historyManager.add(task(1));
+        assertTrue(blocking.entered.await(5, TimeUnit.SECONDS));
+        historyManager.add(task(2));
+        historyManager.add(task(3));
+        historyManager.add(task(4));  // Буфер заполнен, просмотр 2 выбрасывается.
+        blocking.release.countDown();
+        assertEquals(List.of(1, 3, 4), ids(historyManager));
+        assertEquals(1, historyManager.getDroppedCount());
+    }
+
+    @Test
+    @DisplayName("Caller waits for free space under backpressure")
+    public void shouldApplyBackpressure() throws Exception {
+        BlockingHistoryManager blocking = new BlockingHistoryManager();
+        AsyncHistoryManager historyManager = new AsyncHistoryManager(blocking, 1,
+                AsyncHistoryManager.OverflowPolicy.BACKPRESSURE);
+        historyManager.add(task(1));
+        assertTrue(blocking.entered.await(5, TimeUnit.SECONDS));
+        historyManager.add(task(2));
+        CompletableFuture<Void> blocked = CompletableFuture.runAsync(() -> historyManager.add(task(3)));
+        Thread.sleep(100);
+        assertFalse(blocked.isDone());
+        blocking.release.countDown();
+        blocked.get(5, TimeUnit.SECONDS);
+        assertEquals(List.of(1, 2, 3), ids(historyManager));
+        assertEquals(0, historyManager.getDroppedCount());
+    }
+
+    @Test
+    @DisplayName("Close applies pending events and rejects later calls")
+    public void shouldApplyPendingEventsOnClose() throws InterruptedException {
+        BlockingHistoryManager blocking = new BlockingHistoryManager();
+        AsyncHistoryManager historyManager = new AsyncHistoryManager(blocking, 4,
+                AsyncHistoryManager.OverflowPolicy.BACKPRESSURE);
+        historyManager.add(task(1));
+        assertTrue(blocking.entered.await(5, TimeUnit.SECONDS));
+        historyManager.add(task(2));
+        blocking.release.countDown();
+        historyManager.close();
+        assertEquals(List.of(1, 2), ids(blocking));
+        assertThrows(IllegalStateException.class, () -> historyManager.add(task(3)));
+        assertThrows(IllegalStateException.class, historyManager::getHistory);
+        historyManager.close();
+    }
+
+    @Test
+    @DisplayName("Reads fail instead of hanging when the consumer dies")
+    public void shouldFailReadsWhenConsumerDies() {
+        HistoryManager failing = new InMemoryHistoryManager() {
+            @Override
+            public void add(Task task) {
+                throw new AssertionError("broken history");
+            }
+        };
+        AsyncHistoryManager historyManager = new AsyncHistoryManager(failing, 4,
+                AsyncHistoryManager.OverflowPolicy.BACKPRESSURE);
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            historyManager.add(task(1));
+            assertThrows(RuntimeException.class, historyManager::getHistory);
+            IllegalStateException e = assertThrows(IllegalStateException.class, () -> historyManager.add(task(2)));
+            assertInstanceOf(AssertionError.class, e.getCause());
+        });
+        historyManager.close();
+    }
+}
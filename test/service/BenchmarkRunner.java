@@ -0,0 +1,86 @@
+package service;
+
+import java.util.Arrays;
+
+/*
+ * Общий замер для бенчмарков с main в test: сначала прогревочные итерации, затем замеренные; по ним
+ * печатаются среднее и стандартное отклонение времени на операцию. Итерация сама отмечает замеряемую
+ * часть через Timer, подготовка вне start/stop не учитывается. Результаты работы складываются в sink,
+ * чтобы JIT не выбросил её как ненужную.
+ * Запуск: java -cp <классы src и test> service.<Бенчмарк> [параметры из комментария бенчмарка]
+ */
+final class BenchmarkRunner {
+    private static volatile long sink;
+
+    interface Iteration {
+        void run(Timer timer) throws Exception;
+    }
+
+    static final class Timer {
+        private long started;
+        private long elapsed;
+        private long consumed;
+
+        void start() {
+            started = System.nanoTime();
+        }
+
+        void stop() {
+            elapsed += System.nanoTime() - started;
+        }
+
+        void consume(long value) {
+            consumed += value;
+        }
+    }
+
+    record Result(String name, double mean, double stddev, int iterations) {
+        @Override
+        public String toString() {
+            return String.format("%-48s %14.1f +- %10.1f ns/op  (%d iterations)", name, mean, stddev, iterations);
+        }
+    }
+
+    private BenchmarkRunner() {
+    }
+
+    // ops - число операций в одной итерации, время итерации делится на него.
+    static Result measure(String name, int warmups, int iterations, long ops, Iteration iteration) throws Exception {
+        for (int i = 0; i < warmups; i++) {
+            run(iteration);
+        }
+        double[] perOp = new double[iterations];
+        for (int i = 0; i < iterations; i++) {
+            perOp[i] = (double) run(iteration) / ops;
+        }
+        double mean = Arrays.stream(perOp).average().orElse(0);
+        double variance = Arrays.stream(perOp).map(value -> (value - mean) * (value - mean)).sum()
+                / Math.max(1, iterations - 1);
+        Result result = new Result(name, mean, Math.sqrt(variance), iterations);
+        System.out.println(result);
+        return result;
+    }
+
+    // Занятая куча после нескольких полных сборок; разность двух замеров - размер того, что между ними создано.
+    static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(50);
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+
+    static void consume(long value) {
+        sink += value;
+    }
+
+    private static long run(Iteration iteration) throws Exception {
+        Timer timer = new Timer();
+        iteration.run(timer);
+        sink += timer.consumed;
+        return timer.elapsed;
+    }
+}
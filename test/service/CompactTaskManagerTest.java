@@ -0,0 +1,228 @@
+package service;
+
+import model.Epic;
+import model.Status;
+import model.StringPool;
+import model.SubTask;
+import model.Task;
+import model.TaskType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactTaskManagerTest extends TaskManagerTest<InMemoryTaskManager> {
+
+    @Override
+    CompactTaskManager createTaskManager() {
+        try {
+            return CompactTaskManager.loadFromFileStatic(File.createTempFile("tasks", ".csv"));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Test
+    @DisplayName("Board is served from primitive columns and changed through them")
+    public void shouldServeFromColumnsAndWriteThroughThem() throws IOException {
+        File fileTemp = File.createTempFile("tasks", ".csv");
+        TaskManager writer = new FileBackedTaskManager(Managers.getDefaultHistory(), fileTemp);
+        LocalDateTime start = LocalDateTime.now();
+        Task task1 = writer.createTask(new Task("name1", "desc", start, Duration.ofMinutes(15)));
+        Epic epic1 = writer.createEpic(new Epic("name2", "desc"));
+        SubTask subTask1 = writer.createSubTask(new SubTask("name3", "desc", epic1.getId(),
+                start.plusMinutes(30), Duration.ofMinutes(15)));
+        subTask1.setStatus(Status.DONE);
+        writer.updateSubTask(subTask1);
+
+        CompactTaskManager compactManager = CompactTaskManager.loadFromFileStatic(fileTemp);
+        Task restored = compactManager.getTask(task1.getId());
+        assertEquals(task1, restored);
+        assertEquals(task1.getStartTime(), restored.getStartTime());
+        assertEquals(task1.getEndTime(), restored.getEndTime());
+        assertEquals(writer.getEpic(epic1.getId()), compactManager.getEpic(epic1.getId()));
+        assertEquals(subTask1, compactManager.getSubTask(subTask1.getId()));
+        assertNull(compactManager.getSubTask(task1.getId()), "Task should not be returned as a subtask");
+        assertEquals(List.of(subTask1), compactManager.getAllSubStacksByEpicId(epic1.getId()));
+        assertEquals(writer.getPrioritizedTasks(), compactManager.getPrioritizedTasks());
+        assertFalse(compactManager.isMaterialized());
+
+        compactManager.deleteByIdTask(task1.getId());
+        SubTask subTask2 = compactManager.createSubTask(new SubTask("name4", "desc4", epic1.getId(),
+                LocalDateTime.now().plusMinutes(60), Duration.ofMinutes(15)));
+        subTask1.setStatus(Status.NEW);
+        compactManager.updateSubTask(subTask1);
+        assertFalse(compactManager.isMaterialized());
+        assertEquals(0, compactManager.getTasks().size());
+        assertEquals(List.of(subTask1, subTask2), compactManager.getAllSubStacksByEpicId(epic1.getId()));
+        Epic changedEpic = compactManager.getEpic(epic1.getId());
+        assertEquals(Status.NEW, changedEpic.getStatus());
+        assertEquals(subTask1.getStartTime(), changedEpic.getStartTime());
+        assertEquals(subTask2.getEndTime(), changedEpic.getEndTime());
+        assertEquals(List.of(subTask1, subTask2), compactManager.getPrioritizedTasks());
+
+        CompactTaskManager reopened = CompactTaskManager.loadFromFileStatic(fileTemp);
+        assertFalse(reopened.isMaterialized());
+        assertEquals(compactManager.getTasks(), reopened.getTasks());
+        assertEquals(compactManager.getEpics(), reopened.getEpics());
+        assertEquals(compactManager.getSubTasks(), reopened.getSubTasks());
+        assertEquals(compactManager.getPrioritizedTasks(), reopened.getPrioritizedTasks());
+        assertEquals(compactManager.getEpics(), FileBackedTaskManager.loadFromFileStatic(fileTemp).getEpics());
+    }
+
+    @Test
+    @DisplayName("Equal names and descriptions are stored once")
+    public void shouldPoolStrings() {
+        Task task1 = new Task("name", "desc");
+        task1.setId(1);
+        Task task2 = new Task("name", "desc");
+        task2.setId(2);
+        CompactTaskStore store = CompactTaskStore.of(List.of(task1, task2), List.of(), List.of());
+
+        assertEquals(2, store.size());
+        assertEquals(2, store.getStringCount());
+        assertEquals(List.of(task1, task2), store.getAll(TaskType.TASK));
+    }
+
+    @Test
+    @DisplayName("Snapshot strings are not kept in the shared string pool")
+    public void shouldNotInternSnapshotStrings() throws IOException {
+        File fileTemp = File.createTempFile("tasks", ".bin");
+        TaskManager writer = new FileBackedTaskManager(Managers.getDefaultHistory(), fileTemp,
+                StorageMode.SNAPSHOT, SnapshotFormat.BINARY, DurabilityPolicy.SYNC);
+        LocalDateTime start = LocalDateTime.now();
+        writer.createTask(new Task("name1", "desc1", start, Duration.ofMinutes(15)));
+        writer.createTask(new Task("name2", "desc2", start.plusMinutes(30), Duration.ofMinutes(15)));
+        StringPool previous = StringPool.getDefault();
+        StringPool pool = new StringPool(true, 1024);
+        StringPool.setDefault(pool);
+        try {
+            CompactTaskManager compactManager = CompactTaskManager.loadFromFileStatic(fileTemp);
+            assertEquals(writer.getTasks(), byId(compactManager.getTasks()));
+            assertEquals(0, pool.getLookupCount(), "The store keeps its own strings");
+            FileBackedTaskManager.loadFromFileStatic(fileTemp);
+            assertEquals(4, pool.getLookupCount());
+        } finally {
+            StringPool.setDefault(previous);
+        }
+    }
+
+    @Test
+    @DisplayName("Time queries are answered from the store without loading the board")
+    public void shouldAnswerTimeQueriesFromStore() throws IOException {
+        File fileTemp = File.createTempFile("tasks", ".csv");
+        TaskManager writer = new FileBackedTaskManager(Managers.getDefaultHistory(), fileTemp);
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 10, 0);
+        writer.createTask(new Task("name1", "desc", start.plusSeconds(30), Duration.ZERO));
+        writer.createTask(new Task("name2", "desc", start.plusSeconds(10), Duration.ZERO));
+        writer.createTask(new Task("name3", "desc", start.plusMinutes(5), Duration.ofMinutes(10)));
+        Epic epic1 = writer.createEpic(new Epic("name4", "desc"));
+        writer.createSubTask(new SubTask("name5", "desc", epic1.getId(), start.plusHours(1), Duration.ofMinutes(30)));
+        writer.createSubTask(new SubTask("name6", "desc", epic1.getId(), start.plusHours(2), Duration.ofMinutes(30)));
+        writer.createEpic(new Epic("name7", "desc"));
+
+        CompactTaskManager lazyManager = CompactTaskManager.loadFromFileStatic(fileTemp);
+        assertEquals(writer.getPrioritizedTasks(), lazyManager.getPrioritizedTasks());
+        for (LocalDateTime from : List.of(start, start.plusMinutes(6), start.plusMinutes(90), start.plusHours(3))) {
+            assertEquals(writer.getPrioritizedTasks(from, from.plusHours(1), 10),
+                    lazyManager.getPrioritizedTasks(from, from.plusHours(1), 10));
+            assertEquals(writer.findFreeSlot(from, Duration.ofMinutes(40)),
+                    lazyManager.findFreeSlot(from, Duration.ofMinutes(40)));
+        }
+        assertEquals(writer.getPrioritizedTasks(null, null, 3), lazyManager.getPrioritizedTasks(null, null, 3));
+        assertFalse(lazyManager.isMaterialized());
+        TaskSnapshot snapshot = lazyManager.snapshot();
+        assertEquals(writer.getPrioritizedTasks(), List.copyOf(snapshot.getPrioritizedTasks()));
+        assertEquals(writer.getEpics(), List.copyOf(snapshot.getEpics()));
+        assertEquals(writer.getPrioritizedTasks(start, null, 10), snapshot.getPrioritizedTasks(start, null, 10));
+        assertFalse(lazyManager.isMaterialized());
+    }
+
+    @Test
+    @DisplayName("Journal is replayed into the columns without loading the board")
+    public void shouldReplayJournalIntoColumns() throws IOException {
+        File fileTemp = File.createTempFile("tasks", ".csv");
+        FileBackedTaskManager writer = new FileBackedTaskManager(Managers.getDefaultHistory(), fileTemp,
+                StorageMode.JOURNAL);
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 10, 0);
+        Task task1 = writer.createTask(new Task("name1", "desc", start, Duration.ofMinutes(15)));
+        writer.createTask(new Task("name2", "desc", start.plusHours(1), Duration.ofMinutes(15)));
+        Epic epic1 = writer.createEpic(new Epic("name3", "desc"));
+        writer.createSubTask(new SubTask("name4", "desc", epic1.getId(), start.plusHours(2), Duration.ofMinutes(30)));
+        writer.deleteAllSubTasks();
+        SubTask subTask1 = writer.createSubTask(new SubTask("name5", "desc", epic1.getId(), start.plusHours(3),
+                Duration.ofMinutes(30)));
+        SubTask subTask2 = writer.createSubTask(new SubTask("name6", "desc", epic1.getId(), start.plusHours(4),
+                Duration.ofMinutes(30)));
+        subTask1.setStatus(Status.DONE);
+        writer.updateSubTask(subTask1);
+        writer.deleteByIdSubTask(subTask2.getId());
+        writer.deleteByIdTask(task1.getId());
+        assertEquals(0, fileTemp.length(), "Changes should stay in the journal");
+
+        CompactTaskManager compactManager = CompactTaskManager.loadFromFileStatic(fileTemp);
+        assertEquals(byId(writer.getTasks()), compactManager.getTasks());
+        assertEquals(byId(writer.getEpics()), compactManager.getEpics());
+        assertEquals(byId(writer.getSubTasks()), compactManager.getSubTasks());
+        assertEquals(writer.getPrioritizedTasks(), compactManager.getPrioritizedTasks());
+        Epic restoredEpic = compactManager.getEpic(epic1.getId());
+        assertEquals(Status.DONE, restoredEpic.getStatus());
+        assertEquals(start.plusHours(3), restoredEpic.getStartTime());
+        assertEquals(start.plusHours(3).plusMinutes(30), restoredEpic.getEndTime());
+        assertFalse(compactManager.isMaterialized());
+    }
+
+    @Test
+    @DisplayName("CSV board is loaded as by FileBackedTaskManager, empty epics included")
+    public void shouldLoadCsvLikeFileBackedManager() throws IOException {
+        File fileTemp = File.createTempFile("tasks", ".csv");
+        TaskManager writer = new FileBackedTaskManager(Managers.getDefaultHistory(), fileTemp);
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 10, 0);
+        writer.createTask(new Task("name1", "desc", start, Duration.ofMinutes(15)));
+        writer.createEpic(new Epic("name2", "desc"));
+        Epic epic1 = writer.createEpic(new Epic("name3", "desc"));
+        SubTask subTask1 = writer.createSubTask(new SubTask("name4", "desc", epic1.getId(), start.plusHours(1),
+                Duration.ofMinutes(30)));
+        subTask1.setStatus(Status.DONE);
+        writer.updateSubTask(subTask1);
+        Epic epic2 = writer.createEpic(new Epic("name5", "desc"));
+        SubTask subTask2 = writer.createSubTask(new SubTask("name6", "desc", epic2.getId(), start.plusHours(2),
+                Duration.ofMinutes(30)));
+        subTask2.setStatus(Status.IN_PROGRESS);
+        writer.updateSubTask(subTask2);
+        writer.deleteByIdSubTask(subTask2.getId());
+
+        TaskManager expected = FileBackedTaskManager.loadFromFileStatic(fileTemp);
+        CompactTaskManager compactManager = CompactTaskManager.loadFromFileStatic(fileTemp);
+        assertEquals(byId(expected.getTasks()), byId(compactManager.getTasks()));
+        assertEquals(byId(expected.getSubTasks()), byId(compactManager.getSubTasks()));
+        List<Epic> expectedEpics = byId(expected.getEpics());
+        List<Epic> epics = byId(compactManager.getEpics());
+        assertEquals(expectedEpics, epics);
+        for (int i = 0; i < epics.size(); i++) {
+            Epic expectedEpic = expectedEpics.get(i);
+            Epic epic = epics.get(i);
+            if (expectedEpic.isEmpty()) {  // Пустой эпик начинается в момент загрузки, поэтому сверяется длительность.
+                assertEquals(Duration.ofMinutes(15), expectedEpic.getDuration());
+                assertNotNull(epic.getStartTime());
+                assertEquals(Duration.ofMinutes(15), epic.getDuration());
+                assertEquals(epic.getStartTime().plusMinutes(15), epic.getEndTime());
+            } else {
+                assertEquals(expectedEpic.getStartTime(), epic.getStartTime());
+                assertEquals(expectedEpic.getDuration(), epic.getDuration());
+                assertEquals(expectedEpic.getEndTime(), epic.getEndTime());
+            }
+        }
+    }
+
+    private static <T extends Task> List<T> byId(List<T> tasks) {  // Порядок списков менеджера не определён.
+        return tasks.stream().sorted(Comparator.comparingInt(Task::getId)).toList();
+    }
+}
@@ -0,0 +1,91 @@
+package service;
+
+import model.Task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/*
+ * Замер истории под конкуренцией: потоки смешивают просмотры, удаления и чтение истории.
+ * Сравнивается ConcurrentHistoryManager и InMemoryHistoryManager за общей блокировкой, обе без ограничения.
+ * Время итерации делится на число операций всех потоков.
+ * Запуск: java -cp <классы> service.ConcurrentHistoryBenchmark [потоков] [операций на поток]
+ */
+public class ConcurrentHistoryBenchmark {
+    private static final int TASKS = 10_000;
+    private static final int WARMUPS = 3;
+    private static final int ITERATIONS = 10;
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int operations = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        Task[] tasks = new Task[TASKS];
+        for (int id = 0; id < TASKS; id++) {
+            tasks[id] = new Task("name" + id, "desc");
+            tasks[id].setId(id);
+        }
+        long ops = (long) threads * operations;
+        BenchmarkRunner.measure(String.format("ConcurrentHistoryManager, %d threads", threads), WARMUPS, ITERATIONS,
+                ops, timer -> run(ConcurrentHistoryManager::new, tasks, threads, operations, timer));
+        BenchmarkRunner.measure(String.format("synchronized InMemoryHistoryManager, %d threads", threads), WARMUPS,
+                ITERATIONS, ops, timer -> run(() -> new LockedHistoryManager(new InMemoryHistoryManager()), tasks,
+                        threads, operations, timer));
+    }
+
+    private static void run(Supplier<HistoryManager> factory, Task[] tasks, int threads, int operations,
+                            BenchmarkRunner.Timer timer) throws Exception {
+        HistoryManager historyManager = factory.get();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        timer.start();
+        for (int thread = 0; thread < threads; thread++) {
+            int seed = thread * 7919;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < operations; i++) {
+                    int id = Math.floorMod(i * 31 + seed, TASKS);
+                    int kind = i % 100;
+                    if (kind < 90) {
+                        historyManager.add(tasks[id]);
+                    } else if (kind < 99) {
+                        historyManager.remove(id);
+                    } else {
+                        historyManager.getHistory();
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        timer.stop();
+        executor.shutdown();
+        timer.consume(historyManager.getHistory().size());
+    }
+
+    private static final class LockedHistoryManager implements HistoryManager {
+        private final HistoryManager historyManager;
+
+        LockedHistoryManager(HistoryManager historyManager) {
+            this.historyManager = historyManager;
+        }
+
+        @Override
+        public synchronized void add(Task task) {
+            historyManager.add(task);
+        }
+
+        @Override
+        public synchronized void remove(int id) {
+            historyManager.remove(id);
+        }
+
+        @Override
+        public synchronized List<Task> getHistory() {
+            return historyManager.getHistory();
+        }
+    }
+}
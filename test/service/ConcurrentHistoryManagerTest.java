@@ -0,0 +1,114 @@
+package service;
+
+import model.Task;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentHistoryManagerTest {
+
+    private static Task task(int id) {
+        Task task = new Task("name" + id, "desc" + id, LocalDateTime.now(), Duration.ofMinutes(15));
+        task.setId(id);
+        return task;
+    }
+
+    private static List<Integer> ids(HistoryManager historyManager) {
+        return historyManager.getHistory().stream().map(Task::getId).toList();
+    }
+
+    @Test
+    @DisplayName("Repeated view moves task to the end")
+    public void shouldMoveRepeatedViewToEnd() {
+        HistoryManager historyManager = new ConcurrentHistoryManager();
+        historyManager.add(task(1));
+        historyManager.add(task(2));
+        historyManager.add(task(1));
+        assertEquals(List.of(2, 1), ids(historyManager));
+        historyManager.remove(2);
+        assertEquals(List.of(1), ids(historyManager));
+    }
+
+    @Test
+    @DisplayName("Least recently viewed tasks are evicted over capacity")
+    public void shouldEvictLeastRecentlyViewed() {
+        HistoryManager historyManager = new ConcurrentHistoryManager(3);
+        for (int id = 1; id <= 4; id++) {
+            historyManager.add(task(id));
+        }
+        assertEquals(List.of(2, 3, 4), ids(historyManager));
+        historyManager.add(task(2));
+        historyManager.add(task(5));
+        assertEquals(List.of(4, 2, 5), ids(historyManager));
+    }
+
+    @Test
+    @DisplayName("Parallel views keep history bounded and without duplicates")
+    public void shouldStayBoundedUnderParallelViews() throws Exception {
+        HistoryManager historyManager = new ConcurrentHistoryManager(50);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++) {
+            int seed = thread;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 5000; i++) {
+                    int id = (i * 31 + seed) % 200;
+                    if (i % 10 == 0) {
+                        historyManager.remove(id);
+                    } else {
+                        historyManager.add(task(id));
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        List<Integer> history = ids(historyManager);
+        assertTrue(history.size() <= 50);
+        assertEquals(history.size(), new HashSet<>(history).size());
+    }
+
+    @Test
+    @DisplayName("Racing views and removals of the same tasks leave no stale entries")
+    public void shouldLeaveNoStaleEntriesAfterRaces() throws Exception {
+        ConcurrentHistoryManager historyManager = new ConcurrentHistoryManager(1000);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++) {
+            int seed = thread;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    int id = (i + seed) % 4;
+                    if ((i + seed) % 2 == 0) {
+                        historyManager.remove(id);
+                    } else {
+                        historyManager.add(task(id));
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        for (int id = 0; id < 4; id++) {
+            historyManager.remove(id);
+        }
+
+        assertEquals(List.of(), ids(historyManager));
+        assertEquals(0, historyManager.getOrderSize());
+    }
+}
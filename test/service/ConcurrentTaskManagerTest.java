@@ -0,0 +1,195 @@
+package service;
+
+import model.Epic;
+import model.Status;
+import model.SubTask;
+import model.Task;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import service.exception.ValidationException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentTaskManagerTest extends TaskManagerTest<ConcurrentTaskManager> {
+
+    @Override
+    ConcurrentTaskManager createTaskManager() {
+        return new ConcurrentTaskManager(Managers.getDefaultHistory());
+    }
+
+    @Test
+    @DisplayName("Parallel creation keeps ids unique and epics consistent")
+    public void shouldCreateInParallel() throws Exception {
+        List<Epic> epicList = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            epicList.add(taskManager.createEpic(new Epic("epic" + i, "desc")));
+        }
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 800; i++) {
+            int n = i;
+            futures.add(executor.submit(() -> {
+                SubTask created = taskManager.createSubTask(new SubTask("sub" + n, "desc",
+                        epicList.get(n % 8).getId(), start.plusMinutes(20L * n), Duration.ofMinutes(15)));
+                created.setStatus(Status.DONE);
+                taskManager.updateSubTask(created);
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(801, taskManager.getSubTasks().size());
+        assertEquals(801, new HashSet<>(taskManager.getSubTasks().stream().map(Task::getId).toList()).size());
+        assertEquals(802, taskManager.getPrioritizedTasks().size());
+        for (Epic epic1 : epicList) {
+            assertEquals(100, taskManager.getAllSubStacksByEpicId(epic1.getId()).size());
+            assertEquals(Status.DONE, epic1.getStatus());
+        }
+    }
+
+    @Test
+    @DisplayName("Epics created while all epics are deleted are published consistently")
+    public void shouldPublishEpicsCreatedDuringClear() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            int n = i;
+            futures.add(executor.submit(() -> {
+                if (n % 100 == 0) {
+                    taskManager.deleteAllEpics();
+                } else {
+                    taskManager.createEpic(new Epic("epic" + n, "desc"));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(new HashSet<>(taskManager.epics.keySet()),
+                new HashSet<>(taskManager.getEpics().stream().map(Task::getId).toList()));
+    }
+
+    @Test
+    @DisplayName("Only one of the overlapping tasks created in parallel is accepted")
+    public void shouldRejectParallelOverlaps() throws Exception {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        AtomicInteger rejected = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            int n = i;
+            futures.add(executor.submit(() -> {
+                try {
+                    taskManager.createTask(new Task("task" + n, "desc", start.plusMinutes(n % 10),
+                            Duration.ofMinutes(15)));
+                } catch (ValidationException e) {
+                    rejected.incrementAndGet();
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(63, rejected.get());
+        assertEquals(2, taskManager.getTasks().size());
+        assertEquals(3, taskManager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    @DisplayName("Readers see a consistent schedule while a task is being moved")
+    public void shouldReadConsistentScheduleDuringUpdates() throws Exception {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        Task moving = taskManager.createTask(new Task("name4", "desc4", start, Duration.ofMinutes(15)));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        Future<?> writer = executor.submit(() -> {
+            for (int i = 1; i <= 2000; i++) {
+                Task update = new Task("name4", "desc4", start.plusMinutes(20L * i), Duration.ofMinutes(15));
+                update.setId(moving.getId());
+                taskManager.updateTask(update);
+            }
+        });
+        List<Future<?>> readers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            readers.add(executor.submit(() -> {
+                while (!writer.isDone()) {
+                    assertEquals(3, taskManager.getPrioritizedTasks().size());
+                    assertEquals(1, taskManager.getAllSubStacksByEpicId(epic.getId()).size());
+                }
+            }));
+        }
+        writer.get();
+        for (Future<?> reader : readers) {
+            reader.get();
+        }
+        executor.shutdown();
+        assertEquals(start.plusMinutes(40000), taskManager.getTask(moving.getId()).getStartTime());
+    }
+
+    @Test
+    @DisplayName("Returned tasks are copies that writers never change")
+    public void shouldReturnCopiesOfTasks() {
+        Task returned = taskManager.getTask(task.getId());
+        assertNotSame(task, returned);
+        returned.setStatus(Status.DONE);
+        assertEquals(Status.NEW, taskManager.getTask(task.getId()).getStatus());
+
+        Task update = new Task(task.getName(), task.getDescription(), task.getStartTime(), task.getDuration());
+        update.setId(task.getId());
+        update.setStatus(Status.IN_PROGRESS);
+        taskManager.updateTask(update);
+        assertEquals(Status.DONE, returned.getStatus(), "Writers should not change a returned copy");
+        assertEquals(Status.IN_PROGRESS, taskManager.getTasks().getFirst().getStatus());
+        assertNotSame(taskManager.getEpics().getFirst(), taskManager.getEpics().getFirst());
+    }
+
+    @Test
+    @DisplayName("Listing subtasks of an epic finishes while the epic keeps growing and shrinking")
+    public void shouldListSubTasksDuringEpicChanges() throws Exception {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        Future<?> writer = executor.submit(() -> {
+            for (int round = 0; round < 20; round++) {
+                List<Integer> created = new ArrayList<>();
+                for (int i = 0; i < 100; i++) {
+                    created.add(taskManager.createSubTask(new SubTask("sub", "desc", epic.getId(),
+                            start.plusMinutes(20L * (round * 100 + i)), Duration.ofMinutes(15))).getId());
+                }
+                created.forEach(taskManager::deleteByIdSubTask);
+            }
+        });
+        List<Future<?>> readers = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            readers.add(executor.submit(() -> {
+                while (!writer.isDone()) {
+                    List<SubTask> listed = taskManager.getAllSubStacksByEpicId(epic.getId());
+                    assertFalse(listed.contains(null));
+                    assertTrue(listed.size() <= 101);
+                }
+            }));
+        }
+        writer.get(30, TimeUnit.SECONDS);
+        for (Future<?> reader : readers) {
+            reader.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        assertEquals(List.of(subTask), taskManager.getAllSubStacksByEpicId(epic.getId()));
+    }
+}
@@ -0,0 +1,55 @@
+package service;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.ForkJoinPool;
+
+/*
+ * Замер загрузки большого CSV-снимка через FileBackedTaskManager.loadFromFileStatic. Файл из lines строк
+ * создаётся один раз: на каждые 100 строк эпик, 79 его подзадач и 20 задач. Параллельный путь загрузки
+ * выбирается при параллелизме общего пула больше 1, его задаёт
+ * -Djava.util.concurrent.ForkJoinPool.common.parallelism.
+ * Запуск: java -Xmx4g -cp <классы> service.CsvLoadBenchmark [строк] [файл]
+ */
+public class CsvLoadBenchmark {
+    private static final LocalDateTime BASE = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+    public static void main(String[] args) throws Exception {
+        int lines = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        File file = new File(args.length > 1 ? args[1] : "tasks-" + lines + ".csv");
+        if (!file.exists()) {
+            generate(file, lines);
+        }
+        System.out.printf("%d lines, %d MB, common pool parallelism %d%n", lines, file.length() >> 20,
+                ForkJoinPool.getCommonPoolParallelism());
+        BenchmarkRunner.measure("load " + lines + " lines", 1, 3, lines, timer -> {
+            timer.start();
+            TaskManager taskManager = FileBackedTaskManager.loadFromFileStatic(file);
+            timer.stop();
+            timer.consume(taskManager.getSubTasks().size());
+        });
+    }
+
+    static void generate(File file, int lines) throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file, StandardCharsets.UTF_8), 1 << 16)) {
+            writer.write("id,type,name,status,description,epic,duration,startTime\n");
+            int epicId = 0;
+            for (int id = 1; id <= lines; id++) {
+                LocalDateTime start = BASE.plusMinutes(30L * id);
+                int kind = id % 100;
+                if (kind == 1) {
+                    epicId = id;
+                    writer.write(id + ",EPIC,epic" + id + ",NEW,desc,null,15," + start + "\n");
+                } else if (kind < 80) {
+                    writer.write(id + ",SUBTASK,sub" + id + ",DONE,desc," + epicId + ",15," + start + "\n");
+                } else {
+                    writer.write(id + ",TASK,task" + id + ",NEW,desc,null,15," + start + "\n");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package service;
+
+import model.Epic;
+import model.Status;
+import model.SubTask;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Замер изменений подзадач в больших эпиках: создание, смена статуса и времени, удаление каждой второй
+ * подзадачи с конца и чтение подзадач эпика. Итерация изменений строит доску заново, в замер входит только
+ * сама операция; чтение идёт по одной доске.
+ * Запуск: java -cp <классы> service.EpicSubTasksBenchmark [эпиков] [подзадач в эпике]
+ */
+public class EpicSubTasksBenchmark {
+    private static final int WARMUPS = 2;
+    private static final int ITERATIONS = 5;
+    private static final Status[] STATUSES = Status.values();
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    public static void main(String[] args) throws Exception {
+        int epicCount = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+        int subTaskCount = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        int changes = epicCount * subTaskCount;
+        String size = String.format(" (%d x %d)", epicCount, subTaskCount);
+        BenchmarkRunner.measure("createSubTask" + size, WARMUPS, ITERATIONS, changes, timer -> {
+            TaskManager taskManager = new InMemoryTaskManager(new InMemoryHistoryManager());
+            timer.start();
+            List<SubTask> subTasks = fill(taskManager, epicCount, subTaskCount);
+            timer.stop();
+            timer.consume(subTasks.size());
+        });
+        BenchmarkRunner.measure("updateSubTask, status and time" + size, WARMUPS, ITERATIONS, changes, timer -> {
+            TaskManager taskManager = new InMemoryTaskManager(new InMemoryHistoryManager());
+            List<SubTask> subTasks = fill(taskManager, epicCount, subTaskCount);
+            timer.start();
+            for (int i = 0; i < subTasks.size(); i++) {
+                SubTask saved = subTasks.get(i);
+                SubTask changed = new SubTask(saved.getName(), saved.getDescription(), saved.getEpicId(),
+                        saved.getStartTime().plusMinutes(1), Duration.ofMinutes(20));
+                changed.setId(saved.getId());
+                changed.setStatus(STATUSES[i % STATUSES.length]);
+                taskManager.updateSubTask(changed);
+            }
+            timer.stop();
+        });
+        BenchmarkRunner.measure("deleteByIdSubTask" + size, WARMUPS, ITERATIONS, changes / 2, timer -> {
+            TaskManager taskManager = new InMemoryTaskManager(new InMemoryHistoryManager());
+            List<SubTask> subTasks = fill(taskManager, epicCount, subTaskCount);
+            timer.start();
+            for (int i = subTasks.size() - 1; i >= 0; i -= 2) {
+                taskManager.deleteByIdSubTask(subTasks.get(i).getId());
+            }
+            timer.stop();
+        });
+        TaskManager board = new InMemoryTaskManager(new InMemoryHistoryManager());
+        List<SubTask> filled = fill(board, epicCount, subTaskCount);
+        BenchmarkRunner.measure("getAllSubStacksByEpicId, per subtask" + size, WARMUPS * 50, ITERATIONS * 50,
+                changes, timer -> {
+                    timer.start();
+                    for (int e = 0; e < epicCount; e++) {
+                        timer.consume(board.getAllSubStacksByEpicId(filled.get(e * subTaskCount).getEpicId())
+                                .size());
+                    }
+                    timer.stop();
+                });
+    }
+
+    private static List<SubTask> fill(TaskManager taskManager, int epicCount, int subTaskCount) {
+        List<SubTask> subTasks = new ArrayList<>(epicCount * subTaskCount);
+        for (int e = 0; e < epicCount; e++) {
+            Epic epic = taskManager.createEpic(new Epic("epic" + e, "desc"));
+            for (int i = 0; i < subTaskCount; i++) {
+                LocalDateTime subTaskStart = BASE.plusMinutes(((long) e * subTaskCount + i) * 30);
+                subTasks.add(taskManager.createSubTask(new SubTask("sub" + i, "desc", epic.getId(), subTaskStart,
+                        Duration.ofMinutes(15))));
+            }
+        }
+        return subTasks;
+    }
+}
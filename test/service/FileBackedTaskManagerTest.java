@@ -1,13 +1,33 @@
 package service;
 
+import model.Epic;
+import model.Status;
+import model.SubTask;
+import model.Task;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class FileBackedTaskManagerTest extends TaskManagerTest<InMemoryTaskManager> {
 
@@ -51,4 +71,258 @@ class FileBackedTaskManagerTest extends TaskManagerTest<InMemoryTaskManager> {
         assertEquals(restoredManager.getSubTasks(), restoredManager2.getSubTasks());
         assertEquals(restoredManager.getPrioritizedTasks(), restoredManager2.getPrioritizedTasks());
     }
+
+    @Test
+    @DisplayName("Journal mode restores the same state as the in-memory manager")
+    public void shouldReplayJournal() throws IOException {
+        File fileTemp = File.createTempFile("tasks", ".csv");
+        TaskManager journaledManager = new FileBackedTaskManager(Managers.getDefaultHistory(), fileTemp,
+                StorageMode.JOURNAL);
+        Task task1 = journaledManager.createTask(new Task("name1", "desc1", LocalDateTime.now(),
+                Duration.ofMinutes(15)));
+        Epic epic1 = journaledManager.createEpic(new Epic("name2", "desc2"));
+        SubTask subTask1 = journaledManager.createSubTask(new SubTask("name3", "desc3", epic1.getId(),
+                LocalDateTime.now().plusMinutes(30), Duration.ofMinutes(15)));
+        journaledManager.createSubTask(new SubTask("name4", "desc4", epic1.getId(),
+                LocalDateTime.now().plusMinutes(60), Duration.ofMinutes(15)));
+        subTask1.setStatus(Status.DONE);
+        journaledManager.updateSubTask(subTask1);
+        journaledManager.deleteByIdTask(task1.getId());
+        assertEquals(0, fileTemp.length(), "Snapshot should not be rewritten on every change");
+
+        TaskManager restoredManager = FileBackedTaskManager.loadFromFileStatic(fileTemp, StorageMode.JOURNAL);
+        assertEquals(journaledManager.getTasks(), restoredManager.getTasks());
+        assertEquals(journaledManager.getEpics(), restoredManager.getEpics());
+        assertEquals(journaledManager.getSubTasks(), restoredManager.getSubTasks());
+        assertEquals(journaledManager.getPrioritizedTasks(), restoredManager.getPrioritizedTasks());
+        assertEquals(Status.IN_PROGRESS, restoredManager.getEpic(epic1.getId()).getStatus());
+    }
+
+    @Test
+    @DisplayName("Torn last journal record is skipped and cut off")
+    public void shouldCutTornJournalTail() throws IOException {
+        File fileTemp = File.createTempFile("tasks", ".csv");
+        TaskManager journaledManager = new FileBackedTaskManager(Managers.getDefaultHistory(), fileTemp,
+                StorageMode.JOURNAL);
+        Task task1 = journaledManager.createTask(new Task("name1", "desc1", LocalDateTime.now(),
+                Duration.ofMinutes(15)));
+        File journal = new File(fileTemp.getPath() + ".journal");
+        long complete = journal.length();
+        journaledManager.createTask(new Task("name2", "desc2", LocalDateTime.now().plusHours(1),
+                Duration.ofMinutes(15)));
+        byte[] written = Files.readAllBytes(journal.toPath());
+        Files.write(journal.toPath(), Arrays.copyOf(written, (int) (complete + (written.length - complete) / 2)));
+
+        TaskManager restoredManager = FileBackedTaskManager.loadFromFileStatic(fileTemp, StorageMode.JOURNAL);
+        assertEquals(List.of(task1), restoredManager.getTasks());
+        assertEquals(complete, journal.length());
+
+        Task task3 = restoredManager.createTask(new Task("name3", "desc3", LocalDateTime.now().plusHours(2),
+                Duration.ofMinutes(15)));
+        Files.writeString(journal.toPath(), "+,garbage\n", StandardOpenOption.APPEND);
+        TaskManager reloadedManager = FileBackedTaskManager.loadFromFileStatic(fileTemp, StorageMode.JOURNAL);
+        assertEquals(List.of(task1, task3), reloadedManager.getTasks());
+    }
+
+    @Test
+    @DisplayName("Journal segment of an interrupted compaction is replayed before the new journal")
+    public void shouldReplayRotatedJournalFirst() throws IOException {
+        File fileTemp = File.createTempFile("tasks", ".csv");
+        TaskManager journaledManager = new FileBackedTaskManager(Managers.getDefaultHistory(), fileTemp,
+                StorageMode.JOURNAL);
+        Task task1 = journaledManager.createTask(new Task("name1", "desc1", LocalDateTime.now(),
+                Duration.ofMinutes(15)));
+        File journal = new File(fileTemp.getPath() + ".journal");
+        File rotated = new File(fileTemp.getPath() + ".journal.compacting");
+        TaskManager interrupted = FileBackedTaskManager.loadFromFileStatic(fileTemp, StorageMode.JOURNAL);
+        Files.move(journal.toPath(), rotated.toPath());
+        task1.setStatus(Status.DONE);
+        interrupted.updateTask(task1);
+
+        TaskManager restoredManager = FileBackedTaskManager.loadFromFileStatic(fileTemp, StorageMode.JOURNAL);
+        assertEquals(Status.DONE, restoredManager.getTask(task1.getId()).getStatus());
+        assertEquals(interrupted.getTasks(), restoredManager.getTasks());
+    }
+
+    @Test
+    @DisplayName("Group commit writes a batch of changes with one flush")
+    public void shouldShareFlushInGroupCommit() throws IOException {
+        File fileTemp = File.createTempFile("tasks", ".csv");
+        FileBackedTaskManager groupManager = new FileBackedTaskManager(Managers.getDefaultHistory(), fileTemp,
+                StorageMode.JOURNAL, DurabilityPolicy.groupCommit(Duration.ofMinutes(1), 3));
+        Epic epic1 = groupManager.createEpic(new Epic("name1", "desc1"));
+        groupManager.createSubTask(new SubTask("name2", "desc2", epic1.getId(), LocalDateTime.now(),
+                Duration.ofMinutes(15)));
+        groupManager.createTask(new Task("name3", "desc3", LocalDateTime.now().plusMinutes(30),
+                Duration.ofMinutes(15)));
+        groupManager.pendingCommit().join();
+
+        DurabilityStats stats = groupManager.getDurabilityStats();
+        assertEquals(3, stats.getMutations());
+        assertEquals(1, stats.getFlushes());
+        TaskManager restoredManager = FileBackedTaskManager.loadFromFileStatic(fileTemp, StorageMode.JOURNAL);
+        assertEquals(groupManager.getTasks(), restoredManager.getTasks());
+        assertEquals(groupManager.getEpics(), restoredManager.getEpics());
+        assertEquals(groupManager.getSubTasks(), restoredManager.getSubTasks());
+    }
+
+    @Test
+    @DisplayName("Group commit writes a batch without holding the manager lock")
+    public void shouldWriteBatchOutsideLock() throws InterruptedException {
+        Object lock = new Object();
+        CountDownLatch writeStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CommitScheduler scheduler = new CommitScheduler(DurabilityPolicy.groupCommit(Duration.ofMinutes(1), 1), lock,
+                () -> fsync -> {
+                    writeStarted.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+        CompletableFuture<Void> batch;
+        synchronized (lock) {
+            batch = scheduler.submit();
+        }
+        assertTrue(writeStarted.await(10, TimeUnit.SECONDS));
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            synchronized (lock) {  // Пока пачка пишется, замок менеджера свободен.
+                assertFalse(batch.isDone());
+                assertSame(batch, scheduler.pending(), "Batch being written is still pending");
+            }
+        });
+        release.countDown();
+        batch.join();
+        assertEquals(1, scheduler.getStats().getFlushes());
+    }
+
+    @Test
+    @DisplayName("Binary snapshot is detected on load and restores the same state")
+    public void shouldLoadBinarySnapshot() throws IOException {
+        File fileTemp = File.createTempFile("tasks", ".bin");
+        TaskManager binaryManager = new FileBackedTaskManager(Managers.getDefaultHistory(), fileTemp,
+                StorageMode.SNAPSHOT, SnapshotFormat.BINARY, DurabilityPolicy.SYNC);
+        binaryManager.createTask(new Task("name1", "Ω".repeat(100_000), LocalDateTime.now(),
+                Duration.ofMinutes(15)));
+        Epic epic1 = binaryManager.createEpic(new Epic("name2", "desc2"));
+        SubTask subTask1 = binaryManager.createSubTask(new SubTask("name3", "desc3", epic1.getId(),
+                LocalDateTime.now().plusMinutes(30), Duration.ofMinutes(15)));
+        subTask1.setStatus(Status.DONE);
+        binaryManager.updateSubTask(subTask1);
+
+        assertEquals(SnapshotFormat.BINARY, FileBackedTaskManager.detectFormat(fileTemp));
+        TaskManager restoredManager = FileBackedTaskManager.loadFromFileStatic(fileTemp);
+        assertEquals(binaryManager.getTasks(), restoredManager.getTasks());
+        assertEquals(binaryManager.getEpics(), restoredManager.getEpics());
+        assertEquals(binaryManager.getSubTasks(), restoredManager.getSubTasks());
+        assertEquals(subTask1.getStartTime(), restoredManager.getSubTask(subTask1.getId()).getStartTime());
+        assertEquals(binaryManager.getPrioritizedTasks(), restoredManager.getPrioritizedTasks());
+    }
+
+    @Test
+    @DisplayName("Large snapshot is loaded in parallel chunks with the same result")
+    public void shouldLoadLargeFileInParallel() throws IOException {
+        File fileTemp = File.createTempFile("tasks", ".csv");
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        try (BufferedWriter writer = Files.newBufferedWriter(fileTemp.toPath(), StandardCharsets.UTF_8)) {
+            writer.write("id,type,name,status,description,epic,duration,startTime");
+            writer.newLine();
+            writer.write("1,EPIC,epic,NEW,epic description,null,0," + start);
+            writer.newLine();
+            for (int id = 2; id <= 20_000; id++) {
+                Status status = id % 2 == 0 ? Status.DONE : Status.NEW;
+                writer.write(id + ",SUBTASK,subtask" + id + "," + status + ",subtask description " + id + ",1,1,"
+                        + start.plusMinutes(id));
+                writer.newLine();
+            }
+        }
+        assertTrue(fileTemp.length() > 1 << 20, "File should be large enough for parallel loading");
+
+        TaskManager restoredManager = FileBackedTaskManager.loadFromFileStatic(fileTemp);
+        Epic restoredEpic = restoredManager.getEpic(1);
+        assertEquals(19_999, restoredManager.getSubTasks().size());
+        assertEquals(19_999, restoredEpic.getSubTasksIds().size());
+        assertEquals(Status.IN_PROGRESS, restoredEpic.getStatus());
+        assertEquals(start.plusMinutes(2), restoredEpic.getStartTime());
+        assertEquals(start.plusMinutes(20_001), restoredEpic.getEndTime());
+        assertEquals(20_000, restoredManager.createTask(new Task("name", "desc", start.minusHours(1),
+                Duration.ofMinutes(1))).getId() - 1);
+    }
+
+    @Test
+    @DisplayName("Names and descriptions with commas, quotes and line breaks survive saving")
+    public void shouldQuoteSpecialCharacters() throws IOException {
+        File fileTemp = File.createTempFile("tasks", ".csv");
+        TaskManager csvManager = new FileBackedTaskManager(Managers.getDefaultHistory(), fileTemp);
+        Task task1 = csvManager.createTask(new Task("Купить молоко, хлеб", "\"Срочно\"\nпотом \\ позвонить",
+                LocalDateTime.of(2024, 6, 17, 11, 0), Duration.ofMinutes(15)));
+        Epic epic1 = csvManager.createEpic(new Epic("\"Ремонт\"", "кухня,\r\nванная"));
+
+        TaskManager restoredManager = FileBackedTaskManager.loadFromFileStatic(fileTemp);
+        assertEquals(task1.getName(), restoredManager.getTask(task1.getId()).getName());
+        assertEquals(task1.getDescription(), restoredManager.getTask(task1.getId()).getDescription());
+        assertEquals(task1.getStartTime(), restoredManager.getTask(task1.getId()).getStartTime());
+        assertEquals(epic1, restoredManager.getEpic(epic1.getId()));
+    }
+
+    @Test
+    @DisplayName("Segmented mode rewrites only the segment of the changed task")
+    public void shouldRewriteOnlyDirtySegments() throws IOException {
+        File fileTemp = File.createTempFile("tasks", ".csv");
+        TaskManager segmentedManager = new FileBackedTaskManager(Managers.getDefaultHistory(), fileTemp,
+                StorageMode.SEGMENTED);
+        segmentedManager.createTask(new Task("name1", "desc1", LocalDateTime.now(), Duration.ofMinutes(15)));
+        Epic epic1 = segmentedManager.createEpic(new Epic("name2", "desc2"));
+        SubTask subTask1 = segmentedManager.createSubTask(new SubTask("name3", "desc3", epic1.getId(),
+                LocalDateTime.now().plusMinutes(30), Duration.ofMinutes(15)));
+        subTask1.setStatus(Status.DONE);
+        segmentedManager.updateSubTask(subTask1);
+
+        TaskManager restoredManager = FileBackedTaskManager.loadFromFileStatic(fileTemp, StorageMode.SEGMENTED);
+        assertEquals(segmentedManager.getTasks(), restoredManager.getTasks());
+        assertEquals(segmentedManager.getEpics(), restoredManager.getEpics());
+        assertEquals(segmentedManager.getSubTasks(), restoredManager.getSubTasks());
+
+        File directory = new File(fileTemp.getPath() + ".segments");
+        String taskSegment = segmentFile(directory, "task-0.");
+        String subTaskSegment = segmentFile(directory, "subtask-0.");
+        subTask1.setStatus(Status.IN_PROGRESS);
+        segmentedManager.updateSubTask(subTask1);
+        assertEquals(taskSegment, segmentFile(directory, "task-0."),
+                "Segment of an unchanged task should not be rewritten");
+        assertNotEquals(subTaskSegment, segmentFile(directory, "subtask-0."));
+        assertFalse(new File(directory, subTaskSegment).exists(), "Replaced segment should be deleted");
+    }
+
+    @Test
+    @DisplayName("Interrupted segment flush leaves the previous state")
+    public void shouldIgnoreSegmentsOfInterruptedFlush() throws IOException {
+        File fileTemp = File.createTempFile("tasks", ".csv");
+        TaskManager segmentedManager = new FileBackedTaskManager(Managers.getDefaultHistory(), fileTemp,
+                StorageMode.SEGMENTED);
+        Epic epic1 = segmentedManager.createEpic(new Epic("name1", "desc1"));
+        segmentedManager.createSubTask(new SubTask("name2", "desc2", epic1.getId(), LocalDateTime.now(),
+                Duration.ofMinutes(15)));
+        File directory = new File(fileTemp.getPath() + ".segments");
+        String epicSegment = segmentFile(directory, "epic-0.");
+
+        // Сброс удаления эпика записал пустой список эпиков, но до манифеста не дошёл.
+        File strayEpicSegment = new File(directory, "epic-0.99.csv");
+        String header = Files.readAllLines(new File(directory, epicSegment).toPath()).getFirst();
+        Files.writeString(strayEpicSegment.toPath(), header + "\n");
+
+        TaskManager restoredManager = FileBackedTaskManager.loadFromFileStatic(fileTemp, StorageMode.SEGMENTED);
+        assertEquals(segmentedManager.getEpics(), restoredManager.getEpics());
+        assertEquals(segmentedManager.getSubTasks(), restoredManager.getSubTasks());
+        assertFalse(strayEpicSegment.exists(), "Segment of an interrupted flush should be deleted");
+        assertEquals(epicSegment, segmentFile(directory, "epic-0."));
+    }
+
+    private static String segmentFile(File directory, String prefix) {
+        String[] names = directory.list((dir, name) -> name.startsWith(prefix));
+        assertNotNull(names);
+        assertEquals(1, names.length, Arrays.toString(names));
+        return names[0];
+    }
 }
\ No newline at end of file
@@ -10,6 +10,7 @@ import service.exception.ValidationException;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -126,4 +127,106 @@ class InMemoryTaskManagerTest extends TaskManagerTest<InMemoryTaskManager> {
                     Duration.ofMinutes(15)));
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Validation checks neighbours on both sides of the new task")
+    public void shouldValidateAgainstNeighbours() {
+        LocalDateTime start = task.getStartTime();
+        assertThrows(ValidationException.class, () -> taskManager.createTask(new Task("name4", "desc4",
+                start.plusMinutes(10), Duration.ofMinutes(5))), "Task should overlap with the previous one");
+        assertThrows(ValidationException.class, () -> taskManager.createTask(new Task("name5", "desc5",
+                start.plusMinutes(20), Duration.ofMinutes(15))), "Task should overlap with the next one");
+        assertDoesNotThrow(() -> taskManager.createTask(new Task("name6", "desc6",
+                start.plusMinutes(15), Duration.ofMinutes(15))));
+    }
+
+    @Test
+    @DisplayName("Epic status follows status counters of many subtasks")
+    public void shouldTrackEpicStatusByCounters() {
+        Epic bigEpic = taskManager.createEpic(new Epic("name4", "desc4"));
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        List<SubTask> created = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            created.add(taskManager.createSubTask(new SubTask("sub" + i, "desc", bigEpic.getId(),
+                    start.plusMinutes(10L * i), Duration.ofMinutes(5))));
+        }
+        assertEquals(Status.NEW, bigEpic.getStatus());
+        for (SubTask sub : created) {
+            sub.setStatus(Status.DONE);
+            taskManager.updateSubTask(sub);
+        }
+        assertEquals(Status.DONE, bigEpic.getStatus());
+        created.getFirst().setStatus(Status.IN_PROGRESS);
+        taskManager.updateSubTask(created.getFirst());
+        assertEquals(Status.IN_PROGRESS, bigEpic.getStatus());
+        taskManager.deleteByIdSubTask(created.getFirst().getId());
+        assertEquals(Status.DONE, bigEpic.getStatus());
+        assertEquals(999, bigEpic.getSubTasksCount(Status.DONE));
+        taskManager.deleteAllSubTasks();
+        assertEquals(Status.NEW, bigEpic.getStatus());
+        assertEquals(0, bigEpic.getSubTasksCount(Status.DONE));
+    }
+
+    @Test
+    @DisplayName("Epic time follows subtask changes")
+    public void shouldTrackEpicTimeIncrementally() {
+        Epic timedEpic = taskManager.createEpic(new Epic("name4", "desc4"));
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        SubTask first = taskManager.createSubTask(new SubTask("sub1", "desc", timedEpic.getId(), start,
+                Duration.ofMinutes(10)));
+        SubTask last = taskManager.createSubTask(new SubTask("sub2", "desc", timedEpic.getId(),
+                start.plusHours(2), Duration.ofMinutes(30)));
+        assertEquals(start, timedEpic.getStartTime());
+        assertEquals(start.plusHours(2).plusMinutes(30), timedEpic.getEndTime());
+        assertEquals(Duration.ofMinutes(150), timedEpic.getDuration());
+
+        last.setStartTime(start.plusHours(1));
+        taskManager.updateSubTask(last);
+        assertEquals(start.plusHours(1).plusMinutes(30), timedEpic.getEndTime());
+        taskManager.deleteByIdSubTask(first.getId());
+        assertEquals(start.plusHours(1), timedEpic.getStartTime());
+        assertEquals(Duration.ofMinutes(30), timedEpic.getDuration());
+
+        taskManager.deleteByIdSubTask(last.getId());
+        assertEquals(Duration.ofMinutes(15), timedEpic.getDuration());
+        assertTrue(timedEpic.getStartTime().isBefore(start));
+    }
+
+    @Test
+    @DisplayName("Snapshot epics keep their own subtask lists across versions")
+    public void shouldKeepEpicMembershipPerSnapshot() {
+        Epic epic2 = taskManager.createEpic(new Epic("name4", "desc4"));
+        SubTask subTask2 = taskManager.createSubTask(new SubTask("name5", "desc5", epic.getId(),
+                LocalDateTime.now().plusDays(1), Duration.ofMinutes(15)));
+        TaskSnapshot before = taskManager.snapshot();
+        taskManager.createSubTask(new SubTask("name6", "desc6", epic2.getId(),
+                LocalDateTime.now().plusDays(2), Duration.ofMinutes(15)));
+        taskManager.deleteByIdEpic(epic.getId());
+        TaskSnapshot after = taskManager.snapshot();
+
+        assertEquals(List.of(subTask.getId(), subTask2.getId()), before.getEpic(epic.getId()).getSubTasksIds());
+        assertEquals(List.of(), before.getEpic(epic2.getId()).getSubTasksIds());
+        assertNull(after.getEpic(epic.getId()));
+        assertNull(after.getSubTask(subTask2.getId()));
+        assertEquals(1, after.getEpic(epic2.getId()).getSubTasksCount());
+        assertEquals(List.of(epic2), List.copyOf(after.getEpics()));
+        assertNotSame(after.getEpic(epic2.getId()), after.getEpic(epic2.getId()));
+    }
+
+    @Test
+    @DisplayName("Snapshot epics keep subtasks when ids are beyond the Integer cache")
+    public void shouldAssembleEpicsWithLargeIds() {
+        for (int i = 0; i < 200; i++) {
+            taskManager.createEpic(new Epic("name" + i, "desc"));
+        }
+        Epic bigEpic = taskManager.createEpic(new Epic("big", "desc"));
+        SubTask first = taskManager.createSubTask(new SubTask("first", "desc", bigEpic.getId(),
+                LocalDateTime.now().plusDays(1), Duration.ofMinutes(15)));
+        SubTask second = taskManager.createSubTask(new SubTask("second", "desc", bigEpic.getId(),
+                LocalDateTime.now().plusDays(2), Duration.ofMinutes(15)));
+        TaskSnapshot snapshot = taskManager.snapshot();
+
+        assertTrue(bigEpic.getId() > 127);
+        assertEquals(List.of(first.getId(), second.getId()), snapshot.getEpic(bigEpic.getId()).getSubTasksIds());
+    }
+}
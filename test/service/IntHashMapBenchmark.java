@@ -0,0 +1,83 @@
+package service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/*
+ * Замер IntHashMap против HashMap<Integer, V>, на которых раньше держались реестры менеджера: вставка
+ * возрастающих id, как их выдаёт менеджер, поиск существующих и отсутствующих id в перемешанном порядке
+ * и занятая кучей память на запись. Все записи ссылаются на одно значение, поэтому в память входит только карта.
+ * Запуск: java -Xmx2g -cp <классы> service.IntHashMapBenchmark [записей]
+ */
+public class IntHashMapBenchmark {
+    private static final int WARMUPS = 3;
+    private static final int ITERATIONS = 10;
+    private static final Object VALUE = new Object();
+
+    public static void main(String[] args) throws Exception {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int[] shuffled = new int[size];
+        for (int i = 0; i < size; i++) {
+            shuffled[i] = (int) ((i * 0x9E3779B1L) % size) + 1;  // Перестановка 1..size: шаг взаимно прост с size.
+        }
+        run("IntHashMap", IntHashMap::new, size, shuffled);
+        run("HashMap<Integer>", HashMap::new, size, shuffled);
+    }
+
+    private static void run(String name, Supplier<Map<Integer, Object>> factory, int size, int[] shuffled)
+            throws Exception {
+        BenchmarkRunner.measure(name + " put", WARMUPS, ITERATIONS, size, timer -> {
+            Map<Integer, Object> map = factory.get();
+            timer.start();
+            fill(map, size);
+            timer.stop();
+            timer.consume(map.size());
+        });
+        Map<Integer, Object> map = factory.get();
+        fill(map, size);
+        BenchmarkRunner.measure(name + " get, hit", WARMUPS, ITERATIONS, size, timer -> {
+            timer.start();
+            timer.consume(lookUp(map, shuffled, 0));
+            timer.stop();
+        });
+        BenchmarkRunner.measure(name + " get, miss", WARMUPS, ITERATIONS, size, timer -> {
+            timer.start();
+            timer.consume(lookUp(map, shuffled, size));
+            timer.stop();
+        });
+        map.clear();
+        long before = BenchmarkRunner.usedHeap();
+        Map<Integer, Object> measured = factory.get();
+        fill(measured, size);
+        long after = BenchmarkRunner.usedHeap();
+        System.out.printf("%-48s %14.1f bytes/entry  (%d entries)%n", name + " heap", (double) (after - before) / size,
+                measured.size());
+    }
+
+    private static void fill(Map<Integer, Object> map, int size) {
+        if (map instanceof IntHashMap<Object> intMap) {  // Менеджер кладёт по int, без упаковки ключа.
+            for (int id = 1; id <= size; id++) {
+                intMap.put(id, VALUE);
+            }
+        } else {
+            for (int id = 1; id <= size; id++) {
+                map.put(id, VALUE);
+            }
+        }
+    }
+
+    private static long lookUp(Map<Integer, Object> map, int[] ids, int offset) {
+        long found = 0;
+        if (map instanceof IntHashMap<Object> intMap) {
+            for (int id : ids) {
+                found += intMap.get(id + offset) != null ? 1 : 0;
+            }
+        } else {
+            for (int id : ids) {
+                found += map.get(id + offset) != null ? 1 : 0;
+            }
+        }
+        return found;
+    }
+}
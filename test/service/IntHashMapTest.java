@@ -0,0 +1,100 @@
+package service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class IntHashMapTest {
+
+    @Test
+    @DisplayName("Should behave like HashMap under random puts and removes")
+    public void shouldMatchHashMap() {
+        IntHashMap<String> map = new IntHashMap<>();
+        Map<Integer, String> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 50_000; i++) {
+            int key = random.nextInt(2_000) - 1_000;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.put(key, "v" + i), map.put(key, "v" + i));
+            }
+        }
+        assertEquals(expected, map);
+        assertEquals(expected.size(), map.keySet().size());
+        assertNull(map.get(5_000));
+    }
+
+    @Test
+    @DisplayName("Should iterate every key once and remove through iterator")
+    public void shouldIterateAndRemove() {
+        IntHashMap<String> map = new IntHashMap<>();
+        for (int i = 1; i <= 5; i++) {
+            map.put(i, "v" + i);
+        }
+        assertEquals(List.of(1, 2, 3, 4, 5), List.copyOf(map.keySet()));
+
+        Iterator<String> values = map.values().iterator();
+        while (values.hasNext()) {
+            String value = values.next();
+            if (value.equals("v2") || value.equals("v4")) {
+                values.remove();
+            }
+        }
+        assertEquals(Map.of(1, "v1", 3, "v3", 5, "v5"), map);
+        assertFalse(map.containsKey(2));
+    }
+
+    @Test
+    @DisplayName("Should iterate in insertion order across removals and growth")
+    public void shouldKeepInsertionOrder() {
+        IntHashMap<String> map = new IntHashMap<>();
+        List<Integer> expected = new ArrayList<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 10_000; i++) {
+            int key = random.nextInt(100_000);
+            if (map.put(key, "v" + i) == null) {
+                expected.add(key);
+            }
+            if (i % 3 == 0) {
+                Integer removed = expected.remove(random.nextInt(expected.size()));
+                map.remove(removed.intValue());
+            }
+        }
+        assertEquals(expected, List.copyOf(map.keySet()));
+        map.put(expected.getFirst(), "replaced");
+        assertEquals(expected.getFirst(), map.keySet().iterator().next());
+    }
+
+    @Test
+    @DisplayName("Misses stay cheap after mass deletion of sequential ids")
+    public void shouldMissQuicklyAfterMassDeletion() {
+        IntHashMap<String> map = new IntHashMap<>();
+        for (int i = 0; i < 1_000_000; i++) {
+            map.put(i, "v");
+        }
+        for (int i = 0; i < 1_000_000; i += 2) {
+            map.remove(i);
+        }
+        assertTimeoutPreemptively(Duration.ofSeconds(2), () -> {
+            for (int i = 0; i < 200_000; i += 2) {
+                assertNull(map.get(i));
+                assertNull(map.remove(i));
+            }
+        });
+        assertEquals(500_000, map.size());
+        assertEquals("v", map.get(999_999));
+    }
+}
@@ -0,0 +1,106 @@
+package service;
+
+import model.Epic;
+import model.Status;
+import model.SubTask;
+import model.Task;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedTaskManagerTest extends TaskManagerTest<InMemoryTaskManager> {
+
+    @Override
+    MappedTaskManager createTaskManager() {
+        try {
+            return MappedTaskManager.loadFromFileStatic(File.createTempFile("tasks", ".bin"), 16);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Test
+    @DisplayName("Binary snapshot is read lazily and changed through the store")
+    public void shouldReadLazilyAndWriteThroughStore() throws IOException {
+        File fileTemp = File.createTempFile("tasks", ".bin");
+        TaskManager writer = new FileBackedTaskManager(Managers.getDefaultHistory(), fileTemp,
+                StorageMode.SNAPSHOT, SnapshotFormat.BINARY, DurabilityPolicy.SYNC);
+        Task task1 = writer.createTask(new Task("name1", "desc1", LocalDateTime.now(), Duration.ofMinutes(15)));
+        Epic epic1 = writer.createEpic(new Epic("name2", "desc2"));
+        SubTask subTask1 = writer.createSubTask(new SubTask("name3", "desc3", epic1.getId(),
+                LocalDateTime.now().plusMinutes(30), Duration.ofMinutes(15)));
+        subTask1.setStatus(Status.DONE);
+        writer.updateSubTask(subTask1);
+
+        MappedTaskManager mappedManager = MappedTaskManager.loadFromFileStatic(fileTemp, 1);
+        assertEquals(task1, mappedManager.getTask(task1.getId()));
+        assertEquals(writer.getEpic(epic1.getId()), mappedManager.getEpic(epic1.getId()));
+        assertEquals(subTask1, mappedManager.getSubTask(subTask1.getId()));
+        assertNull(mappedManager.getTask(epic1.getId()), "Epic should not be returned as a task");
+        assertEquals(List.of(subTask1), mappedManager.getAllSubStacksByEpicId(epic1.getId()));
+        assertEquals(writer.getPrioritizedTasks(), mappedManager.getPrioritizedTasks());
+        assertEquals(List.of(task1, epic1, subTask1), mappedManager.getHistory());
+        assertFalse(mappedManager.isMaterialized());
+
+        mappedManager.deleteByIdTask(task1.getId());
+        SubTask subTask2 = mappedManager.createSubTask(new SubTask("name4", "desc4", epic1.getId(),
+                LocalDateTime.now().plusMinutes(60), Duration.ofMinutes(15)));
+        subTask1.setStatus(Status.NEW);
+        mappedManager.updateSubTask(subTask1);
+        assertFalse(mappedManager.isMaterialized());
+        assertEquals(0, mappedManager.getTasks().size());
+        assertEquals(List.of(subTask1, subTask2), mappedManager.getAllSubStacksByEpicId(epic1.getId()));
+        Epic changedEpic = mappedManager.getEpic(epic1.getId());
+        assertEquals(Status.NEW, changedEpic.getStatus());
+        assertEquals(subTask1.getStartTime(), changedEpic.getStartTime());
+        assertEquals(subTask2.getEndTime(), changedEpic.getEndTime());
+        assertEquals(List.of(subTask1, subTask2), mappedManager.getPrioritizedTasks());
+
+        MappedTaskManager reopened = MappedTaskManager.loadFromFileStatic(fileTemp, 1);
+        assertFalse(reopened.isMaterialized());
+        assertEquals(mappedManager.getTasks(), reopened.getTasks());
+        assertEquals(mappedManager.getEpics(), reopened.getEpics());
+        assertEquals(mappedManager.getSubTasks(), reopened.getSubTasks());
+        assertEquals(mappedManager.getPrioritizedTasks(), reopened.getPrioritizedTasks());
+        assertEquals(mappedManager.getEpics(), FileBackedTaskManager.loadFromFileStatic(fileTemp).getEpics());
+    }
+
+    @Test
+    @DisplayName("Time queries are answered from the store without loading the board")
+    public void shouldAnswerTimeQueriesFromStore() throws IOException {
+        File fileTemp = File.createTempFile("tasks", ".bin");
+        TaskManager writer = new FileBackedTaskManager(Managers.getDefaultHistory(), fileTemp,
+                StorageMode.SNAPSHOT, SnapshotFormat.BINARY, DurabilityPolicy.SYNC);
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 10, 0);
+        writer.createTask(new Task("name1", "desc", start.plusSeconds(30), Duration.ZERO));
+        writer.createTask(new Task("name2", "desc", start.plusSeconds(10), Duration.ZERO));
+        writer.createTask(new Task("name3", "desc", start.plusMinutes(5), Duration.ofMinutes(10)));
+        Epic epic1 = writer.createEpic(new Epic("name4", "desc"));
+        writer.createSubTask(new SubTask("name5", "desc", epic1.getId(), start.plusHours(1), Duration.ofMinutes(30)));
+        writer.createSubTask(new SubTask("name6", "desc", epic1.getId(), start.plusHours(2), Duration.ofMinutes(30)));
+        writer.createEpic(new Epic("name7", "desc"));
+
+        MappedTaskManager lazyManager = MappedTaskManager.loadFromFileStatic(fileTemp, 1);
+        assertEquals(writer.getPrioritizedTasks(), lazyManager.getPrioritizedTasks());
+        for (LocalDateTime from : List.of(start, start.plusMinutes(6), start.plusMinutes(90), start.plusHours(3))) {
+            assertEquals(writer.getPrioritizedTasks(from, from.plusHours(1), 10),
+                    lazyManager.getPrioritizedTasks(from, from.plusHours(1), 10));
+            assertEquals(writer.findFreeSlot(from, Duration.ofMinutes(40)),
+                    lazyManager.findFreeSlot(from, Duration.ofMinutes(40)));
+        }
+        assertEquals(writer.getPrioritizedTasks(null, null, 3), lazyManager.getPrioritizedTasks(null, null, 3));
+        assertFalse(lazyManager.isMaterialized());
+        TaskSnapshot snapshot = lazyManager.snapshot();
+        assertEquals(writer.getPrioritizedTasks(), List.copyOf(snapshot.getPrioritizedTasks()));
+        assertEquals(writer.getEpics(), List.copyOf(snapshot.getEpics()));
+        assertEquals(writer.getPrioritizedTasks(start, null, 10), snapshot.getPrioritizedTasks(start, null, 10));
+        assertFalse(lazyManager.isMaterialized());
+    }
+}
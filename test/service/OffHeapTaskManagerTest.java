@@ -0,0 +1,205 @@
+package service;
+
+import model.Epic;
+import model.Status;
+import model.SubTask;
+import model.Task;
+import model.TaskType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapTaskManagerTest extends TaskManagerTest<InMemoryTaskManager> {
+
+    @Override
+    OffHeapTaskManager createTaskManager() {
+        try {
+            return OffHeapTaskManager.loadFromFileStatic(File.createTempFile("tasks", ".bin"));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Test
+    @DisplayName("Board is served off-heap and changed through the store")
+    public void shouldServeOffHeapAndWriteThroughStore() throws IOException {
+        File fileTemp = File.createTempFile("tasks", ".bin");
+        TaskManager writer = new FileBackedTaskManager(Managers.getDefaultHistory(), fileTemp,
+                StorageMode.SNAPSHOT, SnapshotFormat.BINARY, DurabilityPolicy.SYNC);
+        LocalDateTime start = LocalDateTime.now();
+        Task task1 = writer.createTask(new Task("name1", "описание", start, Duration.ofMinutes(15)));
+        Epic epic1 = writer.createEpic(new Epic("name2", "desc2"));
+        SubTask subTask1 = writer.createSubTask(new SubTask("name3", "desc3", epic1.getId(),
+                start.plusMinutes(30), Duration.ofMinutes(15)));
+        subTask1.setStatus(Status.DONE);
+        writer.updateSubTask(subTask1);
+
+        OffHeapTaskManager offHeapManager = OffHeapTaskManager.loadFromFileStatic(fileTemp);
+        Task restored = offHeapManager.getTask(task1.getId());
+        assertEquals(task1, restored);
+        assertEquals(task1.getStartTime(), restored.getStartTime());
+        assertEquals(writer.getEpic(epic1.getId()), offHeapManager.getEpic(epic1.getId()));
+        assertEquals(subTask1, offHeapManager.getSubTask(subTask1.getId()));
+        assertEquals(List.of(subTask1), offHeapManager.getAllSubStacksByEpicId(epic1.getId()));
+        assertEquals(writer.getPrioritizedTasks(), offHeapManager.getPrioritizedTasks());
+        assertFalse(offHeapManager.isMaterialized());
+
+        offHeapManager.deleteByIdTask(task1.getId());
+        SubTask subTask2 = offHeapManager.createSubTask(new SubTask("name4", "desc4", epic1.getId(),
+                LocalDateTime.now().plusMinutes(60), Duration.ofMinutes(15)));
+        subTask1.setStatus(Status.NEW);
+        offHeapManager.updateSubTask(subTask1);
+        assertFalse(offHeapManager.isMaterialized());
+        assertEquals(0, offHeapManager.getTasks().size());
+        assertEquals(List.of(subTask1, subTask2), offHeapManager.getAllSubStacksByEpicId(epic1.getId()));
+        Epic changedEpic = offHeapManager.getEpic(epic1.getId());
+        assertEquals(Status.NEW, changedEpic.getStatus());
+        assertEquals(subTask1.getStartTime(), changedEpic.getStartTime());
+        assertEquals(subTask2.getEndTime(), changedEpic.getEndTime());
+        assertEquals(List.of(subTask1, subTask2), offHeapManager.getPrioritizedTasks());
+
+        OffHeapTaskManager reopened = OffHeapTaskManager.loadFromFileStatic(fileTemp);
+        assertFalse(reopened.isMaterialized());
+        assertEquals(offHeapManager.getTasks(), reopened.getTasks());
+        assertEquals(offHeapManager.getEpics(), reopened.getEpics());
+        assertEquals(offHeapManager.getSubTasks(), reopened.getSubTasks());
+        assertEquals(offHeapManager.getPrioritizedTasks(), reopened.getPrioritizedTasks());
+        assertEquals(offHeapManager.getEpics(), FileBackedTaskManager.loadFromFileStatic(fileTemp).getEpics());
+    }
+
+    @Test
+    @DisplayName("Store grows past its first chunk and finds records by id")
+    public void shouldGrowAndFindById() {
+        OffHeapTaskStore store = new OffHeapTaskStore();
+        for (int id = 5_000; id > 0; id--) {
+            Task task = new Task("name" + id, id % 2 == 0 ? null : "desc");
+            task.setId(id);
+            store.append(task);
+        }
+        store.seal();
+
+        assertEquals(5_000, store.size());
+        assertEquals("name4321", store.get(4321, TaskType.TASK).getName());
+        assertNull(store.get(4320, TaskType.TASK).getDescription());
+        assertNull(store.get(5_001, TaskType.TASK));
+        assertEquals(1, store.getAll(TaskType.TASK).getFirst().getId());
+        assertTrue(store.getOffHeapBytes() > 0);
+    }
+
+    @Test
+    @DisplayName("Time queries are answered from the store without loading the board")
+    public void shouldAnswerTimeQueriesFromStore() throws IOException {
+        File fileTemp = File.createTempFile("tasks", ".bin");
+        TaskManager writer = new FileBackedTaskManager(Managers.getDefaultHistory(), fileTemp,
+                StorageMode.SNAPSHOT, SnapshotFormat.BINARY, DurabilityPolicy.SYNC);
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 10, 0);
+        writer.createTask(new Task("name1", "desc", start.plusSeconds(30), Duration.ZERO));
+        writer.createTask(new Task("name2", "desc", start.plusSeconds(10), Duration.ZERO));
+        writer.createTask(new Task("name3", "desc", start.plusMinutes(5), Duration.ofMinutes(10)));
+        Epic epic1 = writer.createEpic(new Epic("name4", "desc"));
+        writer.createSubTask(new SubTask("name5", "desc", epic1.getId(), start.plusHours(1), Duration.ofMinutes(30)));
+        writer.createSubTask(new SubTask("name6", "desc", epic1.getId(), start.plusHours(2), Duration.ofMinutes(30)));
+        writer.createEpic(new Epic("name7", "desc"));
+
+        OffHeapTaskManager lazyManager = OffHeapTaskManager.loadFromFileStatic(fileTemp);
+        assertEquals(writer.getPrioritizedTasks(), lazyManager.getPrioritizedTasks());
+        for (LocalDateTime from : List.of(start, start.plusMinutes(6), start.plusMinutes(90), start.plusHours(3))) {
+            assertEquals(writer.getPrioritizedTasks(from, from.plusHours(1), 10),
+                    lazyManager.getPrioritizedTasks(from, from.plusHours(1), 10));
+            assertEquals(writer.findFreeSlot(from, Duration.ofMinutes(40)),
+                    lazyManager.findFreeSlot(from, Duration.ofMinutes(40)));
+        }
+        assertEquals(writer.getPrioritizedTasks(null, null, 3), lazyManager.getPrioritizedTasks(null, null, 3));
+        assertFalse(lazyManager.isMaterialized());
+        TaskSnapshot snapshot = lazyManager.snapshot();
+        assertEquals(writer.getPrioritizedTasks(), List.copyOf(snapshot.getPrioritizedTasks()));
+        assertEquals(writer.getEpics(), List.copyOf(snapshot.getEpics()));
+        assertEquals(writer.getPrioritizedTasks(start, null, 10), snapshot.getPrioritizedTasks(start, null, 10));
+        assertFalse(lazyManager.isMaterialized());
+    }
+
+    @Test
+    @DisplayName("Journal is replayed into the off-heap store without loading the board")
+    public void shouldReplayJournalOffHeap() throws IOException {
+        File fileTemp = File.createTempFile("tasks", ".csv");
+        FileBackedTaskManager writer = new FileBackedTaskManager(Managers.getDefaultHistory(), fileTemp,
+                StorageMode.JOURNAL);
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 10, 0);
+        Task task1 = writer.createTask(new Task("name1", "desc", start, Duration.ofMinutes(15)));
+        Task task2 = writer.createTask(new Task("name2", "desc", start.plusHours(1), Duration.ofMinutes(15)));
+        Epic epic1 = writer.createEpic(new Epic("name3", "desc"));
+        SubTask subTask1 = writer.createSubTask(new SubTask("name4", "desc", epic1.getId(), start.plusHours(2),
+                Duration.ofMinutes(30)));
+        writer.createSubTask(new SubTask("name5", "desc", epic1.getId(), start.plusHours(3), Duration.ofMinutes(30)));
+        subTask1.setStatus(Status.IN_PROGRESS);
+        writer.updateSubTask(subTask1);
+        task2.setName("renamed");
+        writer.updateTask(task2);
+        writer.deleteByIdTask(task1.getId());
+        writer.deleteAllTasks();
+        Task task3 = writer.createTask(new Task("name6", "desc", start.plusHours(5), Duration.ofMinutes(15)));
+
+        OffHeapTaskManager offHeapManager = OffHeapTaskManager.loadFromFileStatic(fileTemp);
+        assertEquals(List.of(task3), offHeapManager.getTasks());
+        assertEquals(byId(writer.getEpics()), offHeapManager.getEpics());
+        assertEquals(byId(writer.getSubTasks()), offHeapManager.getSubTasks());
+        assertEquals(writer.getPrioritizedTasks(), offHeapManager.getPrioritizedTasks());
+        assertEquals(Status.IN_PROGRESS, offHeapManager.getEpic(epic1.getId()).getStatus());
+        assertFalse(offHeapManager.isMaterialized());
+    }
+
+    @Test
+    @DisplayName("CSV board is loaded as by FileBackedTaskManager, empty epics included")
+    public void shouldLoadCsvLikeFileBackedManager() throws IOException {
+        File fileTemp = File.createTempFile("tasks", ".csv");
+        TaskManager writer = new FileBackedTaskManager(Managers.getDefaultHistory(), fileTemp);
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 10, 0);
+        writer.createTask(new Task("name1", "desc", start, Duration.ofMinutes(15)));
+        writer.createEpic(new Epic("name2", "desc"));
+        Epic epic1 = writer.createEpic(new Epic("name3", "desc"));
+        SubTask subTask1 = writer.createSubTask(new SubTask("name4", "desc", epic1.getId(), start.plusHours(1),
+                Duration.ofMinutes(30)));
+        subTask1.setStatus(Status.DONE);
+        writer.updateSubTask(subTask1);
+        Epic epic2 = writer.createEpic(new Epic("name5", "desc"));
+        SubTask subTask2 = writer.createSubTask(new SubTask("name6", "desc", epic2.getId(), start.plusHours(2),
+                Duration.ofMinutes(30)));
+        subTask2.setStatus(Status.IN_PROGRESS);
+        writer.updateSubTask(subTask2);
+        writer.deleteByIdSubTask(subTask2.getId());
+
+        TaskManager expected = FileBackedTaskManager.loadFromFileStatic(fileTemp);
+        OffHeapTaskManager offHeapManager = OffHeapTaskManager.loadFromFileStatic(fileTemp);
+        assertEquals(byId(expected.getTasks()), byId(offHeapManager.getTasks()));
+        assertEquals(byId(expected.getSubTasks()), byId(offHeapManager.getSubTasks()));
+        List<Epic> expectedEpics = byId(expected.getEpics());
+        List<Epic> epics = byId(offHeapManager.getEpics());
+        assertEquals(expectedEpics, epics);
+        for (int i = 0; i < epics.size(); i++) {
+            Epic expectedEpic = expectedEpics.get(i);
+            Epic epic = epics.get(i);
+            if (expectedEpic.isEmpty()) {  // Пустой эпик начинается в момент загрузки, поэтому сверяется длительность.
+                assertEquals(Duration.ofMinutes(15), expectedEpic.getDuration());
+                assertNotNull(epic.getStartTime());
+                assertEquals(Duration.ofMinutes(15), epic.getDuration());
+                assertEquals(epic.getStartTime().plusMinutes(15), epic.getEndTime());
+            } else {
+                assertEquals(expectedEpic.getStartTime(), epic.getStartTime());
+                assertEquals(expectedEpic.getDuration(), epic.getDuration());
+                assertEquals(expectedEpic.getEndTime(), epic.getEndTime());
+            }
+        }
+    }
+
+    private static <T extends Task> List<T> byId(List<T> tasks) {  // Порядок списков менеджера не определён.
+        return tasks.stream().sorted(Comparator.comparingInt(Task::getId)).toList();
+    }
+}
@@ -0,0 +1,63 @@
+package service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PersistentTreeMapTest {
+
+    @Test
+    @DisplayName("Persistent map behaves like TreeMap and keeps old versions")
+    public void shouldMatchTreeMap() {
+        Random random = new Random(7);
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        PersistentTreeMap<Integer, Integer> actual = PersistentTreeMap.empty(Comparator.naturalOrder());
+        PersistentTreeMap<Integer, Integer> saved = actual;
+        List<Integer> savedValues = List.of();
+        for (int i = 0; i < 5000; i++) {
+            int key = random.nextInt(500);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                actual = actual.remove(key);
+            } else {
+                expected.put(key, i);
+                actual = actual.put(key, i);
+            }
+            if (i == 2500) {
+                saved = actual;
+                savedValues = new ArrayList<>(expected.values());
+            }
+        }
+        assertEquals(expected.size(), actual.size());
+        assertEquals(new ArrayList<>(expected.values()), new ArrayList<>(actual.values()));
+        assertEquals(expected.get(42), actual.get(42));
+        assertEquals(savedValues, new ArrayList<>(saved.values()));
+    }
+
+    @Test
+    @DisplayName("Range lookups match TreeMap")
+    public void shouldMatchTreeMapRanges() {
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        PersistentTreeMap<Integer, Integer> actual = PersistentTreeMap.empty(Comparator.naturalOrder());
+        for (int key = 0; key < 200; key += 3) {
+            expected.put(key, key);
+            actual = actual.put(key, key);
+        }
+        for (int key = -1; key < 202; key++) {
+            assertEquals(expected.lowerKey(key), actual.lower(key));
+            List<Integer> tail = new ArrayList<>();
+            Iterator<Integer> values = actual.valuesFrom(key);
+            values.forEachRemaining(tail::add);
+            assertEquals(new ArrayList<>(expected.tailMap(key, true).values()), tail);
+        }
+        assertEquals(expected.lastKey(), actual.last());
+    }
+}
@@ -0,0 +1,84 @@
+package service;
+
+import model.Epic;
+import model.Status;
+import model.SubTask;
+import model.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/*
+ * Замер ConcurrentTaskManager под смесью 95/5: потоки читают списки задач и эпиков, расписание и подзадачи
+ * эпика, каждая двадцатая операция - updateSubTask. Время итерации делится на число операций всех потоков.
+ * Запуск: java -cp <классы> service.ReadWriteMixBenchmark [потоков] [операций на поток]
+ */
+public class ReadWriteMixBenchmark {
+    private static final int TASKS = 100;
+    private static final int EPICS = 10;
+    private static final int SUBTASKS_PER_EPIC = 100;
+    private static final Status[] STATUSES = Status.values();
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int operations = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        TaskManager taskManager = new ConcurrentTaskManager(new InMemoryHistoryManager());
+        LocalDateTime base = LocalDateTime.of(2030, 1, 1, 0, 0);
+        int slot = 0;
+        for (int i = 0; i < TASKS; i++) {
+            taskManager.createTask(new Task("task" + i, "desc", base.plusMinutes(30L * slot++),
+                    Duration.ofMinutes(15)));
+        }
+        List<Integer> epicIds = new ArrayList<>();
+        List<SubTask> subTasks = new ArrayList<>();
+        for (int e = 0; e < EPICS; e++) {
+            int epicId = taskManager.createEpic(new Epic("epic" + e, "desc")).getId();
+            epicIds.add(epicId);
+            for (int i = 0; i < SUBTASKS_PER_EPIC; i++) {
+                subTasks.add(taskManager.createSubTask(new SubTask("sub" + i, "desc", epicId,
+                        base.plusMinutes(30L * slot++), Duration.ofMinutes(15))));
+            }
+        }
+        BenchmarkRunner.measure(String.format("95/5 mix, %d threads", threads), 3, 10, (long) threads * operations,
+                timer -> {
+                    ExecutorService executor = Executors.newFixedThreadPool(threads);
+                    List<Future<Long>> futures = new ArrayList<>();
+                    timer.start();
+                    for (int thread = 0; thread < threads; thread++) {
+                        int seed = thread * 7919;
+                        futures.add(executor.submit(() -> {
+                            long seen = 0;
+                            for (int i = 0; i < operations; i++) {
+                                int n = i * 31 + seed;
+                                switch (i % 20) {
+                                    case 0 -> {
+                                        SubTask saved = subTasks.get(Math.floorMod(n, subTasks.size()));
+                                        SubTask changed = new SubTask(saved.getName(), saved.getDescription(),
+                                                saved.getEpicId(), saved.getStartTime(), saved.getDuration());
+                                        changed.setId(saved.getId());
+                                        changed.setStatus(STATUSES[Math.floorMod(n, STATUSES.length)]);
+                                        taskManager.updateSubTask(changed);
+                                    }
+                                    case 1, 5, 9, 13, 17 -> seen += taskManager.getTasks().size();
+                                    case 2, 6, 10, 14, 18 -> seen += taskManager.getEpics().size();
+                                    case 3, 7, 11, 15, 19 -> seen += taskManager.getPrioritizedTasks().size();
+                                    default -> seen += taskManager.getAllSubStacksByEpicId(
+                                            epicIds.get(Math.floorMod(n, EPICS))).size();
+                                }
+                            }
+                            return seen;
+                        }));
+                    }
+                    for (Future<Long> future : futures) {
+                        timer.consume(future.get());
+                    }
+                    timer.stop();
+                    executor.shutdown();
+                });
+    }
+}
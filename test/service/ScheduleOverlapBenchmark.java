@@ -0,0 +1,41 @@
+package service;
+
+import model.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/*
+ * Замер проверки пересечений: createTask и deleteByIdTask на расписании из n задач. Новые задачи ложатся
+ * в промежутки между существующими по всему расписанию, поэтому каждая проходит полную проверку.
+ * Запуск: java -cp <классы> service.ScheduleOverlapBenchmark [размеры расписания через запятую]
+ */
+public class ScheduleOverlapBenchmark {
+    private static final int OPS = 1_000;
+    private static final LocalDateTime BASE = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+    public static void main(String[] args) throws Exception {
+        String sizes = args.length > 0 ? args[0] : "1000,10000,50000,200000";
+        for (String size : sizes.split(",")) {
+            int n = Integer.parseInt(size);
+            TaskManager taskManager = new InMemoryTaskManager(Managers.getDefaultHistory());
+            for (int i = 0; i < n; i++) {
+                taskManager.createTask(new Task("task" + i, "desc", BASE.plusMinutes(30L * i), Duration.ofMinutes(15)));
+            }
+            int step = Math.max(1, n / OPS);
+            int[] ids = new int[OPS];
+            BenchmarkRunner.measure("create + delete, schedule of " + n, 10, 10, OPS, timer -> {
+                timer.start();
+                for (int j = 0; j < OPS; j++) {
+                    LocalDateTime start = BASE.plusMinutes(30L * ((long) j * step % n) + 15);
+                    ids[j] = taskManager.createTask(new Task("new", "desc", start, Duration.ofMinutes(10))).getId();
+                }
+                for (int j = 0; j < OPS; j++) {
+                    taskManager.deleteByIdTask(ids[j]);
+                }
+                timer.stop();
+                timer.consume(ids[OPS - 1]);
+            });
+        }
+    }
+}
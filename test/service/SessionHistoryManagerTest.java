@@ -0,0 +1,101 @@
+package service;
+
+import model.Task;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionHistoryManagerTest {
+    private final AtomicLong clock = new AtomicLong();
+
+    @AfterEach
+    public void clearSession() {
+        SessionHistoryManager.clearCurrentSession();
+    }
+
+    private static Task task(int id) {
+        Task task = new Task("name" + id, "desc" + id, LocalDateTime.now(), Duration.ofMinutes(15));
+        task.setId(id);
+        return task;
+    }
+
+    private static List<Integer> historyOf(HistoryManager historyManager, String session) {
+        SessionHistoryManager.setCurrentSession(session);
+        return historyManager.getHistory().stream().map(Task::getId).toList();
+    }
+
+    private static void view(HistoryManager historyManager, String session, int id) {
+        SessionHistoryManager.setCurrentSession(session);
+        historyManager.add(task(id));
+    }
+
+    @Test
+    @DisplayName("Each session sees only its own views, removal affects all")
+    public void shouldSeparateSessions() {
+        HistoryManager historyManager = new SessionHistoryManager(10, 100, Duration.ofMinutes(30), clock::get);
+        view(historyManager, "alice", 1);
+        view(historyManager, "bob", 2);
+        view(historyManager, "alice", 2);
+        assertEquals(List.of(1, 2), historyOf(historyManager, "alice"));
+        assertEquals(List.of(2), historyOf(historyManager, "bob"));
+        assertEquals(List.of(), historyOf(historyManager, null));
+        historyManager.remove(2);
+        assertEquals(List.of(1), historyOf(historyManager, "alice"));
+        assertEquals(List.of(), historyOf(historyManager, "bob"));
+    }
+
+    @Test
+    @DisplayName("Idle sessions are evicted")
+    public void shouldEvictIdleSessions() {
+        SessionHistoryManager historyManager = new SessionHistoryManager(10, 100, Duration.ofSeconds(60),
+                clock::get);
+        for (int client = 0; client < 50; client++) {
+            view(historyManager, "client" + client, client);
+        }
+        assertEquals(50, historyManager.getSessionCount());
+        clock.addAndGet(Duration.ofSeconds(61).toNanos());
+        assertEquals(List.of(), historyOf(historyManager, "client1"));
+        for (int client = 0; client < 50; client++) {
+            historyOf(historyManager, "client" + client);  // Обращение к шарду чистит его от простаивающих сессий.
+        }
+        assertEquals(0, historyManager.getSessionCount());
+    }
+
+    @Test
+    @DisplayName("Number of sessions stays bounded")
+    public void shouldBoundSessionCount() {
+        SessionHistoryManager historyManager = new SessionHistoryManager(10, 32, Duration.ofMinutes(30),
+                clock::get);
+        for (int client = 0; client < 10_000; client++) {
+            view(historyManager, "client" + client, client);
+        }
+        assertEquals(32, historyManager.getSessionCount());
+    }
+
+    @Test
+    @DisplayName("Removals are applied lazily and pruned once every session has seen them")
+    public void shouldPruneRemovedIds() {
+        SessionHistoryManager historyManager = new SessionHistoryManager(10, 2, Duration.ofMinutes(30), clock::get);
+        view(historyManager, "alice", 1);
+        view(historyManager, "bob", 1);
+        historyManager.remove(1);
+        view(historyManager, "alice", 1);  // Задача снова доступна после удаления в другом месте.
+        assertEquals(List.of(1), historyOf(historyManager, "alice"));
+        assertEquals(List.of(), historyOf(historyManager, "bob"));
+        for (int id = 100; id < 2_000; id++) {
+            historyManager.remove(id);
+        }
+        assertTrue(historyManager.getRemovedCount() <= 1024 + 2 + 1);
+        assertEquals(List.of(1), historyOf(historyManager, "alice"));
+        historyManager.remove(1);
+        assertEquals(List.of(), historyOf(historyManager, "alice"));
+    }
+}
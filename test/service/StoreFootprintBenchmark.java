@@ -0,0 +1,72 @@
+package service;
+
+import java.io.File;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Callable;
+
+/*
+ * Замер памяти на запись у доски, открытой разными менеджерами, и длительности полной сборки, пока доска
+ * жива. Снимок - файл CsvLoadBenchmark, переписанный в BINARY. FileBackedTaskManager держит доску картами
+ * задач, CompactTaskManager - массивами в куче, OffHeapTaskManager - вне кучи, MappedTaskManager - отображением
+ * файла. Куча считается по usedHeap до и после открытия, память вне кучи - по пулу direct-буферов.
+ * Остатки одной доски искажают замер следующей, поэтому для точных чисел каждый менеджер лучше мерить
+ * отдельным запуском, указав его имя.
+ * Запуск: java -Xmx3g -cp <классы> service.StoreFootprintBenchmark [записей] [каталог] [менеджер]
+ */
+public class StoreFootprintBenchmark {
+    private static final int GC_RUNS = 5;
+    private static final int CACHE_CAPACITY = 10_000;
+
+    public static void main(String[] args) throws Exception {
+        int records = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        File directory = new File(args.length > 1 ? args[1] : ".");
+        File csv = new File(directory, "tasks-" + records + ".csv");
+        File binary = new File(directory, "tasks-" + records + ".bin");
+        if (!csv.exists()) {
+            CsvLoadBenchmark.generate(csv, records);
+        }
+        if (!binary.exists()) {
+            TaskManager loaded = FileBackedTaskManager.loadFromFileStatic(csv);
+            SnapshotFiles.write(binary, SnapshotFormat.BINARY, false, loaded.getTasks(), loaded.getEpics(),
+                    loaded.getSubTasks());
+        }
+        String only = args.length > 2 ? args[2] : null;
+        measure("FileBackedTaskManager", only, records, () -> FileBackedTaskManager.loadFromFileStatic(binary));
+        measure("CompactTaskManager", only, records, () -> CompactTaskManager.loadFromFileStatic(binary));
+        measure("OffHeapTaskManager", only, records, () -> OffHeapTaskManager.loadFromFileStatic(binary));
+        measure("MappedTaskManager", only, records,
+                () -> MappedTaskManager.loadFromFileStatic(binary, CACHE_CAPACITY));
+    }
+
+    private static void measure(String name, String only, int records, Callable<TaskManager> open)
+            throws Exception {
+        if (only != null && !only.equals(name)) {
+            return;
+        }
+        long heapBefore = BenchmarkRunner.usedHeap();
+        long directBefore = directMemory();
+        TaskManager taskManager = open.call();
+        long heap = BenchmarkRunner.usedHeap() - heapBefore;
+        long direct = directMemory() - directBefore;
+        long gcNanos = 0;
+        for (int i = 0; i < GC_RUNS; i++) {
+            long start = System.nanoTime();
+            System.gc();
+            gcNanos += System.nanoTime() - start;
+        }
+        System.out.printf("%-24s heap %7.1f bytes/record, off-heap %7.1f bytes/record, full GC %7.1f ms (%d)%n",
+                name, (double) heap / records, (double) direct / records, gcNanos / 1e6 / GC_RUNS,
+                taskManager.getTasks().size());
+    }
+
+    private static long directMemory() {
+        long used = 0;
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if (pool.getName().equals("direct")) {
+                used += pool.getMemoryUsed();
+            }
+        }
+        return used;
+    }
+}
@@ -10,6 +10,7 @@ import org.junit.jupiter.api.Test;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -51,6 +52,21 @@ abstract class TaskManagerTest<T extends TaskManager> {
         assertEquals(List.of(subTask), taskManager.getSubTasks());
     }
 
+    @Test
+    @DisplayName("Lists keep creation order after deletions")
+    public void shouldListInCreationOrder() {
+        List<Integer> expected = new ArrayList<>(List.of(epic.getId()));
+        for (int i = 0; i < 100; i++) {
+            Epic created = taskManager.createEpic(new Epic("epic" + i, "desc"));
+            if (i % 7 == 0) {
+                taskManager.deleteByIdEpic(created.getId());
+            } else {
+                expected.add(created.getId());
+            }
+        }
+        assertEquals(expected, taskManager.getEpics().stream().map(Task::getId).toList());
+    }
+
     @Test
     @DisplayName("Get History")
     void shouldGetHistory() {
@@ -204,4 +220,68 @@ abstract class TaskManagerTest<T extends TaskManager> {
                 epic.getId(), LocalDateTime.now().plusMinutes(15), Duration.ofMinutes(10)));
         assertEquals(List.of(taskNew, task, subTaskNew, subTask), taskManager.getPrioritizedTasks());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Snapshot keeps its version after later changes")
+    public void shouldKeepSnapshotVersion() {
+        TaskSnapshot before = taskManager.snapshot();
+        subTask.setStatus(Status.DONE);
+        taskManager.updateSubTask(subTask);
+        taskManager.deleteByIdTask(task.getId());
+        TaskSnapshot after = taskManager.snapshot();
+
+        assertEquals(List.of(task), List.copyOf(before.getTasks()));
+        assertEquals(List.of(task.getId(), subTask.getId()), before.getPrioritizedTasks().stream()
+                .map(Task::getId)
+                .toList());
+        assertEquals(Status.NEW, before.getSubTask(subTask.getId()).getStatus());
+        assertEquals(Status.NEW, before.getEpic(epic.getId()).getStatus());
+        assertTrue(after.getVersion() > before.getVersion());
+        assertTrue(after.getTasks().isEmpty());
+        assertEquals(List.of(subTask), List.copyOf(after.getPrioritizedTasks()));
+        assertEquals(Status.DONE, after.getEpic(epic.getId()).getStatus());
+        assertEquals(List.of(subTask.getId()), after.getEpic(epic.getId()).getSubTasksIds());
+    }
+
+    @Test
+    @DisplayName("Get prioritized tasks in time range with epics by their span")
+    public void shouldGetPrioritizedTasksInRange() {
+        LocalDateTime start = task.getStartTime();
+        SubTask lastSubTask = taskManager.createSubTask(new SubTask("name4", "desc4", epic.getId(),
+                start.plusMinutes(60), Duration.ofMinutes(15)));
+
+        assertEquals(List.of(task.getId(), epic.getId(), subTask.getId()),
+                ids(taskManager.getPrioritizedTasks(start.plusMinutes(5), start.plusMinutes(35), 10)));
+        assertEquals(List.of(epic.getId()),
+                ids(taskManager.getPrioritizedTasks(start.plusMinutes(50), start.plusMinutes(55), 10)));
+        assertEquals(List.of(epic.getId(), lastSubTask.getId()),
+                ids(taskManager.getPrioritizedTasks(start.plusMinutes(70), null, 10)));
+        assertEquals(List.of(task.getId()), ids(taskManager.getPrioritizedTasks(null, null, 1)));
+        assertEquals(List.of(), taskManager.getPrioritizedTasks(start.plusMinutes(80), null, 10));
+    }
+
+    @Test
+    @DisplayName("Find the earliest free slot and keep it current after schedule changes")
+    public void shouldFindFreeSlot() {
+        LocalDateTime start = task.getStartTime();
+
+        assertEquals(start.plusMinutes(15), taskManager.findFreeSlot(start, Duration.ofMinutes(10)));
+        assertEquals(subTask.getEndTime(), taskManager.findFreeSlot(start, Duration.ofMinutes(20)));
+        assertEquals(start.minusMinutes(10), taskManager.findFreeSlot(start.minusMinutes(10), Duration.ofMinutes(10)));
+        assertEquals(subTask.getEndTime(), taskManager.findFreeSlot(start.plusMinutes(35), Duration.ofMinutes(5)));
+
+        taskManager.deleteByIdSubTask(subTask.getId());
+        assertEquals(start.plusMinutes(15), taskManager.findFreeSlot(start, Duration.ofMinutes(20)));
+
+        Task moved = new Task(task.getName(), task.getDescription(), start.plusMinutes(20), Duration.ofMinutes(15));
+        moved.setId(task.getId());
+        taskManager.updateTask(moved);
+        assertEquals(start, taskManager.findFreeSlot(start, Duration.ofMinutes(20)));
+        assertEquals(start.plusMinutes(35), taskManager.findFreeSlot(start, Duration.ofMinutes(30)));
+        assertThrows(IllegalArgumentException.class, () -> taskManager.findFreeSlot(start, Duration.ofMinutes(-1)));
+    }
+
+    private static List<Integer> ids(List<? extends Task> tasks) {
+        return tasks.stream().map(Task::getId).toList();
+    }
+}